@@ -0,0 +1,105 @@
+#!/bin/bash
+set -e
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m'
+
+NAMESPACE="${NAMESPACE:-shop-system}"
+SERVICE="${SERVICE:-product-service}"
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+AUTH_URL="${AUTH_URL:-http://localhost:9000}"
+TARGET_PATH="${TARGET_PATH:-/products}"
+DURATION="${DURATION:-30s}"
+CONCURRENCY="${CONCURRENCY:-1000}"
+ACTUATOR_PORT="${ACTUATOR_PORT:-18080}"
+
+case "$SERVICE" in
+  product-service) SERVICE_PORT=8081 ;;
+  customer-service) SERVICE_PORT=8082 ;;
+  order-service) SERVICE_PORT=8083 ;;
+  auth-service) SERVICE_PORT=9000 ;;
+  *) echo -e "${RED}Unknown service: ${SERVICE}${NC}"; exit 1 ;;
+esac
+
+if ! command -v hey >/dev/null 2>&1; then
+    echo -e "${RED}hey is not installed: go install github.com/rakyll/hey@latest${NC}"
+    exit 1
+fi
+
+TOKEN_RESPONSE=$(timeout 5 curl -s -X POST "${AUTH_URL}/oauth2/token" \
+  -u "shop-client:shop-secret" \
+  -d "grant_type=client_credentials&scope=shop-api")
+ACCESS_TOKEN=$(echo "$TOKEN_RESPONSE" | grep -o '"access_token":"[^"]*' | cut -d'"' -f4)
+
+if [ -z "$ACCESS_TOKEN" ]; then
+  echo -e "${RED}FAIL: No access token${NC}"
+  echo "$TOKEN_RESPONSE"
+  exit 1
+fi
+
+metric() {
+  curl -s "http://localhost:${ACTUATOR_PORT}/actuator/metrics/$1" \
+    | grep -o '"statistic":"VALUE","value":[0-9.E+-]*' | head -1 | cut -d':' -f3
+}
+
+run_mode() {
+  local enabled=$1
+
+  echo -e "${BLUE}Restarting ${SERVICE} with VIRTUAL_THREADS_ENABLED=${enabled}...${NC}" >&2
+  kubectl set env -n "$NAMESPACE" "deployment/${SERVICE}" VIRTUAL_THREADS_ENABLED="$enabled" >/dev/null
+  kubectl rollout status -n "$NAMESPACE" "deployment/${SERVICE}" --timeout=300s >/dev/null
+
+  kubectl port-forward -n "$NAMESPACE" "deployment/${SERVICE}" "${ACTUATOR_PORT}:${SERVICE_PORT}" >/dev/null 2>&1 &
+  local forward_pid=$!
+  sleep 5
+
+  hey -z 10s -c 50 -H "Authorization: Bearer $ACCESS_TOKEN" "${BASE_URL}${TARGET_PATH}" >/dev/null
+  sleep 5
+
+  local idle_memory idle_threads
+  idle_memory=$(metric jvm.memory.used)
+  idle_threads=$(metric jvm.threads.live)
+
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $ACCESS_TOKEN" \
+    "${BASE_URL}${TARGET_PATH}" > "/tmp/hey-${SERVICE}-${enabled}.txt" &
+  local hey_pid=$!
+
+  local peak_memory=0 peak_threads=0 memory threads
+  while kill -0 "$hey_pid" 2>/dev/null; do
+    memory=$(metric jvm.memory.used)
+    threads=$(metric jvm.threads.live)
+    peak_memory=$(awk -v a="$peak_memory" -v b="${memory:-0}" 'BEGIN {print (b > a) ? b : a}')
+    peak_threads=$(awk -v a="$peak_threads" -v b="${threads:-0}" 'BEGIN {print (b > a) ? b : a}')
+    sleep 2
+  done
+  wait "$hey_pid" || true
+  kill "$forward_pid" 2>/dev/null || true
+
+  local report rps p99 errors per_request
+  report=$(cat "/tmp/hey-${SERVICE}-${enabled}.txt")
+  rps=$(echo "$report" | grep "Requests/sec" | awk '{print $2}')
+  p99=$(echo "$report" | grep "99% in" | awk '{print $3}')
+  errors=$(echo "$report" | sed -n '/Status code distribution/,$p' | grep -v "\[200\]" | grep -o "\[[0-9]*\][[:space:]]*[0-9]*" | awk '{sum += $2} END {print sum + 0}')
+  per_request=$(awk -v peak="$peak_memory" -v idle="$idle_memory" -v c="$CONCURRENCY" 'BEGIN {printf "%.1f", (peak - idle) / c / 1024}')
+
+  printf "%-10s %-10s %-10s %-10s %-14s %-14s\n" "$enabled" "$rps" "$p99" "$errors" "$(printf '%.0f' "$peak_threads")" "$per_request"
+}
+
+echo -e "${YELLOW}${SERVICE} ${TARGET_PATH}: ${CONCURRENCY} concurrent requests for ${DURATION} per mode${NC}"
+echo ""
+
+RESULTS=$(
+  printf "%-10s %-10s %-10s %-10s %-14s %-14s\n" "virtual" "req/s" "p99 (s)" "errors" "peak threads" "KiB/in-flight"
+  run_mode false
+  run_mode true
+)
+
+kubectl set env -n "$NAMESPACE" "deployment/${SERVICE}" VIRTUAL_THREADS_ENABLED=false >/dev/null
+
+echo ""
+echo "$RESULTS"
+echo ""
+echo -e "${GREEN}KiB/in-flight is the growth of jvm.memory.used under load divided by the number of concurrent requests${NC}"
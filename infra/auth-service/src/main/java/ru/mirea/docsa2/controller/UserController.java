@@ -14,11 +14,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.mirea.docsa2.dto.CreateUserRequest;
 import ru.mirea.docsa2.dto.UpdateUserRequest;
 import ru.mirea.docsa2.dto.UserResponse;
 import ru.mirea.docsa2.service.UserService;
+import ru.mirea.docsa2.util.KeysetPage;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 @RestController
 @RequestMapping("/users")
@@ -26,14 +30,23 @@ import ru.mirea.docsa2.service.UserService;
 public class UserController {
 
     private final UserService userService;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @GetMapping
-    public List<UserResponse> getAllUsers() {
-        return userService.getAllUsers().stream()
+    public List<UserResponse> getAllUsers(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        var users = KeysetPage.requested(afterId, limit)
+            ? userService.getUsersAfter(KeysetPage.after(afterId), KeysetPage.limit(limit))
+            : userService.getAllUsers();
+        return users.stream()
             .map(UserResponse::from)
             .collect(Collectors.toList());
     }
 
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        return ndjsonStreamer.stream(userService::streamAllUsers, UserResponse::from);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
         return userService.getUserById(id)
@@ -1,14 +1,17 @@
 package ru.mirea.docsa2.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.mirea.docsa2.model.User;
 import ru.mirea.docsa2.repository.UserRepository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +25,16 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<User> getUsersAfter(Long afterId, Limit limit) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+    public Stream<User> streamAllUsers() {
+        return userRepository.streamAllByOrderByIdAsc();
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import ru.mirea.docsa2.dto.CreateUserRequest;
@@ -12,6 +13,7 @@ import ru.mirea.docsa2.dto.UpdateUserRequest;
 import ru.mirea.docsa2.dto.UserResponse;
 import ru.mirea.docsa2.model.User;
 import ru.mirea.docsa2.service.UserService;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +27,9 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private NdjsonStreamer ndjsonStreamer;
+
     @InjectMocks
     private UserController userController;
 
@@ -33,13 +38,25 @@ class UserControllerTest {
         User user = new User(1L, "testuser", "encoded", "test@example.com");
         when(userService.getAllUsers()).thenReturn(List.of(user));
 
-        List<UserResponse> result = userController.getAllUsers();
+        List<UserResponse> result = userController.getAllUsers(null, null);
 
         assertEquals(1, result.size());
         assertEquals("testuser", result.get(0).username());
         verify(userService, times(1)).getAllUsers();
     }
 
+    @Test
+    void getAllUsers_WithCursor_ShouldReturnNextPage() {
+        User user = new User(3L, "testuser", "encoded", "test@example.com");
+        when(userService.getUsersAfter(2L, Limit.of(10))).thenReturn(List.of(user));
+
+        List<UserResponse> result = userController.getAllUsers(2L, 10);
+
+        assertEquals(1, result.size());
+        assertEquals(3L, result.get(0).id());
+        verify(userService, never()).getAllUsers();
+    }
+
     @Test
     void getUserById_WhenExists_ShouldReturnUser() {
         User user = new User(1L, "testuser", "encoded", "test@example.com");
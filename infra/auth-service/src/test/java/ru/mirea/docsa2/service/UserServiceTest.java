@@ -5,6 +5,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import ru.mirea.docsa2.model.User;
 import ru.mirea.docsa2.repository.UserRepository;
@@ -40,6 +41,17 @@ class UserServiceTest {
         verify(userRepository, times(1)).findAll();
     }
 
+    @Test
+    void getUsersAfter_ShouldReturnKeysetPage() {
+        User user = new User(3L, "testuser", "encoded", "test@example.com");
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(10))).thenReturn(List.of(user));
+
+        List<User> result = userService.getUsersAfter(2L, Limit.of(10));
+
+        assertEquals(1, result.size());
+        assertEquals(3L, result.get(0).getId());
+    }
+
     @Test
     void getUserById_WhenExists_ShouldReturnUser() {
         User user = new User(1L, "testuser", "encoded", "test@example.com");
@@ -0,0 +1,77 @@
+#!/bin/bash
+set -e
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m'
+
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+AUTH_URL="${AUTH_URL:-http://localhost:9000}"
+DURATION="${DURATION:-30s}"
+CONCURRENCY_LEVELS="${CONCURRENCY_LEVELS:-50 100 200 400 800}"
+TOMCAT_MAX_THREADS="${TOMCAT_MAX_THREADS:-200}"
+
+if ! command -v hey >/dev/null 2>&1; then
+    echo -e "${RED}hey is not installed: go install github.com/rakyll/hey@latest${NC}"
+    exit 1
+fi
+
+echo -e "${BLUE}Getting OAuth2 token...${NC}"
+TOKEN_RESPONSE=$(timeout 5 curl -s -X POST "${AUTH_URL}/oauth2/token" \
+  -u "shop-client:shop-secret" \
+  -d "grant_type=client_credentials&scope=shop-api")
+
+ACCESS_TOKEN=$(echo "$TOKEN_RESPONSE" | grep -o '"access_token":"[^"]*' | cut -d'"' -f4)
+
+if [ -z "$ACCESS_TOKEN" ]; then
+  echo -e "${RED}FAIL: No access token${NC}"
+  echo "$TOKEN_RESPONSE"
+  exit 1
+fi
+
+TIMESTAMP=$(date +%s)
+
+PRODUCT_BODY=$(timeout 5 curl -s -X POST "${BASE_URL}/products" \
+  -H "Authorization: Bearer $ACCESS_TOKEN" \
+  -H "Content-Type: application/json" \
+  -d "{\"name\":\"LoadProduct_${TIMESTAMP}\",\"price\":9.99,\"quantity\":1000000}")
+PRODUCT_ID=$(echo "$PRODUCT_BODY" | grep -o '"id":[0-9]*' | head -1 | cut -d':' -f2)
+
+CUSTOMER_BODY=$(timeout 5 curl -s -X POST "${BASE_URL}/customers" \
+  -H "Authorization: Bearer $ACCESS_TOKEN" \
+  -H "Content-Type: application/json" \
+  -d "{\"userId\":1,\"name\":\"LoadCustomer_${TIMESTAMP}\",\"phone\":\"+${TIMESTAMP}\",\"address\":\"123 Main St\"}")
+CUSTOMER_ID=$(echo "$CUSTOMER_BODY" | grep -o '"id":[0-9]*' | head -1 | cut -d':' -f2)
+
+if [ -z "$PRODUCT_ID" ] || [ -z "$CUSTOMER_ID" ]; then
+  echo -e "${RED}FAIL: Could not create product or customer${NC}"
+  echo "$PRODUCT_BODY"
+  echo "$CUSTOMER_BODY"
+  exit 1
+fi
+
+echo -e "${GREEN}Using product ${PRODUCT_ID} and customer ${CUSTOMER_ID}${NC}"
+echo -e "${YELLOW}Tomcat max threads: ${TOMCAT_MAX_THREADS}, duration per level: ${DURATION}${NC}"
+echo ""
+
+printf "%-12s %-12s %-12s %-12s %-12s\n" "concurrency" "req/s" "p50 (s)" "p99 (s)" "non-201"
+
+for CONCURRENCY in $CONCURRENCY_LEVELS; do
+  REPORT=$(hey -z "$DURATION" -c "$CONCURRENCY" -m POST \
+    -H "Authorization: Bearer $ACCESS_TOKEN" \
+    -T "application/json" \
+    -d "{\"customerId\":${CUSTOMER_ID},\"productId\":${PRODUCT_ID},\"quantity\":1}" \
+    "${BASE_URL}/orders")
+
+  RPS=$(echo "$REPORT" | grep "Requests/sec" | awk '{print $2}')
+  P50=$(echo "$REPORT" | grep "50% in" | awk '{print $3}')
+  P99=$(echo "$REPORT" | grep "99% in" | awk '{print $3}')
+  NON_CREATED=$(echo "$REPORT" | sed -n '/Status code distribution/,$p' | grep -v "\[201\]" | grep -o "\[[0-9]*\][[:space:]]*[0-9]*" | awk '{sum += $2} END {print sum + 0}')
+
+  printf "%-12s %-12s %-12s %-12s %-12s\n" "$CONCURRENCY" "$RPS" "$P50" "$P99" "$NON_CREATED"
+done
+
+echo ""
+echo -e "${BLUE}Throughput should keep growing past ${TOMCAT_MAX_THREADS} concurrent requests${NC}"
@@ -0,0 +1,32 @@
+package ru.mirea.docsa2.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaConfig {
+
+    public static final String CUSTOMER_DIRECTORY_TOPIC = "customer-directory";
+    public static final String CUSTOMER_CHANGED_TOPIC = "customer-changed";
+    public static final String DEADLINE_HEADER = "x-deadline";
+
+    @Bean
+    public NewTopic customerDirectoryTopic() {
+        return TopicBuilder.name(CUSTOMER_DIRECTORY_TOPIC)
+            .partitions(3)
+            .replicas(1)
+            .compact()
+            .build();
+    }
+
+    @Bean
+    public NewTopic customerChangedTopic() {
+        return TopicBuilder.name(CUSTOMER_CHANGED_TOPIC)
+            .partitions(3)
+            .replicas(1)
+            .compact()
+            .build();
+    }
+}
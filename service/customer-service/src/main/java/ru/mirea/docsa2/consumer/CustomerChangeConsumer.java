@@ -0,0 +1,38 @@
+package ru.mirea.docsa2.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerChangedEvent;
+import ru.mirea.docsa2.service.CustomerIndex;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerChangeConsumer {
+
+    private final CustomerIndex customerIndex;
+
+    @KafkaListener(
+        id = "customer-index",
+        topicPartitions = @TopicPartition(
+            topic = KafkaConfig.CUSTOMER_CHANGED_TOPIC,
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")
+        )
+    )
+    public void handleCustomerChanged(ConsumerRecord<String, CustomerChangedEvent> record) {
+        log.debug("Received customer changed record for customer {}: {}", record.key(), record.value());
+        Long customerId = Long.valueOf(record.key());
+        CustomerChangedEvent event = record.value();
+        if (event == null) {
+            customerIndex.remove(customerId);
+        } else {
+            customerIndex.put(customerId, event.name());
+        }
+    }
+}
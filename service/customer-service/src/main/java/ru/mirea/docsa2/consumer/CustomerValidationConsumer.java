@@ -1,30 +1,55 @@
 package ru.mirea.docsa2.consumer;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
 import ru.mirea.docsa2.event.ValidateCustomerRequest;
-import ru.mirea.docsa2.repository.CustomerRepository;
+import ru.mirea.docsa2.service.CustomerIndex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class CustomerValidationConsumer {
 
-    private final CustomerRepository customerRepository;
+    private final CustomerIndex customerIndex;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Counter served;
+    private final Counter expired;
+
+    public CustomerValidationConsumer(CustomerIndex customerIndex, KafkaTemplate<String, Object> kafkaTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.customerIndex = customerIndex;
+        this.kafkaTemplate = kafkaTemplate;
+        this.served = requestCounter(meterRegistry, "served");
+        this.expired = requestCounter(meterRegistry, "expired");
+    }
 
     @KafkaListener(topics = "validate-customer-request", groupId = "customer-service")
-    public void handleValidateCustomerRequest(ValidateCustomerRequest request) {
+    public void handleValidateCustomerRequest(ValidateCustomerRequest request,
+                                              @Header(name = KafkaHeaders.REPLY_TOPIC, required = false) byte[] replyTopic,
+                                              @Header(name = KafkaHeaders.REPLY_PARTITION, required = false) byte[] replyPartition,
+                                              @Header(name = KafkaConfig.DEADLINE_HEADER, required = false) byte[] deadline) {
+        if (isExpired(deadline)) {
+            expired.increment();
+            log.debug("Skipping expired customer validation request: {}", request);
+            return;
+        }
+        served.increment();
         log.info("Received customer validation request: {}", request);
 
-        var customer = customerRepository.findById(request.customerId());
+        var customerName = customerIndex.findName(request.customerId());
 
         CustomerValidationResponse response;
-        if (customer.isEmpty()) {
+        if (customerName.isEmpty()) {
             response = new CustomerValidationResponse(
                 request.correlationId(),
                 request.customerId(),
@@ -37,13 +62,42 @@ public class CustomerValidationConsumer {
                 request.correlationId(),
                 request.customerId(),
                 true,
-                customer.get().getName(),
+                customerName.get(),
                 null
             );
         }
 
         log.info("Sending customer validation response: {}", response);
-        kafkaTemplate.send("customer-validation-response", request.correlationId(), response);
+        if (replyPartition == null || replyPartition.length != Integer.BYTES) {
+            kafkaTemplate.send(replyTopicOrDefault(replyTopic), request.correlationId(), response);
+        } else {
+            kafkaTemplate.send(replyTopicOrDefault(replyTopic), ByteBuffer.wrap(replyPartition).getInt(), request.correlationId(), response);
+        }
+    }
+
+    private static boolean isExpired(byte[] deadline) {
+        if (deadline == null || deadline.length == 0) {
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() > Long.parseLong(new String(deadline, StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("customer.validation.requests")
+            .description("Customer validation requests consumed, by whether they were answered or skipped past their deadline")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static String replyTopicOrDefault(byte[] replyTopic) {
+        if (replyTopic == null || replyTopic.length == 0) {
+            return "customer-validation-response";
+        }
+        return new String(replyTopic, StandardCharsets.UTF_8);
     }
 }
 
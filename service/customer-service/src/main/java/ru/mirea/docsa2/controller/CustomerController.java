@@ -14,13 +14,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.mirea.docsa2.dto.CreateCustomerRequest;
 import ru.mirea.docsa2.dto.UpdateCustomerRequest;
 import ru.mirea.docsa2.dto.CustomerResponse;
 import ru.mirea.docsa2.model.Customer;
+import ru.mirea.docsa2.producer.CustomerDirectoryProducer;
+import ru.mirea.docsa2.producer.CustomerEventProducer;
 import ru.mirea.docsa2.repository.CustomerRepository;
+import ru.mirea.docsa2.service.CustomerIndex;
 import ru.mirea.docsa2.util.AuthenticationUtil;
+import ru.mirea.docsa2.util.KeysetPage;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 @RestController
 @RequestMapping("/customers")
@@ -28,14 +35,26 @@ import ru.mirea.docsa2.util.AuthenticationUtil;
 public class CustomerController {
 
     private final CustomerRepository customerRepository;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final CustomerDirectoryProducer customerDirectoryProducer;
+    private final CustomerEventProducer customerEventProducer;
+    private final CustomerIndex customerIndex;
 
     @GetMapping
-    public List<CustomerResponse> getAllCustomers() {
-        return customerRepository.findAll().stream()
+    public List<CustomerResponse> getAllCustomers(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        List<Customer> customers = KeysetPage.requested(afterId, limit)
+                ? customerRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.after(afterId), KeysetPage.limit(limit))
+                : customerRepository.findAll();
+        return customers.stream()
                 .map(CustomerResponse::from)
                 .toList();
     }
 
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers() {
+        return ndjsonStreamer.stream(customerRepository::streamAllByOrderByIdAsc, CustomerResponse::from);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<CustomerResponse> getCustomerById(@PathVariable Long id) {
         return customerRepository.findById(id)
@@ -67,6 +86,9 @@ public class CustomerController {
     @PostMapping
     public ResponseEntity<CustomerResponse> createCustomer(@Valid @RequestBody CreateCustomerRequest request, Authentication authentication) {
         Long userId = request.userId();
+        if (userId == null) {
+            return ResponseEntity.badRequest().build();
+        }
         
         if (customerRepository.findByUserId(userId).isPresent()) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
@@ -79,6 +101,9 @@ public class CustomerController {
         customer.setAddress(request.address());
         
         Customer saved = customerRepository.save(customer);
+        customerIndex.put(saved.getId(), saved.getName());
+        customerDirectoryProducer.sendCustomerMapped(saved);
+        customerEventProducer.sendCustomerChanged(saved);
         return ResponseEntity.status(HttpStatus.CREATED).body(CustomerResponse.from(saved));
     }
 
@@ -100,6 +125,8 @@ public class CustomerController {
                     if (request.address() != null) customer.setAddress(request.address());
                     
                     Customer updated = customerRepository.save(customer);
+                    customerIndex.put(updated.getId(), updated.getName());
+                    customerEventProducer.sendCustomerChanged(updated);
                     return ResponseEntity.ok(CustomerResponse.from(updated));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -107,11 +134,15 @@ public class CustomerController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCustomer(@PathVariable Long id) {
-        if (!customerRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        customerRepository.deleteById(id);
-        return ResponseEntity.noContent().build();
+        return customerRepository.findById(id)
+                .map(customer -> {
+                    customerRepository.delete(customer);
+                    customerIndex.remove(customer.getId());
+                    customerDirectoryProducer.sendCustomerUnmapped(customer.getUserId());
+                    customerEventProducer.sendCustomerDeleted(customer.getId());
+                    return ResponseEntity.noContent().<Void>build();
+                })
+                .orElse(ResponseEntity.notFound().build());
     }
 }
 
@@ -0,0 +1,30 @@
+package ru.mirea.docsa2.endpoint;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.service.CustomerIndex;
+
+@Component
+@Endpoint(id = "customerindex")
+@RequiredArgsConstructor
+public class CustomerIndexEndpoint {
+
+    private final CustomerIndex customerIndex;
+
+    @ReadOperation
+    public IndexStatus status() {
+        return new IndexStatus(customerIndex.isReady(), customerIndex.size(), customerIndex.filterBits());
+    }
+
+    @WriteOperation
+    public IndexStatus rebuild() {
+        customerIndex.rebuild();
+        return status();
+    }
+
+    public record IndexStatus(boolean ready, int customers, long filterBits) {
+    }
+}
@@ -0,0 +1,6 @@
+package ru.mirea.docsa2.event;
+
+public record CustomerChangedEvent(
+    Long customerId,
+    String name
+) {}
@@ -0,0 +1,71 @@
+package ru.mirea.docsa2.producer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerDirectoryEntry;
+import ru.mirea.docsa2.model.Customer;
+import ru.mirea.docsa2.repository.CustomerRepository;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerDirectoryProducer {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CustomerRepository customerRepository;
+
+    @Value("${customer.directory.publish-snapshot-on-startup:true}")
+    private boolean publishSnapshotOnStartup;
+
+    public CompletableFuture<SendResult<String, Object>> sendCustomerMapped(Customer customer) {
+        CustomerDirectoryEntry entry = new CustomerDirectoryEntry(customer.getUserId(), customer.getId());
+        log.debug("Sending customer directory entry: {}", entry);
+        return kafkaTemplate.send(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC, customer.getUserId().toString(), entry);
+    }
+
+    public void sendCustomerUnmapped(Long userId) {
+        log.info("Sending customer directory tombstone for user {}", userId);
+        kafkaTemplate.send(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC, userId.toString(), null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void publishDirectorySnapshot() {
+        if (!publishSnapshotOnStartup) {
+            return;
+        }
+        if (customerRepository.claimDirectorySnapshot() == 0) {
+            log.info("Customer directory snapshot was already published, skipping");
+            return;
+        }
+        AtomicInteger published = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        try (Stream<Customer> customers = customerRepository.streamAllForDirectorySnapshot()) {
+            customers.forEach(customer -> {
+                sendCustomerMapped(customer).whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        failed.incrementAndGet();
+                    }
+                });
+                published.incrementAndGet();
+            });
+        }
+        kafkaTemplate.flush();
+        if (failed.get() > 0) {
+            throw new IllegalStateException("Failed to publish " + failed.get() + " customer directory entries");
+        }
+        log.info("Published customer directory snapshot with {} customers", published.get());
+    }
+}
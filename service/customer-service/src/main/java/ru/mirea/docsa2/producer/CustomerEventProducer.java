@@ -0,0 +1,28 @@
+package ru.mirea.docsa2.producer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerChangedEvent;
+import ru.mirea.docsa2.model.Customer;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerEventProducer {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void sendCustomerChanged(Customer customer) {
+        CustomerChangedEvent event = new CustomerChangedEvent(customer.getId(), customer.getName());
+        log.debug("Sending customer changed event: {}", event);
+        kafkaTemplate.send(KafkaConfig.CUSTOMER_CHANGED_TOPIC, customer.getId().toString(), event);
+    }
+
+    public void sendCustomerDeleted(Long customerId) {
+        log.info("Sending customer deleted tombstone for customer {}", customerId);
+        kafkaTemplate.send(KafkaConfig.CUSTOMER_CHANGED_TOPIC, customerId.toString(), null);
+    }
+}
@@ -0,0 +1,153 @@
+package ru.mirea.docsa2.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mirea.docsa2.model.Customer;
+import ru.mirea.docsa2.repository.CustomerRepository;
+import ru.mirea.docsa2.util.BloomFilter;
+
+@Slf4j
+@Service
+public class CustomerIndex {
+
+    private final CustomerRepository customerRepository;
+    private final long minCapacity;
+    private final double falsePositiveRate;
+    private final Object rebuildLock = new Object();
+    private final Counter indexed;
+    private final Counter filtered;
+    private final Counter missed;
+    private final Counter loaded;
+    private volatile Snapshot snapshot;
+    private volatile boolean ready;
+    private Map<Long, Optional<String>> journal;
+
+    public CustomerIndex(CustomerRepository customerRepository,
+                         @Value("${customer.index.min-capacity:100000}") long minCapacity,
+                         @Value("${customer.index.false-positive-rate:0.01}") double falsePositiveRate,
+                         MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.minCapacity = minCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = new Snapshot(new ConcurrentHashMap<>(), new BloomFilter(minCapacity, falsePositiveRate));
+        this.indexed = lookupCounter(meterRegistry, "indexed");
+        this.filtered = lookupCounter(meterRegistry, "filtered");
+        this.missed = lookupCounter(meterRegistry, "missed");
+        this.loaded = lookupCounter(meterRegistry, "database");
+        Gauge.builder("customer.index.size", this, CustomerIndex::size)
+            .description("Customers held in the in-memory validation index")
+            .register(meterRegistry);
+        Gauge.builder("customer.index.ready", this, index -> index.isReady() ? 1 : 0)
+            .description("Whether the customer validation index has finished its initial load")
+            .register(meterRegistry);
+    }
+
+    public Optional<String> findName(Long customerId) {
+        if (!ready) {
+            loaded.increment();
+            return customerRepository.findById(customerId).map(Customer::getName);
+        }
+        Snapshot current = snapshot;
+        if (!current.filter.mightContain(customerId)) {
+            filtered.increment();
+            return Optional.empty();
+        }
+        String name = current.names.get(customerId);
+        (name != null ? indexed : missed).increment();
+        return Optional.ofNullable(name);
+    }
+
+    public synchronized void put(Long customerId, String name) {
+        if (journal != null) {
+            journal.put(customerId, Optional.of(name));
+        }
+        Snapshot current = snapshot;
+        current.filter.add(customerId);
+        current.names.put(customerId, name);
+        if (current.names.size() > current.filter.capacity()) {
+            snapshot = resized(current.names);
+        }
+    }
+
+    public synchronized void remove(Long customerId) {
+        if (journal != null) {
+            journal.put(customerId, Optional.empty());
+        }
+        snapshot.names.remove(customerId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        rebuild();
+    }
+
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                journal = new HashMap<>();
+            }
+            Map<Long, String> names = new ConcurrentHashMap<>();
+            try (Stream<Customer> customers = customerRepository.streamAllByOrderByIdAsc()) {
+                customers.forEach(customer -> names.put(customer.getId(), customer.getName()));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    journal = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                journal.forEach((customerId, name) -> name.ifPresentOrElse(
+                    value -> names.put(customerId, value),
+                    () -> names.remove(customerId)));
+                journal = null;
+                snapshot = resized(names);
+                ready = true;
+            }
+            log.info("Rebuilt customer index with {} customers", names.size());
+            return names.size();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return snapshot.names.size();
+    }
+
+    public long filterBits() {
+        return snapshot.filter.bitCount();
+    }
+
+    private Snapshot resized(Map<Long, String> names) {
+        BloomFilter filter = new BloomFilter(Math.max(minCapacity, names.size() * 2L), falsePositiveRate);
+        names.keySet().forEach(filter::add);
+        return new Snapshot(names, filter);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("customer.index.lookups")
+            .description("Customer validation lookups by how they were answered")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private record Snapshot(Map<Long, String> names, BloomFilter filter) {
+    }
+}
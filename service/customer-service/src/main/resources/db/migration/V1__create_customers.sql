@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS customers (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT       NOT NULL,
+    name    VARCHAR(255) NOT NULL,
+    phone   VARCHAR(255) NOT NULL,
+    address VARCHAR(500),
+    CONSTRAINT uk_customers_user_id UNIQUE (user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_user_id
+    ON customers (user_id);
@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS directory_snapshots (
+    id           INT PRIMARY KEY,
+    published_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,38 @@
+package ru.mirea.docsa2.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerChangedEvent;
+import ru.mirea.docsa2.service.CustomerIndex;
+
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerChangeConsumerTest {
+
+    @Mock
+    private CustomerIndex customerIndex;
+
+    @InjectMocks
+    private CustomerChangeConsumer consumer;
+
+    @Test
+    void shouldIndexChangedCustomer() {
+        consumer.handleCustomerChanged(new ConsumerRecord<>(KafkaConfig.CUSTOMER_CHANGED_TOPIC, 0, 0L, "1",
+            new CustomerChangedEvent(1L, "Ivan")));
+
+        verify(customerIndex).put(1L, "Ivan");
+    }
+
+    @Test
+    void shouldRemoveDeletedCustomer() {
+        consumer.handleCustomerChanged(new ConsumerRecord<>(KafkaConfig.CUSTOMER_CHANGED_TOPIC, 0, 1L, "1", null));
+
+        verify(customerIndex).remove(1L);
+    }
+}
@@ -1,51 +1,57 @@
 package ru.mirea.docsa2.consumer;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
 import ru.mirea.docsa2.event.ValidateCustomerRequest;
-import ru.mirea.docsa2.model.Customer;
-import ru.mirea.docsa2.repository.CustomerRepository;
+import ru.mirea.docsa2.service.CustomerIndex;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class CustomerValidationConsumerTest {
 
     @Mock
-    private CustomerRepository customerRepository;
+    private CustomerIndex customerIndex;
 
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private CustomerValidationConsumer consumer;
 
     @Captor
     private ArgumentCaptor<CustomerValidationResponse> responseCaptor;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new CustomerValidationConsumer(customerIndex, kafkaTemplate, meterRegistry);
+    }
+
     @Test
     void shouldValidateExistingCustomer() {
         ValidateCustomerRequest request = new ValidateCustomerRequest("corr-123", 1L);
         
-        Customer customer = new Customer();
-        customer.setId(1L);
-        customer.setName("John Doe");
-
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+        when(customerIndex.findName(1L)).thenReturn(Optional.of("John Doe"));
 
-        consumer.handleValidateCustomerRequest(request);
+        consumer.handleValidateCustomerRequest(request, null, null, null);
 
         verify(kafkaTemplate).send(eq("customer-validation-response"), eq("corr-123"), responseCaptor.capture());
         
@@ -61,9 +67,9 @@ class CustomerValidationConsumerTest {
     void shouldRejectNonExistingCustomer() {
         ValidateCustomerRequest request = new ValidateCustomerRequest("corr-456", 999L);
 
-        when(customerRepository.findById(999L)).thenReturn(Optional.empty());
+        when(customerIndex.findName(999L)).thenReturn(Optional.empty());
 
-        consumer.handleValidateCustomerRequest(request);
+        consumer.handleValidateCustomerRequest(request, null, null, null);
 
         verify(kafkaTemplate).send(eq("customer-validation-response"), eq("corr-456"), responseCaptor.capture());
         
@@ -74,5 +80,29 @@ class CustomerValidationConsumerTest {
         assertThat(response.customerName()).isNull();
         assertThat(response.errorMessage()).isEqualTo("Customer not found");
     }
-}
 
+    @Test
+    void shouldReplyToTopicAndPartitionFromReplyHeaders() {
+        ValidateCustomerRequest request = new ValidateCustomerRequest("corr-789", 999L);
+        byte[] replyTopic = "customer-validation-response".getBytes(StandardCharsets.UTF_8);
+        byte[] replyPartition = ByteBuffer.allocate(Integer.BYTES).putInt(4).array();
+
+        when(customerIndex.findName(999L)).thenReturn(Optional.empty());
+
+        consumer.handleValidateCustomerRequest(request, replyTopic, replyPartition, null);
+
+        verify(kafkaTemplate).send(eq("customer-validation-response"), eq(4), eq("corr-789"), responseCaptor.capture());
+        assertThat(responseCaptor.getValue().correlationId()).isEqualTo("corr-789");
+    }
+
+    @Test
+    void shouldSkipRequestPastDeadlineWithoutLookup() {
+        byte[] expired = Long.toString(System.currentTimeMillis() - 1000).getBytes(StandardCharsets.UTF_8);
+
+        consumer.handleValidateCustomerRequest(new ValidateCustomerRequest("corr-1", 1L), null, null, expired);
+
+        verifyNoInteractions(customerIndex, kafkaTemplate);
+        assertThat(meterRegistry.get("customer.validation.requests").tag("outcome", "expired").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.validation.requests").tag("outcome", "served").counter().count()).isZero();
+    }
+}
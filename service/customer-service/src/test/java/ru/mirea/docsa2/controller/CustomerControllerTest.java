@@ -5,6 +5,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -13,7 +14,12 @@ import ru.mirea.docsa2.dto.CreateCustomerRequest;
 import ru.mirea.docsa2.dto.CustomerResponse;
 import ru.mirea.docsa2.dto.UpdateCustomerRequest;
 import ru.mirea.docsa2.model.Customer;
+import ru.mirea.docsa2.producer.CustomerDirectoryProducer;
+import ru.mirea.docsa2.producer.CustomerEventProducer;
 import ru.mirea.docsa2.repository.CustomerRepository;
+import ru.mirea.docsa2.service.CustomerIndex;
+import ru.mirea.docsa2.util.KeysetPage;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 import java.util.List;
 import java.util.Map;
@@ -29,6 +35,18 @@ class CustomerControllerTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private NdjsonStreamer ndjsonStreamer;
+
+    @Mock
+    private CustomerDirectoryProducer customerDirectoryProducer;
+
+    @Mock
+    private CustomerEventProducer customerEventProducer;
+
+    @Mock
+    private CustomerIndex customerIndex;
+
     @InjectMocks
     private CustomerController customerController;
 
@@ -37,13 +55,25 @@ class CustomerControllerTest {
         Customer customer = new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow");
         when(customerRepository.findAll()).thenReturn(List.of(customer));
 
-        List<CustomerResponse> result = customerController.getAllCustomers();
+        List<CustomerResponse> result = customerController.getAllCustomers(null, null);
 
         assertEquals(1, result.size());
         assertEquals("Ivan", result.get(0).name());
         verify(customerRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAllCustomers_WithCursor_ShouldReturnNextPage() {
+        Customer customer = new Customer(6L, 100L, "Ivan", "+7-999-123-45-67", "Moscow");
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(KeysetPage.DEFAULT_SIZE))).thenReturn(List.of(customer));
+
+        List<CustomerResponse> result = customerController.getAllCustomers(5L, null);
+
+        assertEquals(1, result.size());
+        assertEquals(6L, result.get(0).id());
+        verify(customerRepository, never()).findAll();
+    }
+
     @Test
     void getCustomerById_WhenExists_ShouldReturnCustomer() {
         Customer customer = new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow");
@@ -92,8 +122,8 @@ class CustomerControllerTest {
 
     @Test
     void createCustomer_ShouldReturnCreatedCustomer() {
-        Authentication auth = createMockAuthentication(100L);
-        CreateCustomerRequest request = new CreateCustomerRequest("Ivan", "+7-999-123-45-67", "Moscow");
+        Authentication auth = mock(Authentication.class);
+        CreateCustomerRequest request = new CreateCustomerRequest(100L, "Ivan", "+7-999-123-45-67", "Moscow");
         Customer savedCustomer = new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow");
         
         when(customerRepository.findByUserId(100L)).thenReturn(Optional.empty());
@@ -105,12 +135,15 @@ class CustomerControllerTest {
         assertNotNull(response.getBody());
         assertEquals("Ivan", response.getBody().name());
         assertEquals(100L, response.getBody().userId());
+        verify(customerDirectoryProducer, times(1)).sendCustomerMapped(savedCustomer);
+        verify(customerIndex, times(1)).put(1L, "Ivan");
+        verify(customerEventProducer, times(1)).sendCustomerChanged(savedCustomer);
     }
 
     @Test
     void createCustomer_WhenCustomerAlreadyExists_ShouldReturnConflict() {
-        Authentication auth = createMockAuthentication(100L);
-        CreateCustomerRequest request = new CreateCustomerRequest("Ivan", "+7-999-123-45-67", "Moscow");
+        Authentication auth = mock(Authentication.class);
+        CreateCustomerRequest request = new CreateCustomerRequest(100L, "Ivan", "+7-999-123-45-67", "Moscow");
         Customer existingCustomer = new Customer(1L, 100L, "Existing", "+7-999-000-00-00", "Moscow");
         
         when(customerRepository.findByUserId(100L)).thenReturn(Optional.of(existingCustomer));
@@ -123,8 +156,8 @@ class CustomerControllerTest {
 
     @Test
     void createCustomer_WhenUserIdNull_ShouldReturnBadRequest() {
-        Authentication auth = createMockAuthentication(null);
-        CreateCustomerRequest request = new CreateCustomerRequest("Ivan", "+7-999-123-45-67", "Moscow");
+        Authentication auth = mock(Authentication.class);
+        CreateCustomerRequest request = new CreateCustomerRequest(null, "Ivan", "+7-999-123-45-67", "Moscow");
 
         ResponseEntity<CustomerResponse> response = customerController.createCustomer(request, auth);
 
@@ -145,6 +178,8 @@ class CustomerControllerTest {
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(customerRepository, times(1)).save(any(Customer.class));
+        verify(customerIndex, times(1)).put(1L, "Petr");
+        verify(customerEventProducer, times(1)).sendCustomerChanged(existingCustomer);
     }
 
     @Test
@@ -174,12 +209,27 @@ class CustomerControllerTest {
 
     @Test
     void deleteCustomer_WhenExists_ShouldReturn204() {
-        when(customerRepository.existsById(1L)).thenReturn(true);
+        Customer customer = new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow");
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
 
         ResponseEntity<Void> response = customerController.deleteCustomer(1L);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        verify(customerRepository, times(1)).deleteById(1L);
+        verify(customerRepository, times(1)).delete(customer);
+        verify(customerDirectoryProducer, times(1)).sendCustomerUnmapped(100L);
+        verify(customerIndex, times(1)).remove(1L);
+        verify(customerEventProducer, times(1)).sendCustomerDeleted(1L);
+    }
+
+    @Test
+    void deleteCustomer_WhenNotExists_ShouldReturn404() {
+        when(customerRepository.findById(1L)).thenReturn(Optional.empty());
+
+        ResponseEntity<Void> response = customerController.deleteCustomer(1L);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(customerDirectoryProducer, never()).sendCustomerUnmapped(any());
+        verify(customerIndex, never()).remove(any());
     }
 
     private Authentication createMockAuthentication(Long userId) {
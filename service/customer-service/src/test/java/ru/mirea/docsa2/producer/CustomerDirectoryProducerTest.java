@@ -0,0 +1,103 @@
+package ru.mirea.docsa2.producer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerDirectoryEntry;
+import ru.mirea.docsa2.model.Customer;
+import ru.mirea.docsa2.repository.CustomerRepository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerDirectoryProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @InjectMocks
+    private CustomerDirectoryProducer producer;
+
+    @Captor
+    private ArgumentCaptor<CustomerDirectoryEntry> entryCaptor;
+
+    @Test
+    void sendCustomerMapped_ShouldSendEntryKeyedByUserId() {
+        producer.sendCustomerMapped(new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow"));
+
+        verify(kafkaTemplate).send(eq(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC), eq("100"), entryCaptor.capture());
+        assertEquals(100L, entryCaptor.getValue().userId());
+        assertEquals(1L, entryCaptor.getValue().customerId());
+    }
+
+    @Test
+    void sendCustomerUnmapped_ShouldSendTombstone() {
+        producer.sendCustomerUnmapped(100L);
+
+        verify(kafkaTemplate).send(eq(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC), eq("100"), isNull());
+    }
+
+    @Test
+    void publishDirectorySnapshot_ShouldSendEveryCustomerOnce() {
+        ReflectionTestUtils.setField(producer, "publishSnapshotOnStartup", true);
+        when(customerRepository.claimDirectorySnapshot()).thenReturn(1);
+        when(customerRepository.streamAllForDirectorySnapshot()).thenReturn(Stream.of(
+            new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow"),
+            new Customer(2L, 200L, "Petr", "+7-999-765-43-21", null)
+        ));
+        when(kafkaTemplate.send(eq(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC), anyString(), any()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        producer.publishDirectorySnapshot();
+
+        verify(kafkaTemplate, times(2)).send(eq(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC), anyString(), entryCaptor.capture());
+        verify(kafkaTemplate).flush();
+        assertEquals(2L, entryCaptor.getAllValues().get(1).customerId());
+    }
+
+    @Test
+    void publishDirectorySnapshot_ShouldSkipWhenAnotherPodPublishedIt() {
+        ReflectionTestUtils.setField(producer, "publishSnapshotOnStartup", true);
+        when(customerRepository.claimDirectorySnapshot()).thenReturn(0);
+
+        producer.publishDirectorySnapshot();
+
+        verify(customerRepository, never()).streamAllForDirectorySnapshot();
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void publishDirectorySnapshot_ShouldFailSoSnapshotIsRetriedWhenSendFails() {
+        ReflectionTestUtils.setField(producer, "publishSnapshotOnStartup", true);
+        when(customerRepository.claimDirectorySnapshot()).thenReturn(1);
+        when(customerRepository.streamAllForDirectorySnapshot()).thenReturn(Stream.of(
+            new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow")));
+        when(kafkaTemplate.send(eq(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC), anyString(), any()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        assertThrows(IllegalStateException.class, producer::publishDirectorySnapshot);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.mirea.docsa2.producer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerChangedEvent;
+import ru.mirea.docsa2.model.Customer;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerEventProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @InjectMocks
+    private CustomerEventProducer producer;
+
+    @Test
+    void sendCustomerChanged_ShouldSendEventKeyedByCustomerId() {
+        producer.sendCustomerChanged(new Customer(1L, 100L, "Ivan", "+7-999-123-45-67", "Moscow"));
+
+        verify(kafkaTemplate).send(KafkaConfig.CUSTOMER_CHANGED_TOPIC, "1", new CustomerChangedEvent(1L, "Ivan"));
+    }
+
+    @Test
+    void sendCustomerDeleted_ShouldSendTombstone() {
+        producer.sendCustomerDeleted(1L);
+
+        verify(kafkaTemplate).send(eq(KafkaConfig.CUSTOMER_CHANGED_TOPIC), eq("1"), isNull());
+    }
+}
@@ -0,0 +1,98 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.model.Customer;
+import ru.mirea.docsa2.repository.CustomerRepository;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerIndexTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerIndex customerIndex;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        customerIndex = new CustomerIndex(customerRepository, 16, 0.01, meterRegistry);
+    }
+
+    @Test
+    void findName_BeforeLoad_ShouldFallBackToDatabase() {
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer(1L, "Ivan")));
+
+        assertEquals(Optional.of("Ivan"), customerIndex.findName(1L));
+        assertFalse(customerIndex.isReady());
+    }
+
+    @Test
+    void findName_AfterLoad_ShouldAnswerWithoutDatabase() {
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(customer(1L, "Ivan"), customer(2L, "Petr")));
+
+        customerIndex.load();
+
+        assertTrue(customerIndex.isReady());
+        assertEquals(Optional.of("Petr"), customerIndex.findName(2L));
+        assertEquals(Optional.empty(), customerIndex.findName(999_999L));
+        verify(customerRepository).streamAllByOrderByIdAsc();
+        verifyNoMoreInteractions(customerRepository);
+        assertEquals(1.0, meterRegistry.get("customer.index.lookups").tag("result", "indexed").counter().count());
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepIndexCurrentAndGrowFilter() {
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.empty());
+        customerIndex.load();
+        long initialBits = customerIndex.filterBits();
+
+        for (long id = 1; id <= 100; id++) {
+            customerIndex.put(id, "Customer " + id);
+        }
+        customerIndex.put(7L, "Renamed");
+        customerIndex.remove(8L);
+
+        assertEquals(99, customerIndex.size());
+        assertTrue(customerIndex.filterBits() > initialBits);
+        assertEquals(Optional.of("Renamed"), customerIndex.findName(7L));
+        assertEquals(Optional.of("Customer 100"), customerIndex.findName(100L));
+        assertEquals(Optional.empty(), customerIndex.findName(8L));
+    }
+
+    @Test
+    void rebuild_ShouldReplayWritesMadeWhileLoading() {
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(customer(1L, "Ivan"), customer(2L, "Petr"))
+            .peek(customer -> {
+                if (customer.getId() == 2L) {
+                    customerIndex.remove(1L);
+                    customerIndex.put(3L, "Anna");
+                }
+            }));
+
+        int size = customerIndex.rebuild();
+
+        assertEquals(2, size);
+        assertEquals(Optional.empty(), customerIndex.findName(1L));
+        assertEquals(Optional.of("Anna"), customerIndex.findName(3L));
+    }
+
+    private static Customer customer(Long id, String name) {
+        return new Customer(id, id + 100, name, "+7-999-123-45-67", "Moscow");
+    }
+}
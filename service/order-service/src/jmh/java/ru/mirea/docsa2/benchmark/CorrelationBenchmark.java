@@ -0,0 +1,41 @@
+package ru.mirea.docsa2.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import ru.mirea.docsa2.service.CorrelationRegistry;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(8)
+public class CorrelationBenchmark {
+
+    private final Map<String, CompletableFuture<Object>> futures = new ConcurrentHashMap<>();
+    private final CorrelationRegistry registry = new CorrelationRegistry();
+
+    @Benchmark
+    public CompletableFuture<Object> uuidWithConcurrentHashMap() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        String correlationId = UUID.randomUUID().toString();
+        futures.put(correlationId, future);
+        return futures.remove(correlationId);
+    }
+
+    @Benchmark
+    public CompletableFuture<Object> correlationRegistry() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        String correlationId = registry.format(registry.register(future));
+        return registry.remove(correlationId);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.mirea.docsa2.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public TaskExecutor orderTaskExecutor(@Value("${order.executor.pool-size:10}") int poolSize,
+                                          @Value("${order.executor.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("order-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+
+    @Bean(name = "orderTaskExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskExecutor virtualOrderTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    @Bean
+    public TaskExecutor salesBackfillExecutor(SalesAnalyticsProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sales-backfill-");
+        executor.setCorePoolSize(properties.getBackfill().getParallelism());
+        executor.setMaxPoolSize(properties.getBackfill().getParallelism());
+        return executor;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.mirea.docsa2.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+    private int initialLimit = 50;
+    private int minLimit = 5;
+    private int maxLimit = 1000;
+    private double smoothing = 0.2;
+    private int longWindow = 600;
+    private double rttTolerance = 1.5;
+    private double backoffRatio = 0.9;
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,33 @@
+package ru.mirea.docsa2.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    private Duration ttl = Duration.ofHours(24);
+    private final Memory memory = new Memory();
+    private final Pending pending = new Pending();
+    private Duration purgeInterval = Duration.ofMinutes(10);
+
+    @Getter
+    @Setter
+    public static class Memory {
+        private int maxEntries = 100_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Pending {
+        private Duration lease = Duration.ofSeconds(30);
+        private Duration pollInterval = Duration.ofMillis(100);
+        private Duration maxWait = Duration.ofSeconds(10);
+        private int pollerThreads = 4;
+    }
+}
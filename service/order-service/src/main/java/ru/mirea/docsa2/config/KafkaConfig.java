@@ -1,10 +1,14 @@
 package ru.mirea.docsa2.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
 
 @Configuration
 @EnableKafka
@@ -15,6 +19,14 @@ public class KafkaConfig {
     public static final String PRODUCT_VALIDATION_RESPONSE_TOPIC = "product-validation-response";
     public static final String VALIDATE_CUSTOMER_REQUEST_TOPIC = "validate-customer-request";
     public static final String CUSTOMER_VALIDATION_RESPONSE_TOPIC = "customer-validation-response";
+    public static final String VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC = "validate-product-batch-request";
+    public static final String PRODUCT_VALIDATION_BATCH_RESPONSE_TOPIC = "product-validation-batch-response";
+    public static final String PRODUCT_CATALOG_TOPIC = "product-catalog";
+    public static final String CUSTOMER_DIRECTORY_TOPIC = "customer-directory";
+    public static final String CUSTOMER_CHANGED_TOPIC = "customer-changed";
+    public static final String STOCK_RESERVATION_RELEASED_TOPIC = "stock-reservation-released";
+    public static final String DEADLINE_HEADER = "x-deadline";
+    public static final long CATALOG_IDLE_EVENT_INTERVAL_MS = 1000;
 
     @Bean
     public NewTopic orderCreatedTopic() {
@@ -33,9 +45,9 @@ public class KafkaConfig {
     }
 
     @Bean
-    public NewTopic productValidationResponseTopic() {
+    public NewTopic productValidationResponseTopic(@Value("${validation.reply.partitions:6}") int replyPartitions) {
         return TopicBuilder.name(PRODUCT_VALIDATION_RESPONSE_TOPIC)
-            .partitions(3)
+            .partitions(replyPartitions)
             .replicas(1)
             .build();
     }
@@ -49,11 +61,61 @@ public class KafkaConfig {
     }
 
     @Bean
-    public NewTopic customerValidationResponseTopic() {
+    public NewTopic customerValidationResponseTopic(@Value("${validation.reply.partitions:6}") int replyPartitions) {
         return TopicBuilder.name(CUSTOMER_VALIDATION_RESPONSE_TOPIC)
+            .partitions(replyPartitions)
+            .replicas(1)
+            .build();
+    }
+
+    @Bean
+    public NewTopic validateProductBatchRequestTopic() {
+        return TopicBuilder.name(VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC)
             .partitions(3)
             .replicas(1)
             .build();
     }
-}
 
+    @Bean
+    public NewTopic productValidationBatchResponseTopic(@Value("${validation.reply.partitions:6}") int replyPartitions) {
+        return TopicBuilder.name(PRODUCT_VALIDATION_BATCH_RESPONSE_TOPIC)
+            .partitions(replyPartitions)
+            .replicas(1)
+            .build();
+    }
+
+    @Bean
+    public NewTopic productCatalogTopic() {
+        return TopicBuilder.name(PRODUCT_CATALOG_TOPIC)
+            .partitions(3)
+            .replicas(1)
+            .compact()
+            .build();
+    }
+
+    @Bean
+    public NewTopic customerDirectoryTopic() {
+        return TopicBuilder.name(CUSTOMER_DIRECTORY_TOPIC)
+            .partitions(3)
+            .replicas(1)
+            .compact()
+            .build();
+    }
+
+    @Bean
+    public NewTopic stockReservationReleasedTopic() {
+        return TopicBuilder.name(STOCK_RESERVATION_RELEASED_TOPIC)
+            .partitions(3)
+            .replicas(1)
+            .build();
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> catalogListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setIdleEventInterval(CATALOG_IDLE_EVENT_INTERVAL_MS);
+        return factory;
+    }
+}
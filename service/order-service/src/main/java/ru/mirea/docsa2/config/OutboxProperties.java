@@ -0,0 +1,24 @@
+package ru.mirea.docsa2.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    private final Relay relay = new Relay();
+
+    @Getter
+    @Setter
+    public static class Relay {
+        private int batchSize = 500;
+        private int maxBatchesPerRun = 20;
+        private Duration interval = Duration.ofMillis(100);
+        private Duration sendTimeout = Duration.ofSeconds(10);
+    }
+}
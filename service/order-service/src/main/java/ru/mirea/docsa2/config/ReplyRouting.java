@@ -0,0 +1,97 @@
+package ru.mirea.docsa2.config;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class ReplyRouting {
+
+    public static final String GROUP_ID = "order-service";
+
+    private static final List<String> REPLY_TOPICS = List.of(KafkaConfig.PRODUCT_VALIDATION_RESPONSE_TOPIC,
+        KafkaConfig.PRODUCT_VALIDATION_BATCH_RESPONSE_TOPIC, KafkaConfig.CUSTOMER_VALIDATION_RESPONSE_TOPIC);
+
+    public enum Mode {
+        SHARED, INSTANCE
+    }
+
+    private final Mode mode;
+    private final String instanceId;
+    private final Map<String, NavigableSet<Integer>> ownedPartitions = new ConcurrentHashMap<>();
+
+    public ReplyRouting(@Value("${validation.reply.mode:shared}") Mode mode,
+                        @Value("${validation.reply.instance-id:${HOSTNAME:${random.uuid}}}") String instanceId) {
+        this.mode = mode;
+        this.instanceId = instanceId;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    public String productReplyTopic() {
+        return KafkaConfig.PRODUCT_VALIDATION_RESPONSE_TOPIC;
+    }
+
+    public String productBatchReplyTopic() {
+        return KafkaConfig.PRODUCT_VALIDATION_BATCH_RESPONSE_TOPIC;
+    }
+
+    public String customerReplyTopic() {
+        return KafkaConfig.CUSTOMER_VALIDATION_RESPONSE_TOPIC;
+    }
+
+    public Integer replyPartition(String replyTopic) {
+        if (mode != Mode.INSTANCE) {
+            return null;
+        }
+        NavigableSet<Integer> partitions = ownedPartitions.get(replyTopic);
+        return partitions == null || partitions.isEmpty() ? null : partitions.first();
+    }
+
+    public List<String> unroutedTopics() {
+        if (mode != Mode.INSTANCE) {
+            return List.of();
+        }
+        return REPLY_TOPICS.stream().filter(topic -> replyPartition(topic) == null).toList();
+    }
+
+    public void assigned(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            ownedPartitions.computeIfAbsent(partition.topic(), topic -> new ConcurrentSkipListSet<>()).add(partition.partition());
+        }
+        warnIfUnrouted();
+    }
+
+    public void revoked(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            NavigableSet<Integer> owned = ownedPartitions.get(partition.topic());
+            if (owned != null) {
+                owned.remove(partition.partition());
+            }
+        }
+        warnIfUnrouted();
+    }
+
+    private void warnIfUnrouted() {
+        List<String> unrouted = unroutedTopics();
+        if (!unrouted.isEmpty()) {
+            log.warn("Pod {} owns no partition of reply topics {}, its validation replies may reach other pods and time out; "
+                + "validation.reply.partitions must be at least the number of order-service pods", instanceId, unrouted);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.mirea.docsa2.config;
+
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ReplyRoutingHealthIndicator implements HealthIndicator {
+
+    private final ReplyRouting replyRouting;
+
+    @Override
+    public Health health() {
+        List<String> unrouted = replyRouting.unroutedTopics();
+        if (unrouted.isEmpty()) {
+            return Health.up().withDetail("mode", replyRouting.mode()).build();
+        }
+        return Health.outOfService()
+            .withDetail("mode", replyRouting.mode())
+            .withDetail("unroutedTopics", unrouted)
+            .build();
+    }
+}
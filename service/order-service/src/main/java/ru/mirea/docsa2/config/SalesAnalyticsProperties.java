@@ -0,0 +1,33 @@
+package ru.mirea.docsa2.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "analytics.sales")
+public class SalesAnalyticsProperties {
+
+    private Duration checkpointInterval = Duration.ofSeconds(5);
+    private int maxPending = 10_000;
+    private final Retention retention = new Retention();
+    private final Backfill backfill = new Backfill();
+
+    @Getter
+    @Setter
+    public static class Retention {
+        private Duration minute = Duration.ofDays(2);
+        private Duration hour = Duration.ofDays(90);
+        private Duration purgeInterval = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Backfill {
+        private int parallelism = 4;
+        private int chunkSize = 50_000;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.mirea.docsa2.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "validation")
+public class ValidationProperties {
+
+    private final ProductBatch productBatch = new ProductBatch();
+    private final Catalog catalog = new Catalog();
+    private final Pending pending = new Pending();
+    private final CustomerCache customerCache = new CustomerCache();
+    private final AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout();
+    private final Hedging hedging = new Hedging();
+
+    @Getter
+    @Setter
+    public static class ProductBatch {
+        private boolean enabled = false;
+        private int maxSize = 100;
+        private Duration window = Duration.ofMillis(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Catalog {
+        private boolean enabled = false;
+        private int lowStockThreshold = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Pending {
+        private int maxInFlight = 10000;
+        private Duration timeout = Duration.ofSeconds(5);
+        private Duration tickDuration = Duration.ofMillis(10);
+        private int wheelSize = 512;
+    }
+
+    @Getter
+    @Setter
+    public static class CustomerCache {
+        private boolean enabled = true;
+        private int maxSize = 100000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private Duration negativeTtl = Duration.ofSeconds(30);
+        private int trackedInvalidations = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class AdaptiveTimeout {
+        private boolean enabled = true;
+        private double percentile = 0.999;
+        private double multiplier = 3.0;
+        private Duration floor = Duration.ofMillis(250);
+        private Duration ceiling = Duration.ofSeconds(10);
+        private long minSamples = 100;
+        private Duration window = Duration.ofMinutes(1);
+        private Duration refresh = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Hedging {
+        private boolean enabled = true;
+        private boolean products = false;
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(20);
+        private long minSamples = 100;
+        private double budgetPercent = 5;
+        private int burst = 10;
+    }
+}
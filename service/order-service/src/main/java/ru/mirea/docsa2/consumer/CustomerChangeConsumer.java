@@ -0,0 +1,40 @@
+package ru.mirea.docsa2.consumer;
+
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerChangedEvent;
+import ru.mirea.docsa2.service.CustomerValidationCache;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerChangeConsumer implements ConsumerSeekAware {
+
+    private final CustomerValidationCache customerValidationCache;
+
+    @KafkaListener(
+        id = "customer-validation-cache",
+        topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+            topic = KafkaConfig.CUSTOMER_CHANGED_TOPIC,
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")
+        )
+    )
+    public void handleCustomerChanged(ConsumerRecord<String, CustomerChangedEvent> record) {
+        log.debug("Received customer changed record for customer {}", record.key());
+        customerValidationCache.invalidate(Long.valueOf(record.key()), record.timestamp());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+}
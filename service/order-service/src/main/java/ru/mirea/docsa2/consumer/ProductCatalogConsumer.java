@@ -0,0 +1,45 @@
+package ru.mirea.docsa2.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.ProductChangedEvent;
+import ru.mirea.docsa2.service.ProductCatalogReplica;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalogConsumer {
+
+    public static final String LISTENER_ID = "product-catalog-replica";
+
+    private final ProductCatalogReplica productCatalogReplica;
+
+    @KafkaListener(
+        id = LISTENER_ID,
+        containerFactory = "catalogListenerContainerFactory",
+        topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+            topic = KafkaConfig.PRODUCT_CATALOG_TOPIC,
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")
+        )
+    )
+    public void handleProductChanged(ConsumerRecord<String, ProductChangedEvent> record, Consumer<?, ?> consumer) {
+        log.debug("Received product catalog record for product {}: {}", record.key(), record.value());
+        productCatalogReplica.apply(Long.valueOf(record.key()), record.value());
+        consumer.currentLag(new TopicPartition(record.topic(), record.partition()))
+            .ifPresent(lag -> productCatalogReplica.updateLag(record.partition(), lag));
+    }
+
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void handleCatalogIdle(ListenerContainerIdleEvent event) {
+        productCatalogReplica.markCaughtUp();
+    }
+}
@@ -0,0 +1,62 @@
+package ru.mirea.docsa2.consumer;
+
+import java.util.Collection;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.service.SalesAggregator;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesAnalyticsConsumer implements ConsumerSeekAware {
+
+    public static final String LISTENER_ID = "sales-analytics";
+
+    private final SalesAggregator salesAggregator;
+
+    @KafkaListener(
+        id = LISTENER_ID,
+        groupId = "${spring.application.name}-analytics",
+        containerFactory = "catalogListenerContainerFactory",
+        topics = KafkaConfig.ORDER_CREATED_TOPIC
+    )
+    public void handleOrderCreated(ConsumerRecord<String, OrderCreatedEvent> record) {
+        log.debug("Aggregating order created record {}-{}: {}", record.partition(), record.offset(), record.value());
+        salesAggregator.accept(record.partition(), record.offset(), record.value());
+    }
+
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void handleAnalyticsIdle(ListenerContainerIdleEvent event) {
+        salesAggregator.flushIfDue();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<Integer, Long> offsets = salesAggregator.committedOffsets();
+        assignments.keySet().forEach(partition -> {
+            Long next = offsets.get(partition.partition());
+            if (next != null) {
+                callback.seek(partition.topic(), partition.partition(), next);
+            } else {
+                callback.seekToBeginning(partition.topic(), partition.partition());
+            }
+        });
+        log.info("Sales analytics resumed partitions {} from checkpointed offsets {}", assignments.keySet(), offsets);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        salesAggregator.release(partitions.stream().map(TopicPartition::partition).toList());
+    }
+}
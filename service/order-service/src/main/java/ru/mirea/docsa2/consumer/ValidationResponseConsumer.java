@@ -1,28 +1,53 @@
 package ru.mirea.docsa2.consumer;
 
+import java.util.Collection;
+import java.util.Map;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.config.ReplyRouting;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
+import ru.mirea.docsa2.event.ProductValidationBatchResponse;
 import ru.mirea.docsa2.event.ProductValidationResponse;
 import ru.mirea.docsa2.service.ValidationService;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class ValidationResponseConsumer {
+public class ValidationResponseConsumer implements ConsumerSeekAware {
 
     private final ValidationService validationService;
+    private final ReplyRouting replyRouting;
 
-    @KafkaListener(topics = "product-validation-response", groupId = "order-service")
+    @KafkaListener(topics = KafkaConfig.PRODUCT_VALIDATION_RESPONSE_TOPIC, groupId = ReplyRouting.GROUP_ID)
     public void handleProductValidationResponse(ProductValidationResponse response) {
         validationService.handleProductValidationResponse(response);
     }
 
-    @KafkaListener(topics = "customer-validation-response", groupId = "order-service")
+    @KafkaListener(topics = KafkaConfig.PRODUCT_VALIDATION_BATCH_RESPONSE_TOPIC, groupId = ReplyRouting.GROUP_ID)
+    public void handleProductValidationBatchResponse(ProductValidationBatchResponse response) {
+        validationService.handleProductValidationBatchResponse(response);
+    }
+
+    @KafkaListener(topics = KafkaConfig.CUSTOMER_VALIDATION_RESPONSE_TOPIC, groupId = ReplyRouting.GROUP_ID)
     public void handleCustomerValidationResponse(CustomerValidationResponse response) {
         validationService.handleCustomerValidationResponse(response);
     }
-}
 
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        log.info("Validation reply partitions assigned: {}", assignments.keySet());
+        replyRouting.assigned(assignments.keySet());
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        log.info("Validation reply partitions revoked: {}", partitions);
+        replyRouting.revoked(partitions);
+    }
+}
@@ -1,13 +1,26 @@
 package ru.mirea.docsa2.controller;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,19 +30,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.mirea.docsa2.dto.BatchOrderResult;
 import ru.mirea.docsa2.dto.CreateOrderRequest;
+import ru.mirea.docsa2.dto.CreateOrdersBatchRequest;
+import ru.mirea.docsa2.dto.CreateOrdersBatchResponse;
 import ru.mirea.docsa2.dto.OrderResponse;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
-import ru.mirea.docsa2.event.OrderCreatedEvent;
 import ru.mirea.docsa2.event.ProductValidationResponse;
 import ru.mirea.docsa2.model.Order;
-import ru.mirea.docsa2.producer.OrderEventProducer;
 import ru.mirea.docsa2.repository.OrderRepository;
+import ru.mirea.docsa2.service.CustomerDirectory;
+import ru.mirea.docsa2.service.IdempotencyService;
+import ru.mirea.docsa2.service.OrderConcurrencyLimiter;
+import ru.mirea.docsa2.service.OrderService;
+import ru.mirea.docsa2.service.ValidationCapacityExceededException;
 import ru.mirea.docsa2.service.ValidationService;
 import ru.mirea.docsa2.util.AuthenticationUtil;
+import ru.mirea.docsa2.util.KeysetPage;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 @Slf4j
 @RestController
@@ -37,17 +60,32 @@ import ru.mirea.docsa2.util.AuthenticationUtil;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final OrderRepository orderRepository;
     private final ValidationService validationService;
-    private final OrderEventProducer orderEventProducer;
+    private final IdempotencyService idempotencyService;
+    private final OrderService orderService;
+    private final OrderConcurrencyLimiter concurrencyLimiter;
+    private final CustomerDirectory customerDirectory;
+    private final Executor orderTaskExecutor;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @GetMapping
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
+    public List<OrderResponse> getAllOrders(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        List<Order> orders = KeysetPage.requested(afterId, limit)
+                ? orderRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.after(afterId), KeysetPage.limit(limit))
+                : orderRepository.findAll();
+        return orders.stream()
                 .map(OrderResponse::from)
                 .toList();
     }
 
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        return ndjsonStreamer.stream(orderRepository::streamAllByOrderByIdAsc, OrderResponse::from);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
         return orderRepository.findById(id)
@@ -58,7 +96,7 @@ public class OrderController {
 
     @GetMapping("/customer/{customerId}")
     public List<OrderResponse> getOrdersByCustomerId(@PathVariable Long customerId) {
-        return orderRepository.findByCustomerId(customerId).stream()
+        return orderRepository.findByCustomerIdOrderByCreatedAtDescIdDesc(customerId).stream()
                 .map(OrderResponse::from)
                 .toList();
     }
@@ -70,65 +108,256 @@ public class OrderController {
             return ResponseEntity.badRequest().body("User ID not found in token");
         }
 
-        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
-                .body("Self orders endpoint requires customer lookup - implement via event sourcing");
+        if (!customerDirectory.isCaughtUp()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Customer directory is still loading");
+        }
+
+        OptionalLong customerId = customerDirectory.customerIdFor(userId);
+        if (customerId.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Customer profile not found");
+        }
+
+        return ResponseEntity.ok(getOrdersByCustomerId(customerId.getAsLong()));
     }
 
     @PostMapping
-    public ResponseEntity<?> createOrder(@Valid @RequestBody CreateOrderRequest request, Authentication authentication) {
+    public CompletableFuture<ResponseEntity<?>> createOrder(@Valid @RequestBody CreateOrderRequest request,
+                                                            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                            Authentication authentication) {
+        String username = AuthenticationUtil.extractUsername(authentication);
+        log.info("User '{}' is creating order for product {}", username, request.productId());
+
+        if (idempotencyKey == null) {
+            return submitOrder(request);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body("Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+        }
+        return idempotencyService.execute(username + ":" + idempotencyKey, request.toString(), () -> submitOrder(request));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> submitOrder(CreateOrderRequest request) {
+        return withPermit(() -> validateAndCreate(request));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> withPermit(Supplier<CompletableFuture<ResponseEntity<?>>> work) {
+        Optional<OrderConcurrencyLimiter.Permit> permit = concurrencyLimiter.tryAcquire();
+        if (permit.isEmpty()) {
+            return CompletableFuture.completedFuture(overloaded());
+        }
+
+        CompletableFuture<ResponseEntity<?>> response;
         try {
-            String username = AuthenticationUtil.extractUsername(authentication);
-            log.info("User '{}' is creating order for product {}", username, request.productId());
+            response = work.get();
+        } catch (RuntimeException e) {
+            concurrencyLimiter.release(permit.get(), true);
+            throw e;
+        }
+        return response.whenComplete((result, ex) ->
+            concurrencyLimiter.release(permit.get(), ex != null || result.getStatusCode().is5xxServerError()));
+    }
 
-            CompletableFuture<ProductValidationResponse> productValidation = 
-                validationService.validateProduct(request.productId(), request.quantity());
-            
-            CompletableFuture<CustomerValidationResponse> customerValidation = 
-                validationService.validateCustomer(request.customerId());
+    private CompletableFuture<ResponseEntity<?>> validateAndCreate(CreateOrderRequest request) {
+        CompletableFuture<ProductValidationResponse> productValidation;
+        try {
+            productValidation = validationService.validateProduct(request.productId(), request.quantity());
+        } catch (ValidationCapacityExceededException e) {
+            return CompletableFuture.completedFuture(serviceUnavailable(e));
+        }
 
-            CompletableFuture.allOf(productValidation, customerValidation).join();
+        CompletableFuture<CustomerValidationResponse> customerValidation;
+        try {
+            customerValidation = validationService.validateCustomer(request.customerId());
+        } catch (ValidationCapacityExceededException e) {
+            abandon(productValidation, request.quantity());
+            return CompletableFuture.completedFuture(serviceUnavailable(e));
+        }
 
-            ProductValidationResponse productResponse = productValidation.get();
-            CustomerValidationResponse customerResponse = customerValidation.get();
+        return CompletableFuture.allOf(productValidation, customerValidation)
+            .handle((ignored, ex) -> ex)
+            .<ResponseEntity<?>>thenApplyAsync(ignored -> completeOrder(request, productValidation, customerValidation), orderTaskExecutor)
+            .exceptionally(ex -> {
+                validationService.releaseReservation(resultOf(productValidation), request.quantity());
+                return creationFailed(ex);
+            });
+    }
 
-            if (productResponse == null || !productResponse.valid()) {
-                String error = productResponse != null ? productResponse.errorMessage() : "Product validation timeout";
-                return ResponseEntity.badRequest().body(error);
-            }
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<?>> createOrders(@Valid @RequestBody CreateOrdersBatchRequest request, Authentication authentication) {
+        String username = AuthenticationUtil.extractUsername(authentication);
+        List<CreateOrderRequest> items = request.orders();
+        log.info("User '{}' is creating {} orders in batch", username, items.size());
+        return withPermit(() -> validateAndCreateAll(items));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> validateAndCreateAll(List<CreateOrderRequest> items) {
+        Map<Long, Integer> productQuantities = items.stream()
+            .collect(Collectors.groupingBy(CreateOrderRequest::productId, Collectors.summingInt(CreateOrderRequest::quantity)));
+        Set<Long> customerIds = items.stream()
+            .map(CreateOrderRequest::customerId)
+            .collect(Collectors.toSet());
+
+        Map<Long, CompletableFuture<ProductValidationResponse>> productValidations = new HashMap<>();
+        Map<Long, CompletableFuture<CustomerValidationResponse>> customerValidations = new HashMap<>();
+        try {
+            productQuantities.forEach((productId, quantity) ->
+                productValidations.put(productId, validationService.validateProduct(productId, quantity)));
+            customerIds.forEach(customerId ->
+                customerValidations.put(customerId, validationService.validateCustomer(customerId)));
+        } catch (ValidationCapacityExceededException e) {
+            productValidations.forEach((productId, validation) -> abandon(validation, productQuantities.get(productId)));
+            customerValidations.values().forEach(validation -> validation.cancel(false));
+            return CompletableFuture.completedFuture(serviceUnavailable(e));
+        }
+
+        CompletableFuture<?>[] validations = Stream.concat(productValidations.values().stream(), customerValidations.values().stream())
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(validations)
+            .handle((ignored, ex) -> ex)
+            .<ResponseEntity<?>>thenApplyAsync(ignored -> completeOrders(items, productQuantities, productValidations, customerValidations), orderTaskExecutor)
+            .exceptionally(this::creationFailed);
+    }
+
+    private ResponseEntity<?> completeOrder(CreateOrderRequest request,
+                                            CompletableFuture<ProductValidationResponse> productValidation,
+                                            CompletableFuture<CustomerValidationResponse> customerValidation) {
+        Throwable failure = failureOf(Stream.of(productValidation, customerValidation));
+        if (failure != null) {
+            validationService.releaseReservation(resultOf(productValidation), request.quantity());
+            return validationUnavailable(failure);
+        }
+        ValidationResults results = new ValidationResults(productValidation.join(), customerValidation.join());
+        String error = validationError(results.product(), results.customer());
+        if (error != null) {
+            validationService.releaseReservation(results.product(), request.quantity());
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        Order saved = orderService.createOrder(newOrder(request, results.product()));
+        log.info("Order created successfully: {}", saved.getId());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.from(saved));
+    }
+
+    private ResponseEntity<?> completeOrders(List<CreateOrderRequest> items, Map<Long, Integer> productQuantities,
+                                             Map<Long, CompletableFuture<ProductValidationResponse>> productValidations,
+                                             Map<Long, CompletableFuture<CustomerValidationResponse>> customerValidations) {
+        Throwable failure = failureOf(Stream.concat(productValidations.values().stream(), customerValidations.values().stream()));
+        if (failure != null) {
+            productQuantities.forEach((productId, quantity) ->
+                validationService.releaseReservation(resultOf(productValidations.get(productId)), quantity));
+            return validationUnavailable(failure);
+        }
+        BatchOrderResult[] results = new BatchOrderResult[items.size()];
+        List<Order> orders = new ArrayList<>(items.size());
+        List<Integer> indexes = new ArrayList<>(items.size());
+        Map<Long, Integer> unreserved = new HashMap<>(productQuantities);
 
-            if (customerResponse == null || !customerResponse.valid()) {
-                String error = customerResponse != null ? customerResponse.errorMessage() : "Customer validation timeout";
-                return ResponseEntity.badRequest().body(error);
+        for (int i = 0; i < items.size(); i++) {
+            CreateOrderRequest item = items.get(i);
+            ProductValidationResponse productResponse = resultOf(productValidations.get(item.productId()));
+            CustomerValidationResponse customerResponse = resultOf(customerValidations.get(item.customerId()));
+            String error = validationError(productResponse, customerResponse);
+            if (error != null) {
+                results[i] = BatchOrderResult.rejected(i, error);
+            } else {
+                orders.add(newOrder(item, productResponse));
+                indexes.add(i);
+                unreserved.merge(item.productId(), -item.quantity(), Integer::sum);
             }
+        }
+
+        List<Order> saved;
+        try {
+            saved = orders.isEmpty() ? List.of() : orderService.createOrders(orders);
+        } catch (RuntimeException e) {
+            productQuantities.forEach((productId, quantity) ->
+                validationService.releaseReservation(resultOf(productValidations.get(productId)), quantity));
+            throw e;
+        }
+        unreserved.forEach((productId, quantity) ->
+            validationService.releaseReservation(resultOf(productValidations.get(productId)), quantity));
+        for (int i = 0; i < saved.size(); i++) {
+            int index = indexes.get(i);
+            results[index] = BatchOrderResult.created(index, OrderResponse.from(saved.get(i)));
+        }
+        log.info("Batch order creation finished: {} created, {} rejected", saved.size(), items.size() - saved.size());
+
+        return ResponseEntity.ok(CreateOrdersBatchResponse.of(List.of(results)));
+    }
+
+    private static String validationError(ProductValidationResponse productResponse, CustomerValidationResponse customerResponse) {
+        if (!productResponse.valid()) {
+            return productResponse.errorMessage();
+        }
+        if (!customerResponse.valid()) {
+            return customerResponse.errorMessage();
+        }
+        return null;
+    }
+
+    private static Throwable failureOf(Stream<? extends CompletableFuture<?>> validations) {
+        return validations
+            .filter(validation -> validation.state() == Future.State.FAILED)
+            .map(CompletableFuture::exceptionNow)
+            .findFirst()
+            .orElse(null);
+    }
 
-            BigDecimal totalPrice = productResponse.price().multiply(BigDecimal.valueOf(request.quantity()));
-            
-            Order order = new Order();
-            order.setCustomerId(request.customerId());
-            order.setProductId(request.productId());
-            order.setQuantity(request.quantity());
-            order.setTotalPrice(totalPrice);
-            order.setStatus(Order.OrderStatus.CONFIRMED);
+    private static Order newOrder(CreateOrderRequest request, ProductValidationResponse productResponse) {
+        Order order = new Order();
+        order.setCustomerId(request.customerId());
+        order.setProductId(request.productId());
+        order.setQuantity(request.quantity());
+        order.setTotalPrice(productResponse.price().multiply(BigDecimal.valueOf(request.quantity())));
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+        order.setReservationId(productResponse.reservationId());
+        return order;
+    }
+
+    private static <T> T resultOf(CompletableFuture<T> validation) {
+        return validation.isDone() && !validation.isCompletedExceptionally() ? validation.join() : null;
+    }
 
-            Order saved = orderRepository.save(order);
-            log.info("Order created successfully: {}", saved.getId());
+    private void abandon(CompletableFuture<ProductValidationResponse> validation, int quantity) {
+        if (!validation.cancel(false)) {
+            validationService.releaseReservation(resultOf(validation), quantity);
+        }
+    }
 
-            OrderCreatedEvent event = new OrderCreatedEvent(
-                saved.getId(),
-                saved.getCustomerId(),
-                saved.getProductId(),
-                saved.getQuantity(),
-                saved.getTotalPrice(),
-                LocalDateTime.now()
-            );
-            orderEventProducer.sendOrderCreatedEvent(event);
+    private ResponseEntity<?> creationFailed(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        log.error("Error creating order", cause);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error creating order: " + cause.getMessage());
+    }
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.from(saved));
-        } catch (Exception e) {
-            log.error("Error creating order", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error creating order: " + e.getMessage());
+    private ResponseEntity<?> validationUnavailable(Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            log.warn("Rejecting order: {}", cause.getMessage());
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(cause.getMessage());
         }
+        log.warn("Rejecting order: validation failed", cause);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Validation unavailable: " + cause.getMessage());
+    }
+
+    private ResponseEntity<?> serviceUnavailable(ValidationCapacityExceededException e) {
+        log.warn("Rejecting order: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    private ResponseEntity<?> overloaded() {
+        log.warn("Rejecting order: concurrency limit reached");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(concurrencyLimiter.retryAfter().toSeconds(), 1)))
+                .body("Too many orders in progress, retry later");
     }
 
     @PutMapping("/{id}/status")
@@ -150,5 +379,6 @@ public class OrderController {
         orderRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
-}
 
+    private record ValidationResults(ProductValidationResponse product, CustomerValidationResponse customer) {}
+}
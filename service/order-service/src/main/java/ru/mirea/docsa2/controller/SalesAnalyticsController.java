@@ -0,0 +1,97 @@
+package ru.mirea.docsa2.controller;
+
+import java.time.LocalDateTime;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mirea.docsa2.dto.SalesBackfillResponse;
+import ru.mirea.docsa2.model.SalesDimension;
+import ru.mirea.docsa2.model.SalesGranularity;
+import ru.mirea.docsa2.service.SalesAnalyticsService;
+
+@RestController
+@RequestMapping("/analytics/sales")
+@RequiredArgsConstructor
+public class SalesAnalyticsController {
+
+    private static final int MAX_TOTALS_LIMIT = 100;
+
+    private final SalesAnalyticsService salesAnalyticsService;
+
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<?> getProductSeries(@PathVariable Long productId,
+                                              @RequestParam(defaultValue = "HOUR") SalesGranularity granularity,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return series(SalesDimension.PRODUCT, productId, granularity, from, to);
+    }
+
+    @GetMapping("/customers/{customerId}")
+    public ResponseEntity<?> getCustomerSeries(@PathVariable Long customerId,
+                                               @RequestParam(defaultValue = "HOUR") SalesGranularity granularity,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return series(SalesDimension.CUSTOMER, customerId, granularity, from, to);
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<?> getProductTotals(@RequestParam(defaultValue = "DAY") SalesGranularity granularity,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                              @RequestParam(defaultValue = "10") int limit) {
+        return totals(SalesDimension.PRODUCT, granularity, from, to, limit);
+    }
+
+    @GetMapping("/customers")
+    public ResponseEntity<?> getCustomerTotals(@RequestParam(defaultValue = "DAY") SalesGranularity granularity,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                               @RequestParam(defaultValue = "10") int limit) {
+        return totals(SalesDimension.CUSTOMER, granularity, from, to, limit);
+    }
+
+    @GetMapping("/backfill")
+    public SalesBackfillResponse getBackfill() {
+        return salesAnalyticsService.getBackfill();
+    }
+
+    @PostMapping("/backfill")
+    public ResponseEntity<SalesBackfillResponse> startBackfill(@RequestParam(defaultValue = "false") boolean force) {
+        return salesAnalyticsService.rebuild(force)
+                .map(started -> ResponseEntity.status(HttpStatus.ACCEPTED).body(started))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).body(salesAnalyticsService.getBackfill()));
+    }
+
+    private ResponseEntity<?> series(SalesDimension dimension, long entityId, SalesGranularity granularity,
+                                     LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(granularity.defaultWindow());
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().body("'from' must be before 'to'");
+        }
+        return ResponseEntity.ok(salesAnalyticsService.getSeries(dimension, entityId, granularity,
+                granularity.truncate(start), end));
+    }
+
+    private ResponseEntity<?> totals(SalesDimension dimension, SalesGranularity granularity,
+                                     LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit < 1 || limit > MAX_TOTALS_LIMIT) {
+            return ResponseEntity.badRequest().body("'limit' must be between 1 and " + MAX_TOTALS_LIMIT);
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(granularity.defaultWindow());
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().body("'from' must be before 'to'");
+        }
+        return ResponseEntity.ok(salesAnalyticsService.getTotals(dimension, granularity,
+                granularity.truncate(start), end, limit));
+    }
+}
@@ -0,0 +1,20 @@
+package ru.mirea.docsa2.dto;
+
+public record BatchOrderResult(
+    int index,
+    Status status,
+    OrderResponse order,
+    String error
+) {
+    public static BatchOrderResult created(int index, OrderResponse order) {
+        return new BatchOrderResult(index, Status.CREATED, order, null);
+    }
+
+    public static BatchOrderResult rejected(int index, String error) {
+        return new BatchOrderResult(index, Status.REJECTED, null, error);
+    }
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+}
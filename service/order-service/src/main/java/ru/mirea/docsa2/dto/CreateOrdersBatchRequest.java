@@ -0,0 +1,13 @@
+package ru.mirea.docsa2.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+public record CreateOrdersBatchRequest(
+    @NotEmpty(message = "Orders are required")
+    @Size(max = 500, message = "No more than 500 orders per batch")
+    List<@Valid CreateOrderRequest> orders
+) {}
@@ -0,0 +1,16 @@
+package ru.mirea.docsa2.dto;
+
+import java.util.List;
+
+public record CreateOrdersBatchResponse(
+    int created,
+    int rejected,
+    List<BatchOrderResult> results
+) {
+    public static CreateOrdersBatchResponse of(List<BatchOrderResult> results) {
+        int created = (int) results.stream()
+            .filter(result -> result.status() == BatchOrderResult.Status.CREATED)
+            .count();
+        return new CreateOrdersBatchResponse(created, results.size() - created, results);
+    }
+}
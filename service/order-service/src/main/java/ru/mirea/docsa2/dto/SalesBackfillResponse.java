@@ -0,0 +1,15 @@
+package ru.mirea.docsa2.dto;
+
+import java.time.LocalDateTime;
+
+public record SalesBackfillResponse(
+    Status status,
+    LocalDateTime cutoff,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt,
+    long orders
+) {
+    public enum Status {
+        NONE, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,11 @@
+package ru.mirea.docsa2.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record SalesBucketResponse(
+    LocalDateTime bucketStart,
+    BigDecimal revenue,
+    long quantity,
+    long orders
+) {}
@@ -0,0 +1,10 @@
+package ru.mirea.docsa2.dto;
+
+import java.math.BigDecimal;
+
+public record SalesTotalResponse(
+    long entityId,
+    BigDecimal revenue,
+    long quantity,
+    long orders
+) {}
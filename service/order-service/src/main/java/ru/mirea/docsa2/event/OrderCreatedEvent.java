@@ -9,6 +9,7 @@ public record OrderCreatedEvent(
     Long productId,
     Integer quantity,
     BigDecimal totalPrice,
-    LocalDateTime createdAt
+    LocalDateTime createdAt,
+    String reservationId
 ) {}
 
@@ -0,0 +1,10 @@
+package ru.mirea.docsa2.event;
+
+import java.math.BigDecimal;
+
+public record ProductChangedEvent(
+    Long productId,
+    String name,
+    BigDecimal price,
+    Integer quantity
+) {}
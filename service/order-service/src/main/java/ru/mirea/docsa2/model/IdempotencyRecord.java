@@ -0,0 +1,40 @@
+package ru.mirea.docsa2.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "order_idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 320)
+    private String idempotencyKey;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String fingerprint;
+
+    @Column
+    private Integer status;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(columnDefinition = "text")
+    private String body;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,22 @@
+package ru.mirea.docsa2.model;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+public record SalesBucketKey(
+    SalesDimension dimension,
+    SalesGranularity granularity,
+    long entityId,
+    LocalDateTime bucketStart
+) implements Comparable<SalesBucketKey> {
+
+    private static final Comparator<SalesBucketKey> ORDER = Comparator.comparing(SalesBucketKey::dimension)
+        .thenComparing(SalesBucketKey::granularity)
+        .thenComparingLong(SalesBucketKey::entityId)
+        .thenComparing(SalesBucketKey::bucketStart);
+
+    @Override
+    public int compareTo(SalesBucketKey other) {
+        return ORDER.compare(this, other);
+    }
+}
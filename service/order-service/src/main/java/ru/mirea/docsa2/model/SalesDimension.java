@@ -0,0 +1,5 @@
+package ru.mirea.docsa2.model;
+
+public enum SalesDimension {
+    PRODUCT, CUSTOMER
+}
@@ -0,0 +1,19 @@
+package ru.mirea.docsa2.model;
+
+import java.math.BigDecimal;
+
+import lombok.Getter;
+
+@Getter
+public class SalesTotals {
+
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private long quantity;
+    private long orders;
+
+    public void add(BigDecimal revenue, long quantity, long orders) {
+        this.revenue = this.revenue.add(revenue);
+        this.quantity += quantity;
+        this.orders += orders;
+    }
+}
@@ -1,8 +1,11 @@
 package ru.mirea.docsa2.producer;
 
+import java.util.concurrent.CompletableFuture;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 import ru.mirea.docsa2.config.KafkaConfig;
 import ru.mirea.docsa2.event.OrderCreatedEvent;
@@ -14,9 +17,9 @@ public class OrderEventProducer {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
-    public void sendOrderCreatedEvent(OrderCreatedEvent event) {
+    public CompletableFuture<SendResult<String, Object>> sendOrderCreatedEvent(OrderCreatedEvent event) {
         log.info("Sending order created event: {}", event);
-        kafkaTemplate.send(KafkaConfig.ORDER_CREATED_TOPIC, event.orderId().toString(), event);
+        return kafkaTemplate.send(KafkaConfig.ORDER_CREATED_TOPIC, event.orderId().toString(), event);
     }
 }
 
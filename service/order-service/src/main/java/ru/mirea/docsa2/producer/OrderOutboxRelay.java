@@ -0,0 +1,136 @@
+package ru.mirea.docsa2.producer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mirea.docsa2.config.OutboxProperties;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.model.OrderOutboxEvent;
+import ru.mirea.docsa2.repository.OrderOutboxRepository;
+
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+
+    static final long ADVISORY_LOCK_KEY = 0x6f7264657230L;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderEventProducer orderEventProducer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration sendTimeout;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Counter relayedEvents;
+    private final Counter deadLetteredEvents;
+
+    public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository, OrderEventProducer orderEventProducer,
+                            ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                            OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderEventProducer = orderEventProducer;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = properties.getRelay().getBatchSize();
+        this.maxBatchesPerRun = properties.getRelay().getMaxBatchesPerRun();
+        this.sendTimeout = properties.getRelay().getSendTimeout();
+        this.batchSizes = DistributionSummary.builder("outbox.relay.batch.size")
+            .description("Outbox events published per relay batch")
+            .register(meterRegistry);
+        this.relayedEvents = Counter.builder("outbox.relay.events")
+            .description("Outbox events published to Kafka")
+            .register(meterRegistry);
+        this.deadLetteredEvents = Counter.builder("outbox.relay.dead.letters")
+            .description("Malformed outbox events moved to the dead-letter table instead of being published")
+            .register(meterRegistry);
+        TimeGauge.builder("outbox.relay.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+            .description("Age of the oldest outbox event in the last relay batch")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:100ms}")
+    public void relay() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (relayBatch() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to relay outbox batch, will retry", e);
+        }
+    }
+
+    int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            if (!orderOutboxRepository.tryAdvisoryXactLock(ADVISORY_LOCK_KEY)) {
+                return 0;
+            }
+            List<OrderOutboxEvent> batch = orderOutboxRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                lagMillis.set(0);
+                return 0;
+            }
+            lagMillis.set(Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis());
+
+            int published = publish(batch);
+            orderOutboxRepository.deleteAllByIdInBatch(batch.stream().map(OrderOutboxEvent::getId).toList());
+
+            batchSizes.record(published);
+            relayedEvents.increment(published);
+            log.debug("Relayed {} order created events from outbox", published);
+            return batch.size();
+        });
+        return relayed != null ? relayed : 0;
+    }
+
+    private int publish(List<OrderOutboxEvent> batch) {
+        CompletableFuture<?>[] sends = batch.stream()
+            .map(this::toEvent)
+            .filter(Objects::nonNull)
+            .map(orderEventProducer::sendOrderCreatedEvent)
+            .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(sends).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox batch", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish outbox batch of " + sends.length + " events", e);
+        }
+        return sends.length;
+    }
+
+    private OrderCreatedEvent toEvent(OrderOutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), OrderCreatedEvent.class);
+        } catch (JsonProcessingException e) {
+            log.error("Moving malformed outbox event {} for order {} to dead letters", outboxEvent.getId(),
+                outboxEvent.getOrderId(), e);
+            orderOutboxRepository.moveToDeadLetters(outboxEvent.getId(), e.getMessage());
+            deadLetteredEvents.increment();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.mirea.docsa2.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mirea.docsa2.model.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Transactional
+    @Modifying
+    @Query(value = """
+        insert into order_idempotency_keys (idempotency_key, fingerprint, expires_at)
+        values (:key, :fingerprint, :claimedUntil)
+        on conflict (idempotency_key) do update set
+            fingerprint = excluded.fingerprint,
+            status = null,
+            content_type = null,
+            body = null,
+            expires_at = excluded.expires_at
+        where order_idempotency_keys.expires_at < :now
+        """, nativeQuery = true)
+    int claim(@Param("key") String key, @Param("fingerprint") String fingerprint,
+              @Param("claimedUntil") LocalDateTime claimedUntil, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+        update IdempotencyRecord r
+        set r.status = :status, r.contentType = :contentType, r.body = :body, r.expiresAt = :expiresAt
+        where r.idempotencyKey = :key and r.status is null and r.expiresAt = :claimedUntil
+        """)
+    int complete(@Param("key") String key, @Param("claimedUntil") LocalDateTime claimedUntil, @Param("status") Integer status,
+                 @Param("contentType") String contentType, @Param("body") String body, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.status is null and r.expiresAt = :claimedUntil")
+    int release(@Param("key") String key, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
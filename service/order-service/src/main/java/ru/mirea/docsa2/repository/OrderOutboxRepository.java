@@ -0,0 +1,26 @@
+package ru.mirea.docsa2.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.mirea.docsa2.model.OrderOutboxEvent;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+    List<OrderOutboxEvent> findAllByOrderByIdAsc(Limit limit);
+
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
+
+    @Modifying
+    @Query(value = """
+        insert into order_outbox_dead_letters (id, order_id, payload, created_at, error, dead_lettered_at)
+        select id, order_id, payload, created_at, :error, now() from order_outbox where id = :id
+        """, nativeQuery = true)
+    int moveToDeadLetters(@Param("id") long id, @Param("error") String error);
+}
@@ -1,13 +1,25 @@
 package ru.mirea.docsa2.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.mirea.docsa2.model.Order;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByCustomerId(Long customerId);
-}
+    List<Order> findByCustomerIdOrderByCreatedAtDescIdDesc(Long customerId);
+
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Order> streamAllByOrderByIdAsc();
+}
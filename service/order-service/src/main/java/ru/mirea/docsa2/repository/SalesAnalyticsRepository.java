@@ -0,0 +1,175 @@
+package ru.mirea.docsa2.repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.mirea.docsa2.dto.SalesBackfillResponse;
+import ru.mirea.docsa2.dto.SalesBucketResponse;
+import ru.mirea.docsa2.dto.SalesTotalResponse;
+import ru.mirea.docsa2.model.SalesBucketKey;
+import ru.mirea.docsa2.model.SalesDimension;
+import ru.mirea.docsa2.model.SalesGranularity;
+import ru.mirea.docsa2.model.SalesTotals;
+
+@Repository
+@RequiredArgsConstructor
+public class SalesAnalyticsRepository {
+
+    private static final String UPSERT_BUCKET = """
+        insert into sales_buckets (dimension, granularity, entity_id, bucket_start, revenue, quantity, orders)
+        values (?, ?, ?, ?, ?, ?, ?)
+        on conflict (dimension, granularity, entity_id, bucket_start) do update set
+            revenue = sales_buckets.revenue + excluded.revenue,
+            quantity = sales_buckets.quantity + excluded.quantity,
+            orders = sales_buckets.orders + excluded.orders
+        """;
+
+    private static final String UPSERT_OFFSET = """
+        insert into sales_offsets (partition_id, next_offset) values (?, ?)
+        on conflict (partition_id) do update set next_offset = excluded.next_offset
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void addAll(Map<SalesBucketKey, SalesTotals> buckets) {
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        new TreeMap<>(buckets).forEach((key, totals) -> rows.add(new Object[] {
+            key.dimension().name(),
+            key.granularity().name(),
+            key.entityId(),
+            Timestamp.valueOf(key.bucketStart()),
+            totals.getRevenue(),
+            totals.getQuantity(),
+            totals.getOrders()
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_BUCKET, rows);
+    }
+
+    public void saveOffsets(Map<Integer, Long> nextOffsets) {
+        List<Object[]> rows = new ArrayList<>(nextOffsets.size());
+        new TreeMap<>(nextOffsets).forEach((partition, offset) -> rows.add(new Object[] {partition, offset}));
+        jdbcTemplate.batchUpdate(UPSERT_OFFSET, rows);
+    }
+
+    public Map<Integer, Long> findOffsets() {
+        Map<Integer, Long> offsets = new HashMap<>();
+        jdbcTemplate.query("select partition_id, next_offset from sales_offsets",
+            (RowCallbackHandler) rs -> offsets.put(rs.getInt("partition_id"), rs.getLong("next_offset")));
+        return offsets;
+    }
+
+    public LocalDateTime lockCutoff() {
+        return jdbcTemplate.queryForObject("select cutoff from sales_backfill where id = 1 for share", LocalDateTime.class);
+    }
+
+    public List<SalesBucketResponse> findSeries(SalesDimension dimension, SalesGranularity granularity, long entityId,
+                                                LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("""
+                select bucket_start, revenue, quantity, orders from sales_buckets
+                where dimension = ? and granularity = ? and entity_id = ? and bucket_start >= ? and bucket_start < ?
+                order by bucket_start
+                """,
+            (rs, rowNum) -> new SalesBucketResponse(
+                rs.getTimestamp("bucket_start").toLocalDateTime(),
+                rs.getBigDecimal("revenue"),
+                rs.getLong("quantity"),
+                rs.getLong("orders")),
+            dimension.name(), granularity.name(), entityId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public List<SalesTotalResponse> findTotals(SalesDimension dimension, SalesGranularity granularity,
+                                               LocalDateTime from, LocalDateTime to, int limit) {
+        return jdbcTemplate.query("""
+                select entity_id, sum(revenue) as revenue, sum(quantity) as quantity, sum(orders) as orders from sales_buckets
+                where dimension = ? and granularity = ? and bucket_start >= ? and bucket_start < ?
+                group by entity_id
+                order by revenue desc, entity_id
+                limit ?
+                """,
+            (rs, rowNum) -> new SalesTotalResponse(
+                rs.getLong("entity_id"),
+                rs.getBigDecimal("revenue"),
+                rs.getLong("quantity"),
+                rs.getLong("orders")),
+            dimension.name(), granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+
+    public int deleteBucketsBefore(SalesGranularity granularity, LocalDateTime before) {
+        return jdbcTemplate.update("delete from sales_buckets where granularity = ? and bucket_start < ?",
+            granularity.name(), Timestamp.valueOf(before));
+    }
+
+    public SalesBackfillResponse lockBackfill() {
+        return jdbcTemplate.queryForObject("select * from sales_backfill where id = 1 for update", (rs, rowNum) -> toBackfill(rs));
+    }
+
+    public SalesBackfillResponse findBackfill() {
+        return jdbcTemplate.queryForObject("select * from sales_backfill where id = 1", (rs, rowNum) -> toBackfill(rs));
+    }
+
+    public void startBackfill(LocalDateTime cutoff) {
+        jdbcTemplate.execute("truncate table sales_buckets");
+        jdbcTemplate.update("""
+                update sales_backfill set cutoff = ?, status = ?, started_at = ?, finished_at = null, orders = 0
+                where id = 1
+                """,
+            Timestamp.valueOf(cutoff), SalesBackfillResponse.Status.RUNNING.name(), Timestamp.valueOf(cutoff));
+    }
+
+    public boolean finishBackfill(LocalDateTime cutoff, SalesBackfillResponse.Status status, long orders) {
+        return jdbcTemplate.update("update sales_backfill set status = ?, finished_at = ?, orders = ? where id = 1 and cutoff = ?",
+            status.name(), Timestamp.valueOf(LocalDateTime.now()), orders, Timestamp.valueOf(cutoff)) > 0;
+    }
+
+    public long[] findOrderIdRange() {
+        return jdbcTemplate.queryForObject("select coalesce(min(id), 0) as min_id, coalesce(max(id), 0) as max_id from orders",
+            (rs, rowNum) -> new long[] {rs.getLong("min_id"), rs.getLong("max_id")});
+    }
+
+    public long aggregateOrders(long fromId, long toId, LocalDateTime cutoff, OrderSalesHandler handler) {
+        long[] orders = new long[1];
+        jdbcTemplate.query("""
+                select product_id, customer_id, date_trunc('minute', created_at) as minute,
+                       sum(total_price) as revenue, sum(quantity) as quantity, count(*) as orders
+                from orders
+                where id >= ? and id < ? and created_at < ?
+                group by product_id, customer_id, date_trunc('minute', created_at)
+                """,
+            (RowCallbackHandler) rs -> {
+                long count = rs.getLong("orders");
+                orders[0] += count;
+                handler.accept(rs.getLong("product_id"), rs.getLong("customer_id"),
+                    rs.getTimestamp("minute").toLocalDateTime(), rs.getBigDecimal("revenue"), rs.getLong("quantity"), count);
+            },
+            fromId, toId, Timestamp.valueOf(cutoff));
+        return orders[0];
+    }
+
+    private static SalesBackfillResponse toBackfill(ResultSet rs) throws SQLException {
+        Timestamp startedAt = rs.getTimestamp("started_at");
+        Timestamp finishedAt = rs.getTimestamp("finished_at");
+        return new SalesBackfillResponse(
+            SalesBackfillResponse.Status.valueOf(rs.getString("status")),
+            rs.getTimestamp("cutoff").toLocalDateTime(),
+            startedAt != null ? startedAt.toLocalDateTime() : null,
+            finishedAt != null ? finishedAt.toLocalDateTime() : null,
+            rs.getLong("orders"));
+    }
+
+    @FunctionalInterface
+    public interface OrderSalesHandler {
+        void accept(long productId, long customerId, LocalDateTime minute, BigDecimal revenue, long quantity, long orders);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.mirea.docsa2.service;
+
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.util.StripedLongMap;
+
+@Slf4j
+@Component
+public class CorrelationRegistry {
+
+    private final String instanceTag;
+    private final AtomicLong sequence = new AtomicLong();
+    private final StripedLongMap<CompletableFuture<?>> pending = new StripedLongMap<>(64, 256);
+
+    public CorrelationRegistry() {
+        this.instanceTag = Long.toHexString(new SecureRandom().nextLong()) + "-";
+    }
+
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    public long register(CompletableFuture<?> future) {
+        long id = nextId();
+        pending.put(id, future);
+        return id;
+    }
+
+    public boolean remove(long id, CompletableFuture<?> future) {
+        return pending.remove(id, future);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> remove(String correlationId) {
+        if (!issued(correlationId)) {
+            return null;
+        }
+        try {
+            return (CompletableFuture<T>) pending.remove(
+                Long.parseUnsignedLong(correlationId, instanceTag.length(), correlationId.length(), 16));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed correlationId: {}", correlationId);
+            return null;
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public boolean issued(String correlationId) {
+        return correlationId != null && correlationId.startsWith(instanceTag);
+    }
+
+    public String format(long id) {
+        return instanceTag + Long.toHexString(id);
+    }
+}
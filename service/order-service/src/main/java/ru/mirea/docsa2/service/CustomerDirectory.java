@@ -0,0 +1,85 @@
+package ru.mirea.docsa2.service;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.event.CustomerDirectoryEntry;
+import ru.mirea.docsa2.util.LongLongMap;
+
+@Slf4j
+@Component
+public class CustomerDirectory {
+
+    private static final long MISSING = -1L;
+
+    private final LongLongMap customerIdsByUserId = new LongLongMap(1024);
+    private final Map<Integer, Long> partitionLag = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private volatile boolean caughtUp;
+
+    public CustomerDirectory(MeterRegistry meterRegistry) {
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("customer.directory.size", customerIdsByUserId, LongLongMap::size)
+            .description("userId to customerId mappings held in the local customer directory")
+            .register(meterRegistry);
+        Gauge.builder("customer.directory.lag", this, CustomerDirectory::lag)
+            .description("Records the local customer directory is behind the customer-directory topic")
+            .register(meterRegistry);
+        Gauge.builder("customer.directory.ready", this, directory -> directory.isCaughtUp() ? 1 : 0)
+            .description("Whether the local customer directory has caught up and serves lookups")
+            .register(meterRegistry);
+    }
+
+    public void apply(Long userId, CustomerDirectoryEntry entry) {
+        if (entry == null || entry.customerId() == null) {
+            customerIdsByUserId.remove(userId);
+        } else {
+            customerIdsByUserId.put(userId, entry.customerId());
+        }
+    }
+
+    public void updateLag(int partition, long lag) {
+        partitionLag.put(partition, lag);
+    }
+
+    public void markCaughtUp() {
+        partitionLag.replaceAll((partition, lag) -> 0L);
+        if (!caughtUp) {
+            log.info("Customer directory caught up with {} customers", customerIdsByUserId.size());
+            caughtUp = true;
+        }
+    }
+
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    public long lag() {
+        return partitionLag.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public OptionalLong customerIdFor(long userId) {
+        long customerId = customerIdsByUserId.get(userId, MISSING);
+        if (customerId == MISSING) {
+            misses.increment();
+            return OptionalLong.empty();
+        }
+        hits.increment();
+        return OptionalLong.of(customerId);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("customer.directory.lookups")
+            .description("userId to customerId lookups answered by the local customer directory")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,127 @@
+package ru.mirea.docsa2.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.ValidationProperties;
+import ru.mirea.docsa2.event.CustomerValidationResponse;
+import ru.mirea.docsa2.util.BoundedExpiringCache;
+
+@Slf4j
+@Component
+public class CustomerValidationCache {
+
+    private final boolean enabled;
+    private final BoundedExpiringCache<Long, Cached> valid;
+    private final BoundedExpiringCache<Long, Cached> invalid;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    private final Timer age;
+    private final Timer invalidationLag;
+    private final Map<Long, Long> invalidatedAt;
+    private long generation;
+    private long forgottenUpTo;
+
+    public CustomerValidationCache(ValidationProperties properties, MeterRegistry meterRegistry) {
+        ValidationProperties.CustomerCache cache = properties.getCustomerCache();
+        this.enabled = cache.isEnabled();
+        this.valid = new BoundedExpiringCache<>(cache.getMaxSize(), cache.getTtl());
+        this.invalid = new BoundedExpiringCache<>(cache.getMaxSize(), cache.getNegativeTtl());
+        int trackedInvalidations = cache.getTrackedInvalidations();
+        this.invalidatedAt = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                if (size() <= trackedInvalidations) {
+                    return false;
+                }
+                forgottenUpTo = eldest.getValue();
+                return true;
+            }
+        };
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.invalidations = Counter.builder("validation.customer.cache.invalidations")
+            .description("Cached customer validations dropped because customer-service reported a change")
+            .register(meterRegistry);
+        this.age = Timer.builder("validation.customer.cache.age")
+            .description("Age of the cached customer validation served on a cache hit")
+            .register(meterRegistry);
+        this.invalidationLag = Timer.builder("validation.customer.cache.invalidation.lag")
+            .description("Time from a customer change in customer-service to its invalidation here")
+            .register(meterRegistry);
+        Gauge.builder("validation.customer.cache.size", this, CustomerValidationCache::size)
+            .description("Customer validations held in the cache")
+            .register(meterRegistry);
+    }
+
+    public Optional<CustomerValidationResponse> lookup(Long customerId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Cached cached = valid.get(customerId);
+        if (cached == null) {
+            cached = invalid.get(customerId);
+        }
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        age.record(System.nanoTime() - cached.cachedAt, TimeUnit.NANOSECONDS);
+        return Optional.of(cached.response);
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void store(Long customerId, CustomerValidationResponse response, long requestedAt) {
+        if (!enabled || response == null || requestedAt < forgottenUpTo
+                || requestedAt < invalidatedAt.getOrDefault(customerId, Long.MIN_VALUE)) {
+            return;
+        }
+        Cached cached = new Cached(response, System.nanoTime());
+        if (response.valid()) {
+            valid.put(customerId, cached);
+        } else {
+            invalid.put(customerId, cached);
+        }
+    }
+
+    public synchronized void invalidate(Long customerId, long changedAtMillis) {
+        generation++;
+        invalidatedAt.remove(customerId);
+        invalidatedAt.put(customerId, generation);
+        boolean removed = valid.remove(customerId) != null | invalid.remove(customerId) != null;
+        if (removed) {
+            invalidations.increment();
+            log.debug("Invalidated cached validation of customer {}", customerId);
+        }
+        if (changedAtMillis > 0) {
+            invalidationLag.record(Math.max(0, System.currentTimeMillis() - changedAtMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int size() {
+        return valid.size() + invalid.size();
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("validation.customer.cache.lookups")
+            .description("Customer validation cache lookups by outcome")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private record Cached(CustomerValidationResponse response, long cachedAt) {
+    }
+}
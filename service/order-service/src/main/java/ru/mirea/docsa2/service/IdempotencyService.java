@@ -0,0 +1,299 @@
+package ru.mirea.docsa2.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.mirea.docsa2.config.IdempotencyProperties;
+import ru.mirea.docsa2.model.IdempotencyRecord;
+import ru.mirea.docsa2.repository.IdempotencyRecordRepository;
+import ru.mirea.docsa2.util.BoundedExpiringCache;
+
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+    private final long pollNanos;
+    private final long maxWaitNanos;
+    private final BoundedExpiringCache<String, StoredResponse> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller;
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter inFlightHits;
+    private final Counter pendingHits;
+    private final Counter misses;
+    private final Counter conflicts;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = properties.getTtl();
+        this.lease = properties.getPending().getLease();
+        this.pollNanos = properties.getPending().getPollInterval().toNanos();
+        this.maxWaitNanos = properties.getPending().getMaxWait().toNanos();
+        this.completed = new BoundedExpiringCache<>(properties.getMemory().getMaxEntries(), ttl);
+        AtomicInteger pollerThreads = new AtomicInteger();
+        this.poller = Executors.newScheduledThreadPool(properties.getPending().getPollerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-poller-" + pollerThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.memoryHits = lookups(meterRegistry, "memory");
+        this.databaseHits = lookups(meterRegistry, "database");
+        this.inFlightHits = lookups(meterRegistry, "in_flight");
+        this.pendingHits = lookups(meterRegistry, "pending");
+        this.misses = lookups(meterRegistry, "miss");
+        this.conflicts = Counter.builder("idempotency.conflicts")
+            .description("Requests answered 409 because another instance was still executing the same key")
+            .register(meterRegistry);
+        Gauge.builder("idempotency.memory.size", completed, BoundedExpiringCache::size)
+            .description("Completed responses held in the in-memory idempotency tier")
+            .register(meterRegistry);
+        Gauge.builder("idempotency.in.flight", inFlight, ConcurrentHashMap::size)
+            .description("Idempotency keys whose first execution is still running")
+            .register(meterRegistry);
+    }
+
+    public CompletableFuture<ResponseEntity<?>> execute(String key, String fingerprint,
+                                                        Supplier<CompletableFuture<ResponseEntity<?>>> action) {
+        StoredResponse cached = completed.get(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return CompletableFuture.completedFuture(replay(cached, fingerprint));
+        }
+
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            inFlightHits.increment();
+            return running.<ResponseEntity<?>>handle((stored, ex) -> {
+                if (ex == null) {
+                    return replay(stored, fingerprint);
+                }
+                if (unwrap(ex) instanceof StillInProgressException) {
+                    return stillInProgress();
+                }
+                throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+            });
+        }
+
+        try {
+            return claimOrAwait(key, fingerprint, execution, action, System.nanoTime() + maxWaitNanos, false);
+        } catch (RuntimeException e) {
+            fail(key, execution, e);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        try {
+            int purged = repository.deleteExpired(LocalDateTime.now());
+            if (purged > 0) {
+                log.debug("Purged {} expired idempotency records", purged);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge expired idempotency records", e);
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<?>> claimOrAwait(String key, String fingerprint,
+                                                              CompletableFuture<StoredResponse> execution,
+                                                              Supplier<CompletableFuture<ResponseEntity<?>>> action,
+                                                              long waitUntil, boolean waiting) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = repository.findById(key)
+            .filter(existing -> existing.getExpiresAt().isAfter(now))
+            .orElse(null);
+        if (record != null && record.getStatus() != null) {
+            databaseHits.increment();
+            StoredResponse persisted = new StoredResponse(record.getFingerprint(), record.getStatus(), record.getContentType(), record.getBody());
+            completed.put(key, persisted);
+            finish(key, execution, persisted);
+            return CompletableFuture.completedFuture(replay(persisted, fingerprint));
+        }
+        if (record == null) {
+            LocalDateTime claimedUntil = now.plus(lease).truncatedTo(ChronoUnit.MICROS);
+            if (repository.claim(key, fingerprint, claimedUntil, now) == 1) {
+                misses.increment();
+                return run(key, fingerprint, claimedUntil, execution, action);
+            }
+        }
+
+        if (System.nanoTime() - waitUntil >= 0) {
+            conflicts.increment();
+            log.debug("Idempotency key {} is still being executed by another instance", key);
+            fail(key, execution, new StillInProgressException());
+            return CompletableFuture.completedFuture(stillInProgress());
+        }
+        if (!waiting) {
+            pendingHits.increment();
+        }
+        CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+        poller.schedule(() -> {
+            try {
+                claimOrAwait(key, fingerprint, execution, action, waitUntil, true).whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        response.completeExceptionally(ex);
+                    } else {
+                        response.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                fail(key, execution, e);
+                response.completeExceptionally(e);
+            }
+        }, pollNanos, TimeUnit.NANOSECONDS);
+        return response;
+    }
+
+    private CompletableFuture<ResponseEntity<?>> run(String key, String fingerprint, LocalDateTime claimedUntil,
+                                                     CompletableFuture<StoredResponse> execution,
+                                                     Supplier<CompletableFuture<ResponseEntity<?>>> action) {
+        CompletableFuture<ResponseEntity<?>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(key, claimedUntil);
+            throw e;
+        }
+        return response.whenComplete((result, ex) -> {
+            if (ex != null) {
+                release(key, claimedUntil);
+                fail(key, execution, ex);
+                return;
+            }
+            try {
+                StoredResponse stored = toStored(fingerprint, result);
+                if (HttpStatus.valueOf(stored.status()).is5xxServerError()) {
+                    release(key, claimedUntil);
+                } else {
+                    store(key, claimedUntil, stored);
+                }
+                finish(key, execution, stored);
+            } catch (RuntimeException e) {
+                release(key, claimedUntil);
+                fail(key, execution, e);
+            }
+        });
+    }
+
+    private void finish(String key, CompletableFuture<StoredResponse> execution, StoredResponse stored) {
+        inFlight.remove(key, execution);
+        execution.complete(stored);
+    }
+
+    private void fail(String key, CompletableFuture<StoredResponse> execution, Throwable ex) {
+        inFlight.remove(key, execution);
+        execution.completeExceptionally(ex);
+    }
+
+    private void store(String key, LocalDateTime claimedUntil, StoredResponse stored) {
+        completed.put(key, stored);
+        try {
+            if (repository.complete(key, claimedUntil, stored.status(), stored.contentType(), stored.body(),
+                    LocalDateTime.now().plus(ttl)) == 0) {
+                log.warn("Claim on idempotency key {} expired before the response was stored", key);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to persist idempotency record {}, keeping it in memory only", key, e);
+        }
+    }
+
+    private void release(String key, LocalDateTime claimedUntil) {
+        try {
+            repository.release(key, claimedUntil);
+        } catch (Exception e) {
+            log.warn("Failed to release claim on idempotency key {}, it expires in {}", key, lease, e);
+        }
+    }
+
+    private StoredResponse toStored(String fingerprint, ResponseEntity<?> response) {
+        Object body = response.getBody();
+        int status = response.getStatusCode().value();
+        if (body == null) {
+            return new StoredResponse(fingerprint, status, null, null);
+        }
+        if (body instanceof String text) {
+            return new StoredResponse(fingerprint, status, MediaType.TEXT_PLAIN_VALUE, text);
+        }
+        try {
+            return new StoredResponse(fingerprint, status, MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response for idempotency key", e);
+        }
+    }
+
+    private static ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body("Idempotency-Key was already used for a different request");
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.contentType() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.parseMediaType(stored.contentType())).body(stored.body());
+    }
+
+    private static ResponseEntity<?> stillInProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body("A request with this Idempotency-Key is still in progress");
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("idempotency.lookups")
+            .description("Idempotency key lookups by the tier that answered them")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private record StoredResponse(String fingerprint, int status, String contentType, String body) {}
+
+    private static final class StillInProgressException extends RuntimeException {
+
+        private StillInProgressException() {
+            super("Idempotency key is still being executed by another instance", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.mirea.docsa2.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.ConcurrencyLimitProperties;
+import ru.mirea.docsa2.util.GradientConcurrencyLimit;
+
+@Slf4j
+@Component
+public class OrderConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final Duration retryAfter;
+    private final GradientConcurrencyLimit limit;
+    private final Counter accepted;
+    private final Counter rejected;
+
+    public OrderConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.retryAfter = properties.getRetryAfter();
+        this.limit = new GradientConcurrencyLimit(properties.getInitialLimit(), properties.getMinLimit(),
+            properties.getMaxLimit(), properties.getSmoothing(), properties.getLongWindow(),
+            properties.getRttTolerance(), properties.getBackoffRatio());
+        this.accepted = admissionCounter(meterRegistry, "accepted");
+        this.rejected = admissionCounter(meterRegistry, "rejected");
+        Gauge.builder("orders.concurrency.limit", limit, GradientConcurrencyLimit::limit)
+            .description("Current adaptive limit on order creations in flight")
+            .register(meterRegistry);
+        Gauge.builder("orders.concurrency.in.flight", limit, GradientConcurrencyLimit::inFlight)
+            .description("Order creations currently in flight")
+            .register(meterRegistry);
+    }
+
+    public Optional<Permit> tryAcquire() {
+        if (!enabled) {
+            return Optional.of(new Permit(System.nanoTime(), 0, false));
+        }
+        int inFlight = limit.inFlight();
+        if (!limit.tryAcquire()) {
+            rejected.increment();
+            log.debug("Shedding order creation: {} in flight, limit {}", inFlight, limit.limit());
+            return Optional.empty();
+        }
+        accepted.increment();
+        return Optional.of(new Permit(System.nanoTime(), inFlight + 1, true));
+    }
+
+    public void release(Permit permit, boolean dropped) {
+        if (permit.counted()) {
+            limit.release(System.nanoTime() - permit.startNanos(), permit.inFlight(), dropped);
+        }
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    private static Counter admissionCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("orders.concurrency.admissions")
+            .description("Order creation requests by admission outcome under the adaptive concurrency limit")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    public record Permit(long startNanos, int inFlight, boolean counted) {}
+}
@@ -0,0 +1,61 @@
+package ru.mirea.docsa2.service;
+
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.model.Order;
+import ru.mirea.docsa2.model.OrderOutboxEvent;
+import ru.mirea.docsa2.repository.OrderOutboxRepository;
+import ru.mirea.docsa2.repository.OrderRepository;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderService {
+
+    private final OrderRepository orderRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public Order createOrder(Order order) {
+        Order saved = orderRepository.save(order);
+        orderOutboxRepository.save(toOutboxEvent(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Order> createOrders(List<Order> orders) {
+        List<Order> saved = orderRepository.saveAll(orders);
+        orderOutboxRepository.saveAll(saved.stream().map(this::toOutboxEvent).toList());
+        return saved;
+    }
+
+    private OrderOutboxEvent toOutboxEvent(Order order) {
+        OrderCreatedEvent event = new OrderCreatedEvent(
+            order.getId(),
+            order.getCustomerId(),
+            order.getProductId(),
+            order.getQuantity(),
+            order.getTotalPrice(),
+            order.getCreatedAt(),
+            order.getReservationId()
+        );
+        log.debug("Queued order created event in outbox: {}", event);
+        return new OrderOutboxEvent(order.getId(), toJson(event));
+    }
+
+    private String toJson(OrderCreatedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order created event " + event.orderId(), e);
+        }
+    }
+}
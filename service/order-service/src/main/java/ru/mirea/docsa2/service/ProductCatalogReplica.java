@@ -0,0 +1,105 @@
+package ru.mirea.docsa2.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.ValidationProperties;
+import ru.mirea.docsa2.event.ProductChangedEvent;
+import ru.mirea.docsa2.event.ProductValidationResponse;
+
+@Slf4j
+@Component
+public class ProductCatalogReplica {
+
+    private final boolean enabled;
+    private final int lowStockThreshold;
+    private final Map<Long, ProductChangedEvent> products = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> partitionLag = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private volatile boolean caughtUp;
+
+    public ProductCatalogReplica(ValidationProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.getCatalog().isEnabled();
+        this.lowStockThreshold = properties.getCatalog().getLowStockThreshold();
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.bypasses = lookupCounter(meterRegistry, "bypass");
+        Gauge.builder("catalog.replica.size", products, Map::size)
+            .description("Products held in the local catalog replica")
+            .register(meterRegistry);
+        Gauge.builder("catalog.replica.lag", this, ProductCatalogReplica::lag)
+            .description("Records the local catalog replica is behind the product-catalog topic")
+            .register(meterRegistry);
+        Gauge.builder("catalog.replica.ready", this, replica -> replica.isCaughtUp() ? 1 : 0)
+            .description("Whether the local catalog replica has caught up and serves lookups")
+            .register(meterRegistry);
+    }
+
+    public void apply(Long productId, ProductChangedEvent event) {
+        if (event == null) {
+            products.remove(productId);
+        } else {
+            products.put(productId, event);
+        }
+    }
+
+    public void updateLag(int partition, long lag) {
+        partitionLag.put(partition, lag);
+    }
+
+    public void markCaughtUp() {
+        partitionLag.replaceAll((partition, lag) -> 0L);
+        if (!caughtUp) {
+            log.info("Product catalog replica caught up with {} products", products.size());
+            caughtUp = true;
+        }
+    }
+
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    public long lag() {
+        return partitionLag.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Optional<ProductValidationResponse> lookup(Long productId, Integer quantity) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        ProductChangedEvent product = caughtUp ? products.get(productId) : null;
+        if (product == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (product.quantity() == null || product.quantity() - quantity < lowStockThreshold) {
+            bypasses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(new ProductValidationResponse(
+            null,
+            productId,
+            true,
+            product.name(),
+            product.price(),
+            null,
+            null
+        ));
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("catalog.replica.lookups")
+            .description("Product validations answered from the local catalog replica")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.mirea.docsa2.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mirea.docsa2.config.SalesAnalyticsProperties;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.repository.SalesAnalyticsRepository;
+
+@Slf4j
+@Service
+public class SalesAggregator {
+
+    private final SalesAnalyticsRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesAnalyticsProperties properties;
+    private final long checkpointIntervalNanos;
+    private final List<OrderCreatedEvent> pending = new ArrayList<>();
+    private final Map<Integer, Long> nextOffsets = new HashMap<>();
+    private final Counter appliedEvents;
+    private final Counter skippedEvents;
+    private final Timer flushes;
+    private long lastFlushNanos = System.nanoTime();
+
+    public SalesAggregator(SalesAnalyticsRepository repository, PlatformTransactionManager transactionManager,
+                           SalesAnalyticsProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.checkpointIntervalNanos = properties.getCheckpointInterval().toNanos();
+        this.appliedEvents = events(meterRegistry, "applied");
+        this.skippedEvents = events(meterRegistry, "skipped");
+        this.flushes = Timer.builder("sales.analytics.flush")
+            .description("Time to checkpoint pending sales aggregates and offsets")
+            .register(meterRegistry);
+        Gauge.builder("sales.analytics.pending", this, SalesAggregator::pendingCount)
+            .description("Order created events aggregated in memory and not yet checkpointed")
+            .register(meterRegistry);
+    }
+
+    public Map<Integer, Long> committedOffsets() {
+        return repository.findOffsets();
+    }
+
+    public synchronized void accept(int partition, long offset, OrderCreatedEvent event) {
+        if (isDue()) {
+            flush();
+        }
+        if (event != null) {
+            pending.add(event);
+        }
+        nextOffsets.put(partition, offset + 1);
+    }
+
+    public synchronized void flushIfDue() {
+        if (!isDue()) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Failed to checkpoint {} pending sales events, will retry", pending.size(), e);
+        }
+    }
+
+    public synchronized void release(Collection<Integer> partitions) {
+        try {
+            flush();
+            nextOffsets.keySet().removeAll(partitions);
+        } catch (Exception e) {
+            log.warn("Failed to checkpoint {} pending sales events on rebalance, they will be re-read from the last checkpoint",
+                pending.size(), e);
+            pending.clear();
+            nextOffsets.clear();
+        }
+    }
+
+    public synchronized void flush() {
+        if (nextOffsets.isEmpty()) {
+            return;
+        }
+        flushes.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime cutoff = repository.lockCutoff();
+            SalesRollup rollup = SalesRollup.retaining(properties.getRetention(), LocalDateTime.now());
+            int applied = 0;
+            for (OrderCreatedEvent event : pending) {
+                if (event.createdAt() == null || event.createdAt().isBefore(cutoff)) {
+                    continue;
+                }
+                rollup.add(event.productId(), event.customerId(), event.createdAt(), event.totalPrice(), event.quantity(), 1);
+                applied++;
+            }
+            if (!rollup.isEmpty()) {
+                repository.addAll(rollup.buckets());
+            }
+            repository.saveOffsets(Map.copyOf(nextOffsets));
+            appliedEvents.increment(applied);
+            skippedEvents.increment(pending.size() - applied);
+            log.debug("Checkpointed {} sales events into {} buckets", applied, rollup.buckets().size());
+        }));
+        pending.clear();
+        lastFlushNanos = System.nanoTime();
+    }
+
+    private boolean isDue() {
+        return pending.size() >= properties.getMaxPending()
+            || (!nextOffsets.isEmpty() && System.nanoTime() - lastFlushNanos >= checkpointIntervalNanos);
+    }
+
+    private synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("sales.analytics.events")
+            .description("Order created events consumed by the sales aggregator")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.mirea.docsa2.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mirea.docsa2.config.SalesAnalyticsProperties;
+import ru.mirea.docsa2.dto.SalesBackfillResponse;
+import ru.mirea.docsa2.dto.SalesBucketResponse;
+import ru.mirea.docsa2.dto.SalesTotalResponse;
+import ru.mirea.docsa2.model.SalesDimension;
+import ru.mirea.docsa2.model.SalesGranularity;
+import ru.mirea.docsa2.repository.SalesAnalyticsRepository;
+
+@Slf4j
+@Service
+public class SalesAnalyticsService {
+
+    private final SalesAnalyticsRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesAnalyticsProperties properties;
+    private final Executor salesBackfillExecutor;
+
+    public SalesAnalyticsService(SalesAnalyticsRepository repository, PlatformTransactionManager transactionManager,
+                                 SalesAnalyticsProperties properties, Executor salesBackfillExecutor) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.salesBackfillExecutor = salesBackfillExecutor;
+    }
+
+    public List<SalesBucketResponse> getSeries(SalesDimension dimension, long entityId, SalesGranularity granularity,
+                                               LocalDateTime from, LocalDateTime to) {
+        return repository.findSeries(dimension, granularity, entityId, from, to);
+    }
+
+    public List<SalesTotalResponse> getTotals(SalesDimension dimension, SalesGranularity granularity,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        return repository.findTotals(dimension, granularity, from, to, limit);
+    }
+
+    public SalesBackfillResponse getBackfill() {
+        return repository.findBackfill();
+    }
+
+    public Optional<SalesBackfillResponse> rebuild(boolean force) {
+        SalesBackfillResponse started = transactionTemplate.execute(status -> {
+            SalesBackfillResponse current = repository.lockBackfill();
+            if (current.status() == SalesBackfillResponse.Status.RUNNING && !force) {
+                return null;
+            }
+            LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            repository.startBackfill(cutoff);
+            return new SalesBackfillResponse(SalesBackfillResponse.Status.RUNNING, cutoff, cutoff, null, 0);
+        });
+        if (started == null) {
+            return Optional.empty();
+        }
+        log.info("Started sales analytics backfill of orders created before {}", started.cutoff());
+        CompletableFuture.supplyAsync(repository::findOrderIdRange, salesBackfillExecutor)
+            .thenCompose(range -> backfill(range[0], range[1], started.cutoff()))
+            .whenComplete((orders, ex) -> finish(started.cutoff(), orders, ex));
+        return Optional.of(started);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.sales.retention.purge-interval:1h}")
+    public void purgeExpired() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            SalesAnalyticsProperties.Retention retention = properties.getRetention();
+            int purged = repository.deleteBucketsBefore(SalesGranularity.MINUTE, now.minus(retention.getMinute()))
+                + repository.deleteBucketsBefore(SalesGranularity.HOUR, now.minus(retention.getHour()));
+            if (purged > 0) {
+                log.debug("Purged {} expired sales buckets", purged);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge expired sales buckets", e);
+        }
+    }
+
+    private CompletableFuture<Long> backfill(long minId, long maxId, LocalDateTime cutoff) {
+        int chunkSize = properties.getBackfill().getChunkSize();
+        List<CompletableFuture<Long>> chunks = new ArrayList<>();
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            long chunkFrom = fromId;
+            long chunkTo = Math.min(fromId + chunkSize, maxId + 1);
+            chunks.add(CompletableFuture.supplyAsync(() -> backfillChunk(chunkFrom, chunkTo, cutoff), salesBackfillExecutor));
+        }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+            .thenApply(ignored -> chunks.stream().mapToLong(CompletableFuture::join).sum());
+    }
+
+    private long backfillChunk(long fromId, long toId, LocalDateTime cutoff) {
+        Long orders = transactionTemplate.execute(status -> {
+            if (!cutoff.equals(repository.lockCutoff())) {
+                return 0L;
+            }
+            SalesRollup rollup = SalesRollup.retaining(properties.getRetention(), LocalDateTime.now());
+            long aggregated = repository.aggregateOrders(fromId, toId, cutoff, rollup::add);
+            if (!rollup.isEmpty()) {
+                repository.addAll(rollup.buckets());
+            }
+            return aggregated;
+        });
+        log.debug("Backfilled {} orders with ids in [{}, {})", orders, fromId, toId);
+        return orders != null ? orders : 0L;
+    }
+
+    private void finish(LocalDateTime cutoff, Long orders, Throwable ex) {
+        SalesBackfillResponse.Status status = ex == null ? SalesBackfillResponse.Status.COMPLETED : SalesBackfillResponse.Status.FAILED;
+        try {
+            if (!repository.finishBackfill(cutoff, status, orders != null ? orders : 0L)) {
+                log.info("Sales analytics backfill with cutoff {} was superseded", cutoff);
+            } else if (ex != null) {
+                log.error("Sales analytics backfill with cutoff {} failed", cutoff, ex);
+            } else {
+                log.info("Sales analytics backfill with cutoff {} aggregated {} orders", cutoff, orders);
+            }
+        } catch (Exception e) {
+            log.error("Failed to record sales analytics backfill status {}", status, e);
+        }
+    }
+}
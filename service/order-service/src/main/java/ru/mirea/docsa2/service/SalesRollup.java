@@ -0,0 +1,54 @@
+package ru.mirea.docsa2.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import ru.mirea.docsa2.config.SalesAnalyticsProperties;
+import ru.mirea.docsa2.model.SalesBucketKey;
+import ru.mirea.docsa2.model.SalesDimension;
+import ru.mirea.docsa2.model.SalesGranularity;
+import ru.mirea.docsa2.model.SalesTotals;
+
+public class SalesRollup {
+
+    private final Map<SalesGranularity, LocalDateTime> horizons;
+    private final Map<SalesBucketKey, SalesTotals> buckets = new HashMap<>();
+
+    public SalesRollup(Map<SalesGranularity, LocalDateTime> horizons) {
+        this.horizons = horizons;
+    }
+
+    public static SalesRollup retaining(SalesAnalyticsProperties.Retention retention, LocalDateTime now) {
+        Map<SalesGranularity, LocalDateTime> horizons = new EnumMap<>(SalesGranularity.class);
+        horizons.put(SalesGranularity.MINUTE, SalesGranularity.MINUTE.truncate(now.minus(retention.getMinute())));
+        horizons.put(SalesGranularity.HOUR, SalesGranularity.HOUR.truncate(now.minus(retention.getHour())));
+        return new SalesRollup(horizons);
+    }
+
+    public void add(long productId, long customerId, LocalDateTime at, BigDecimal revenue, long quantity, long orders) {
+        for (SalesGranularity granularity : SalesGranularity.values()) {
+            LocalDateTime bucketStart = granularity.truncate(at);
+            LocalDateTime horizon = horizons.get(granularity);
+            if (horizon != null && bucketStart.isBefore(horizon)) {
+                continue;
+            }
+            bucket(SalesDimension.PRODUCT, granularity, productId, bucketStart).add(revenue, quantity, orders);
+            bucket(SalesDimension.CUSTOMER, granularity, customerId, bucketStart).add(revenue, quantity, orders);
+        }
+    }
+
+    public Map<SalesBucketKey, SalesTotals> buckets() {
+        return buckets;
+    }
+
+    public boolean isEmpty() {
+        return buckets.isEmpty();
+    }
+
+    private SalesTotals bucket(SalesDimension dimension, SalesGranularity granularity, long entityId, LocalDateTime bucketStart) {
+        return buckets.computeIfAbsent(new SalesBucketKey(dimension, granularity, entityId, bucketStart), key -> new SalesTotals());
+    }
+}
@@ -0,0 +1,8 @@
+package ru.mirea.docsa2.service;
+
+public class ValidationCapacityExceededException extends RuntimeException {
+
+    public ValidationCapacityExceededException(int maxInFlight) {
+        super("Too many validations in flight (limit " + maxInFlight + ")");
+    }
+}
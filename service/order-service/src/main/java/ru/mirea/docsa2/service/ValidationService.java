@@ -1,86 +1,672 @@
 package ru.mirea.docsa2.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.stereotype.Service;
 import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.config.ReplyRouting;
+import ru.mirea.docsa2.config.ValidationProperties;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
+import ru.mirea.docsa2.event.ProductValidationBatchResponse;
 import ru.mirea.docsa2.event.ProductValidationResponse;
+import ru.mirea.docsa2.event.StockReservationReleased;
 import ru.mirea.docsa2.event.ValidateCustomerRequest;
+import ru.mirea.docsa2.event.ValidateProductBatchRequest;
 import ru.mirea.docsa2.event.ValidateProductRequest;
+import ru.mirea.docsa2.util.AdaptiveTimeout;
+import ru.mirea.docsa2.util.HashedWheelTimer;
+import ru.mirea.docsa2.util.HedgeBudget;
+import ru.mirea.docsa2.util.MicroBatcher;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ValidationService {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final Map<String, CompletableFuture<ProductValidationResponse>> productValidationFutures = new ConcurrentHashMap<>();
-    private final Map<String, CompletableFuture<CustomerValidationResponse>> customerValidationFutures = new ConcurrentHashMap<>();
+    private final ReplyRouting replyRouting;
+    private final ProductCatalogReplica productCatalogReplica;
+    private final CustomerValidationCache customerValidationCache;
+    private final CorrelationRegistry correlationRegistry;
+    private final ScheduledExecutorService batchScheduler;
+    private final MicroBatcher<ProductFlight> productBatcher;
+    private final Map<Long, ProductFlight> productFlights = new HashMap<>();
+    private final Map<Long, CompletableFuture<CustomerValidationResponse>> customerFlights = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timeoutTimer;
+    private final Executor hedgeExecutor;
+    private final AdaptiveTimeout productTimeout;
+    private final AdaptiveTimeout customerTimeout;
+    private final Hedging productHedging;
+    private final Hedging customerHedging;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter productTimeouts;
+    private final Counter customerTimeouts;
+    private final Counter rejections;
+    private final Counter productJoins;
+    private final Counter customerJoins;
+    private final Counter productSplits;
+    private final Counter unroutedRequests;
+
+    public ValidationService(KafkaTemplate<String, Object> kafkaTemplate, ReplyRouting replyRouting,
+                             CorrelationRegistry correlationRegistry, ProductCatalogReplica productCatalogReplica,
+                             CustomerValidationCache customerValidationCache, ValidationProperties properties,
+                             MeterRegistry meterRegistry, Executor orderTaskExecutor) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.replyRouting = replyRouting;
+        this.correlationRegistry = correlationRegistry;
+        this.productCatalogReplica = productCatalogReplica;
+        this.customerValidationCache = customerValidationCache;
+
+        ValidationProperties.Pending pending = properties.getPending();
+        this.timeoutTimer = new HashedWheelTimer("validation-timeout-wheel", pending.getTickDuration(), pending.getWheelSize());
+        this.hedgeExecutor = orderTaskExecutor;
+        this.productTimeout = adaptiveTimeout(properties, meterRegistry, "product");
+        this.customerTimeout = adaptiveTimeout(properties, meterRegistry, "customer");
+        this.productHedging = new Hedging(properties.getHedging(), properties.getHedging().isProducts(), productTimeout,
+            meterRegistry, "product");
+        this.customerHedging = new Hedging(properties.getHedging(), true, customerTimeout, meterRegistry, "customer");
+        this.maxInFlight = pending.getMaxInFlight();
+        this.productTimeouts = timeoutCounter(meterRegistry, "product");
+        this.unroutedRequests = Counter.builder("validation.reply.unrouted")
+            .description("Validation requests sent without a reply partition because this pod owns none of the reply topic")
+            .register(meterRegistry);
+        this.customerTimeouts = timeoutCounter(meterRegistry, "customer");
+        this.rejections = Counter.builder("validation.pending.rejections")
+            .description("Validations rejected because the pending-request table was full")
+            .register(meterRegistry);
+        this.productJoins = joinCounter(meterRegistry, "product");
+        this.customerJoins = joinCounter(meterRegistry, "customer");
+        this.productSplits = Counter.builder("validation.singleflight.splits")
+            .description("Shared product validations re-sent per caller after the combined quantity was rejected")
+            .register(meterRegistry);
+        Gauge.builder("validation.pending", inFlight, AtomicInteger::get)
+            .description("Validations waiting for a reply")
+            .register(meterRegistry);
+        TimeGauge.builder("validation.timer.tick.lag", timeoutTimer, TimeUnit.MILLISECONDS,
+                timer -> timer.tickLag(TimeUnit.MILLISECONDS))
+            .description("How late the validation timeout wheel processed its last tick")
+            .register(meterRegistry);
+
+        ValidationProperties.ProductBatch batch = properties.getProductBatch();
+        if (batch.isEnabled()) {
+            this.batchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-validation-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.productBatcher = new MicroBatcher<>(
+                batch.getMaxSize(),
+                batch.getWindow(),
+                this::sendProductBatch,
+                batchScheduler,
+                DistributionSummary.builder("validation.product.batch.size")
+                    .description("Product validation requests per batch record")
+                    .register(meterRegistry),
+                Timer.builder("validation.product.batch.delay")
+                    .description("Time a product validation request waits before its batch is sent")
+                    .register(meterRegistry)
+            );
+        } else {
+            this.batchScheduler = null;
+            this.productBatcher = null;
+        }
+    }
 
     public CompletableFuture<ProductValidationResponse> validateProduct(Long productId, Integer quantity) {
-        String correlationId = UUID.randomUUID().toString();
+        Optional<ProductValidationResponse> local = productCatalogReplica.lookup(productId, quantity);
+        if (local.isPresent()) {
+            log.debug("Product {} validated from local catalog replica", productId);
+            return CompletableFuture.completedFuture(local.get());
+        }
+
         CompletableFuture<ProductValidationResponse> future = new CompletableFuture<>();
-        
-        productValidationFutures.put(correlationId, future);
-        
-        ValidateProductRequest request = new ValidateProductRequest(correlationId, productId, quantity);
-        log.info("Sending product validation request: {}", request);
-        kafkaTemplate.send(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, correlationId, request);
-        
-        future.orTimeout(5, TimeUnit.SECONDS).exceptionally(ex -> {
-            productValidationFutures.remove(correlationId);
-            log.error("Product validation timeout for correlationId: {}", correlationId);
-            return null;
-        });
-        
+        joinFlight(productId, List.of(new ProductFlight.Caller(quantity, future, System.nanoTime() + productTimeout.current().toNanos())));
         return future;
     }
 
     public CompletableFuture<CustomerValidationResponse> validateCustomer(Long customerId) {
-        String correlationId = UUID.randomUUID().toString();
+        Optional<CustomerValidationResponse> cached = customerValidationCache.lookup(customerId);
+        if (cached.isPresent()) {
+            log.debug("Customer {} validated from cache", customerId);
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
         CompletableFuture<CustomerValidationResponse> future = new CompletableFuture<>();
-        
-        customerValidationFutures.put(correlationId, future);
-        
+        CompletableFuture<CustomerValidationResponse> shared = customerFlights.putIfAbsent(customerId, future);
+        if (shared != null) {
+            customerJoins.increment();
+            log.debug("Customer {} validation joined in-flight request", customerId);
+            return shared.copy();
+        }
+        String correlationId;
+        try {
+            correlationId = register(future, customerTimeouts, customerTimeout, "Customer");
+        } catch (ValidationCapacityExceededException e) {
+            customerFlights.remove(customerId, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        future.whenComplete((response, ex) -> customerFlights.remove(customerId, future));
+        long generation = customerValidationCache.generation();
+        future.thenAccept(response -> customerValidationCache.store(customerId, response, generation));
+
         ValidateCustomerRequest request = new ValidateCustomerRequest(correlationId, customerId);
         log.info("Sending customer validation request: {}", request);
-        kafkaTemplate.send(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, correlationId, request);
-        
-        future.orTimeout(5, TimeUnit.SECONDS).exceptionally(ex -> {
-            customerValidationFutures.remove(correlationId);
-            log.error("Customer validation timeout for correlationId: {}", correlationId);
-            return null;
-        });
-        
+        String key = customerId.toString();
+        send(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, key, request, replyRouting.customerReplyTopic(),
+            customerTimeout.current());
+        hedgeLater(customerHedging, KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, key, replyRouting.customerReplyTopic(),
+            () -> future.isDone() ? List.of() : List.of(future),
+            hedgeIds -> new ValidateCustomerRequest(hedgeIds.get(future), customerId), response -> { });
+
         return future;
     }
 
+    public void releaseReservation(ProductValidationResponse response, int quantity) {
+        if (response == null || response.reservationId() == null || quantity <= 0) {
+            return;
+        }
+        StockReservationReleased release = new StockReservationReleased(response.reservationId(), response.productId(), quantity);
+        log.debug("Releasing stock reservation: {}", release);
+        kafkaTemplate.send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, response.reservationId(), release);
+    }
+
     public void handleProductValidationResponse(ProductValidationResponse response) {
+        if (!correlationRegistry.issued(response.correlationId())) {
+            log.debug("Ignoring product validation response {} for another pod", response.correlationId());
+            return;
+        }
         log.info("Received product validation response: {}", response);
-        CompletableFuture<ProductValidationResponse> future = productValidationFutures.remove(response.correlationId());
-        if (future != null) {
-            future.complete(response);
-        } else {
+        CompletableFuture<ProductValidationResponse> future = correlationRegistry.remove(response.correlationId());
+        if (future == null) {
             log.warn("No pending future found for product validation correlationId: {}", response.correlationId());
+            releaseReservation(response, Integer.MAX_VALUE);
+        } else if (!future.complete(response)) {
+            log.debug("Product validation {} was abandoned before its reply arrived", response.correlationId());
+            releaseReservation(response, Integer.MAX_VALUE);
         }
     }
 
+    public void handleProductValidationBatchResponse(ProductValidationBatchResponse batch) {
+        log.info("Received product validation batch {} with {} responses", batch.batchId(), batch.responses().size());
+        batch.responses().forEach(this::handleProductValidationResponse);
+    }
+
     public void handleCustomerValidationResponse(CustomerValidationResponse response) {
+        if (!correlationRegistry.issued(response.correlationId())) {
+            log.debug("Ignoring customer validation response {} for another pod", response.correlationId());
+            return;
+        }
         log.info("Received customer validation response: {}", response);
-        CompletableFuture<CustomerValidationResponse> future = customerValidationFutures.remove(response.correlationId());
+        CompletableFuture<CustomerValidationResponse> future = correlationRegistry.remove(response.correlationId());
         if (future != null) {
             future.complete(response);
         } else {
             log.warn("No pending future found for customer validation correlationId: {}", response.correlationId());
         }
     }
-}
 
+    @PreDestroy
+    public void shutdown() {
+        if (productBatcher != null) {
+            productBatcher.flush();
+            batchScheduler.shutdown();
+        }
+        timeoutTimer.stop();
+    }
+
+    private String register(CompletableFuture<?> future, Counter timeouts, AdaptiveTimeout latency, String type) {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlight) {
+                rejections.increment();
+                throw new ValidationCapacityExceededException(maxInFlight);
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        long id = correlationRegistry.register(future);
+        String correlationId = correlationRegistry.format(id);
+        long start = System.nanoTime();
+        Duration timeoutAfter = latency.current();
+
+        HashedWheelTimer.Timeout timeout = timeoutTimer.newTimeout(() -> {
+            if (correlationRegistry.remove(id, future)) {
+                timeouts.increment();
+                log.error("{} validation timeout for correlationId: {}", type, correlationId);
+                future.completeExceptionally(new TimeoutException(type + " validation timeout after " + timeoutAfter.toMillis() + "ms"));
+            }
+        }, timeoutAfter);
+        future.whenComplete((response, ex) -> {
+            timeout.cancel();
+            if (ex == null) {
+                latency.record(System.nanoTime() - start);
+            } else if (ex instanceof TimeoutException) {
+                latency.recordTimeout(timeoutAfter);
+            }
+            correlationRegistry.remove(id, future);
+            inFlight.decrementAndGet();
+        });
+        return correlationId;
+    }
+
+    private void joinFlight(Long productId, List<ProductFlight.Caller> callers) {
+        List<ProductFlight.Caller> overflowed = new ArrayList<>(0);
+        ProductFlight started = null;
+        synchronized (productFlights) {
+            ProductFlight flight = productFlights.get(productId);
+            if (flight != null) {
+                for (ProductFlight.Caller caller : callers) {
+                    if (!flight.join(caller)) {
+                        overflowed.add(caller);
+                    }
+                }
+                productJoins.increment(callers.size() - overflowed.size());
+                log.debug("Product {} validation joined pending request {}", productId, flight.correlationId);
+            } else {
+                CompletableFuture<ProductValidationResponse> shared = new CompletableFuture<>();
+                started = new ProductFlight(register(shared, productTimeouts, productTimeout, "Product"), productId, shared);
+                callers.forEach(started::join);
+                productJoins.increment(callers.size() - 1);
+                if (productBatcher == null) {
+                    started.seal();
+                }
+                productFlights.put(productId, started);
+                ProductFlight completed = started;
+                shared.whenComplete((response, ex) -> completeFlight(completed, response, ex));
+            }
+        }
+        overflowed.forEach(this::expireOverflow);
+        if (started == null) {
+            return;
+        }
+        if (productBatcher == null) {
+            sendProduct(started.correlationId, productId, started.requested, started.shared);
+        } else {
+            log.debug("Queueing product validation request {} for product {}", started.correlationId, productId);
+            productBatcher.add(started);
+        }
+    }
+
+    private void expireOverflow(ProductFlight.Caller caller) {
+        long remaining = Math.max(caller.deadline - System.nanoTime(), 0);
+        HashedWheelTimer.Timeout timeout = timeoutTimer.newTimeout(() -> {
+            if (caller.future.completeExceptionally(new TimeoutException("Product validation timeout while waiting for a shared request"))) {
+                productTimeouts.increment();
+            }
+        }, Duration.ofNanos(remaining));
+        caller.future.whenComplete((response, ex) -> timeout.cancel());
+    }
+
+    private CompletableFuture<ProductValidationResponse> requestProduct(Long productId, int quantity) {
+        CompletableFuture<ProductValidationResponse> future = new CompletableFuture<>();
+        sendProduct(register(future, productTimeouts, productTimeout, "Product"), productId, quantity, future);
+        return future;
+    }
+
+    private void sendProduct(String correlationId, Long productId, int quantity, CompletableFuture<ProductValidationResponse> future) {
+        ValidateProductRequest request = new ValidateProductRequest(correlationId, productId, quantity);
+        log.info("Sending product validation request: {}", request);
+        String key = productId.toString();
+        send(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, key, request, replyRouting.productReplyTopic(),
+            productTimeout.current());
+        hedgeLater(productHedging, KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, key, replyRouting.productReplyTopic(),
+            () -> future.isDone() ? List.of() : List.of(future),
+            hedgeIds -> new ValidateProductRequest(hedgeIds.get(future), productId, quantity),
+            response -> releaseReservation(response, Integer.MAX_VALUE));
+    }
+
+    private void completeFlight(ProductFlight flight, ProductValidationResponse response, Throwable ex) {
+        List<ProductFlight.Caller> callers;
+        List<ProductFlight.Caller> overflow;
+        synchronized (productFlights) {
+            productFlights.remove(flight.productId, flight);
+            callers = flight.callers;
+            overflow = flight.overflow;
+        }
+        if (ex != null) {
+            callers.forEach(caller -> caller.future.completeExceptionally(ex));
+            overflow.forEach(caller -> caller.future.completeExceptionally(ex));
+            return;
+        }
+        completeOverflow(flight.productId, overflow, response);
+        if (response.valid() || callers.size() == 1 || response.productName() == null) {
+            callers.forEach(caller -> {
+                if (!caller.future.complete(response)) {
+                    releaseReservation(response, caller.quantity);
+                }
+            });
+            return;
+        }
+        productSplits.increment();
+        log.debug("Combined quantity {} of product {} was rejected, validating {} callers separately",
+            flight.quantity, flight.productId, callers.size());
+        for (ProductFlight.Caller caller : callers) {
+            try {
+                requestProduct(flight.productId, caller.quantity).whenComplete((single, singleEx) -> {
+                    if (singleEx != null) {
+                        caller.future.completeExceptionally(singleEx);
+                    } else if (!caller.future.complete(single)) {
+                        releaseReservation(single, caller.quantity);
+                    }
+                });
+            } catch (ValidationCapacityExceededException e) {
+                caller.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void completeOverflow(Long productId, List<ProductFlight.Caller> waiting, ProductValidationResponse response) {
+        List<ProductFlight.Caller> overflow = waiting.stream().filter(caller -> !caller.future.isDone()).toList();
+        if (overflow.isEmpty()) {
+            return;
+        }
+        if (!response.valid() && response.productName() == null) {
+            productJoins.increment(overflow.size());
+            overflow.forEach(caller -> caller.future.complete(response));
+            return;
+        }
+        log.debug("Validating {} callers that joined product {} after its request was sent", overflow.size(), productId);
+        try {
+            joinFlight(productId, overflow);
+        } catch (ValidationCapacityExceededException e) {
+            overflow.forEach(caller -> caller.future.completeExceptionally(e));
+        }
+    }
+
+    private static AdaptiveTimeout adaptiveTimeout(ValidationProperties properties, MeterRegistry meterRegistry, String type) {
+        ValidationProperties.AdaptiveTimeout adaptive = properties.getAdaptiveTimeout();
+        Duration initial = properties.getPending().getTimeout();
+        AdaptiveTimeout timeout = adaptive.isEnabled()
+            ? new AdaptiveTimeout(initial, adaptive.getPercentile(), adaptive.getMultiplier(), adaptive.getFloor(),
+                adaptive.getCeiling(), adaptive.getMinSamples(), adaptive.getWindow(), adaptive.getRefresh())
+            : new AdaptiveTimeout(initial, 1, 1, initial, initial, Long.MAX_VALUE, adaptive.getWindow(), adaptive.getRefresh());
+        TimeGauge.builder("validation.timeout", timeout, TimeUnit.MILLISECONDS, t -> t.current().toMillis())
+            .description("Current reply timeout for validation requests, derived from recent round-trip latency")
+            .tag("type", type)
+            .register(meterRegistry);
+        return timeout;
+    }
+
+    private static Counter joinCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("validation.singleflight.saved")
+            .description("Validation requests not sent because the caller joined an in-flight request for the same entity")
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    private static Counter timeoutCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("validation.timeouts")
+            .description("Validations that got no reply before the timeout")
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    private void sendProductBatch(List<ProductFlight> flights) {
+        synchronized (productFlights) {
+            flights.forEach(ProductFlight::seal);
+        }
+        int partitions = partitionCount(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC);
+        if (partitions < 2) {
+            sendProductBatch(null, flights);
+            return;
+        }
+        Map<Integer, List<ProductFlight>> byPartition = new LinkedHashMap<>();
+        for (ProductFlight flight : flights) {
+            byPartition.computeIfAbsent(partitionOf(flight.productId.toString(), partitions), partition -> new ArrayList<>())
+                .add(flight);
+        }
+        byPartition.forEach(this::sendProductBatch);
+    }
+
+    private void sendProductBatch(Integer partition, List<ProductFlight> flights) {
+        List<ValidateProductRequest> requests = new ArrayList<>(flights.size());
+        for (ProductFlight flight : flights) {
+            requests.add(new ValidateProductRequest(flight.correlationId, flight.productId, flight.requested));
+        }
+        String batchId = correlationRegistry.format(correlationRegistry.nextId());
+        String key = flights.get(0).productId.toString();
+        log.info("Sending product validation batch {} with {} requests", batchId, requests.size());
+        send(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC, partition, key, new ValidateProductBatchRequest(batchId, requests),
+            replyRouting.productBatchReplyTopic(), productTimeout.current());
+
+        hedgeLater(productHedging, KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC, key, replyRouting.productBatchReplyTopic(),
+            () -> {
+                List<CompletableFuture<ProductValidationResponse>> pending = new ArrayList<>();
+                for (ProductFlight flight : flights) {
+                    if (!flight.shared.isDone()) {
+                        pending.add(flight.shared);
+                    }
+                }
+                return pending;
+            },
+            hedgeIds -> {
+                List<ValidateProductRequest> hedged = new ArrayList<>(hedgeIds.size());
+                for (ProductFlight flight : flights) {
+                    String hedgeId = hedgeIds.get(flight.shared);
+                    if (hedgeId != null) {
+                        hedged.add(new ValidateProductRequest(hedgeId, flight.productId, flight.requested));
+                    }
+                }
+                return new ValidateProductBatchRequest(correlationRegistry.format(correlationRegistry.nextId()), hedged);
+            },
+            response -> releaseReservation(response, Integer.MAX_VALUE));
+    }
+
+    private <T> void hedgeLater(Hedging hedging, String topic, String key, String replyTopic,
+                                Supplier<List<CompletableFuture<T>>> pending,
+                                Function<Map<CompletableFuture<T>, String>, Object> requestFor, Consumer<T> onLateReply) {
+        if (!hedging.enabled) {
+            return;
+        }
+        hedging.budget.deposit();
+        Duration delay = hedging.delay();
+        if (delay == null) {
+            return;
+        }
+        timeoutTimer.newTimeout(() -> {
+            if (pending.get().isEmpty()) {
+                return;
+            }
+            if (!hedging.budget.tryWithdraw()) {
+                hedging.throttled.increment();
+                return;
+            }
+            try {
+                hedgeExecutor.execute(() -> sendHedge(hedging, topic, key, replyTopic, pending, requestFor, onLateReply, delay));
+            } catch (RejectedExecutionException e) {
+                hedging.budget.refund();
+                log.debug("Dropping {} validation hedge {}: executor is saturated", hedging.type, key);
+            }
+        }, delay);
+    }
+
+    private <T> void sendHedge(Hedging hedging, String topic, String key, String replyTopic,
+                               Supplier<List<CompletableFuture<T>>> pending,
+                               Function<Map<CompletableFuture<T>, String>, Object> requestFor, Consumer<T> onLateReply,
+                               Duration delay) {
+        Integer partition = otherPartition(topic, key);
+        List<CompletableFuture<T>> futures = pending.get();
+        if (partition == null || futures.isEmpty()) {
+            hedging.budget.refund();
+            return;
+        }
+        Map<CompletableFuture<T>, String> hedgeIds = new LinkedHashMap<>();
+        for (CompletableFuture<T> future : futures) {
+            hedgeIds.put(future, attachHedge(future, hedging, onLateReply));
+        }
+        Object request = requestFor.apply(hedgeIds);
+        hedging.sent.increment();
+        log.debug("Hedging {} validation {} after {}ms to partition {}", hedging.type, key, delay.toMillis(), partition);
+        send(topic, partition, key, request, replyTopic, hedging.latency.current());
+    }
+
+    private <T> String attachHedge(CompletableFuture<T> future, Hedging hedging, Consumer<T> onLateReply) {
+        CompletableFuture<T> hedge = new CompletableFuture<>();
+        long id = correlationRegistry.register(hedge);
+        future.whenComplete((response, ex) -> correlationRegistry.remove(id, hedge));
+        hedge.thenAccept(response -> {
+            if (future.complete(response)) {
+                hedging.wins.increment();
+            } else {
+                onLateReply.accept(response);
+            }
+        });
+        return correlationRegistry.format(id);
+    }
+
+    private Integer otherPartition(String topic, String key) {
+        int count = partitionCount(topic);
+        if (count < 2) {
+            return null;
+        }
+        return (partitionOf(key, count) + 1 + ThreadLocalRandom.current().nextInt(count - 1)) % count;
+    }
+
+    private int partitionCount(String topic) {
+        List<PartitionInfo> partitions = kafkaTemplate.partitionsFor(topic);
+        return partitions != null ? partitions.size() : 0;
+    }
+
+    private static int partitionOf(String key, int partitions) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    private void send(String topic, String key, Object request, String replyTopic, Duration timeout) {
+        send(topic, null, key, request, replyTopic, timeout);
+    }
+
+    private void send(String topic, Integer partition, String key, Object request, String replyTopic, Duration timeout) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, partition, key, request);
+        record.headers().add(KafkaHeaders.REPLY_TOPIC, replyTopic.getBytes(StandardCharsets.UTF_8));
+        Integer replyPartition = replyRouting.replyPartition(replyTopic);
+        if (replyPartition != null) {
+            record.headers().add(KafkaHeaders.REPLY_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(replyPartition).array());
+        } else if (replyRouting.mode() == ReplyRouting.Mode.INSTANCE) {
+            unroutedRequests.increment();
+        }
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        record.headers().add(KafkaConfig.DEADLINE_HEADER, Long.toString(deadline).getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(record);
+    }
+
+    private static final class ProductFlight {
+
+        private final String correlationId;
+        private final Long productId;
+        private final CompletableFuture<ProductValidationResponse> shared;
+        private final List<Caller> callers = new ArrayList<>(1);
+        private final List<Caller> overflow = new ArrayList<>(0);
+        private int quantity;
+        private int requested = -1;
+
+        private ProductFlight(String correlationId, Long productId, CompletableFuture<ProductValidationResponse> shared) {
+            this.correlationId = correlationId;
+            this.productId = productId;
+            this.shared = shared;
+        }
+
+        private boolean join(Caller caller) {
+            if (requested >= 0 && quantity + caller.quantity > requested) {
+                overflow.add(caller);
+                return false;
+            }
+            callers.add(caller);
+            quantity += caller.quantity;
+            return true;
+        }
+
+        private void seal() {
+            requested = quantity;
+        }
+
+        private record Caller(int quantity, CompletableFuture<ProductValidationResponse> future, long deadline) {
+        }
+    }
+
+    private static final class Hedging {
+
+        private final boolean enabled;
+        private final String type;
+        private final double percentile;
+        private final Duration minDelay;
+        private final long minSamples;
+        private final AdaptiveTimeout latency;
+        private final HedgeBudget budget;
+        private final Counter sent;
+        private final Counter throttled;
+        private final Counter wins;
+
+        private Hedging(ValidationProperties.Hedging properties, boolean enabled, AdaptiveTimeout latency,
+                        MeterRegistry meterRegistry, String type) {
+            this.enabled = properties.isEnabled() && enabled;
+            this.type = type;
+            this.percentile = properties.getPercentile();
+            this.minDelay = properties.getMinDelay();
+            this.minSamples = properties.getMinSamples();
+            this.latency = latency;
+            this.budget = new HedgeBudget(properties.getBudgetPercent(), properties.getBurst());
+            this.sent = hedgeCounter(meterRegistry, type, "sent");
+            this.throttled = hedgeCounter(meterRegistry, type, "throttled");
+            this.wins = Counter.builder("validation.hedge.wins")
+                .description("Validations answered by the hedged duplicate before the original request")
+                .tag("type", type)
+                .register(meterRegistry);
+            Gauge.builder("validation.hedge.budget", budget, HedgeBudget::available)
+                .description("Hedged requests that may still be sent before the traffic share is exhausted")
+                .tag("type", type)
+                .register(meterRegistry);
+        }
+
+        private Duration delay() {
+            if (latency.samples() < minSamples) {
+                return null;
+            }
+            Duration observed = latency.quantile(percentile);
+            Duration delay = observed.compareTo(minDelay) > 0 ? observed : minDelay;
+            return delay.compareTo(latency.current()) < 0 ? delay : null;
+        }
+
+        private static Counter hedgeCounter(MeterRegistry meterRegistry, String type, String outcome) {
+            return Counter.builder("validation.hedges")
+                .description("Hedged duplicate validation requests by outcome")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.mirea.docsa2.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+public class AdaptiveTimeout {
+
+    private final LatencyHistogram latencies;
+    private final double percentile;
+    private final double multiplier;
+    private final long floorNanos;
+    private final long ceilingNanos;
+    private final long minSamples;
+    private final long refreshNanos;
+    private final LongSupplier nanoTime;
+    private volatile Duration current;
+    private volatile long refreshedAt;
+
+    public AdaptiveTimeout(Duration initial, double percentile, double multiplier, Duration floor, Duration ceiling,
+                           long minSamples, Duration window, Duration refresh) {
+        this(initial, percentile, multiplier, floor, ceiling, minSamples, window, refresh, System::nanoTime);
+    }
+
+    AdaptiveTimeout(Duration initial, double percentile, double multiplier, Duration floor, Duration ceiling,
+                    long minSamples, Duration window, Duration refresh, LongSupplier nanoTime) {
+        this.latencies = new LatencyHistogram(window, nanoTime);
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.floorNanos = floor.toNanos();
+        this.ceilingNanos = Math.max(ceiling.toNanos(), floorNanos);
+        this.minSamples = minSamples;
+        this.refreshNanos = refresh.toNanos();
+        this.nanoTime = nanoTime;
+        this.current = initial;
+        this.refreshedAt = nanoTime.getAsLong();
+    }
+
+    public void record(long nanos) {
+        latencies.record(nanos);
+    }
+
+    public void recordTimeout(Duration waited) {
+        latencies.record(waited.toNanos());
+    }
+
+    public Duration current() {
+        long now = nanoTime.getAsLong();
+        if (now - refreshedAt >= refreshNanos) {
+            refreshedAt = now;
+            if (latencies.count() >= minSamples) {
+                long observed = latencies.quantile(percentile).toNanos();
+                long scaled = (long) Math.min(observed * multiplier, Long.MAX_VALUE);
+                current = Duration.ofNanos(Math.min(Math.max(scaled, floorNanos), ceilingNanos));
+            }
+        }
+        return current;
+    }
+
+    public Duration quantile(double quantile) {
+        return latencies.quantile(quantile);
+    }
+
+    public long samples() {
+        return latencies.count();
+    }
+}
@@ -0,0 +1,41 @@
+package ru.mirea.docsa2.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HedgeBudget {
+
+    private static final long SCALE = 1_000_000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance = new AtomicLong();
+
+    public HedgeBudget(double percent, int burst) {
+        this.deposit = Math.round(Math.max(percent, 0) / 100 * SCALE);
+        this.capacity = Math.max(burst, 0) * SCALE;
+    }
+
+    public void deposit() {
+        balance.getAndUpdate(current -> Math.min(current + deposit, capacity));
+    }
+
+    public boolean tryWithdraw() {
+        long current = balance.get();
+        while (current >= SCALE) {
+            long witness = balance.compareAndExchange(current, current - SCALE);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    public void refund() {
+        balance.getAndUpdate(current -> Math.min(current + SCALE, capacity));
+    }
+
+    public double available() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.mirea.docsa2.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long rotateNanos;
+    private final LongSupplier nanoTime;
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS + 1);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS + 1);
+    private volatile long rotatedAt;
+
+    public LatencyHistogram(Duration window) {
+        this(window, System::nanoTime);
+    }
+
+    LatencyHistogram(Duration window, LongSupplier nanoTime) {
+        this.rotateNanos = Math.max(window.toNanos() / 2, 1);
+        this.nanoTime = nanoTime;
+        this.rotatedAt = nanoTime.getAsLong();
+    }
+
+    public void record(long nanos) {
+        AtomicLongArray counts = rotateIfDue();
+        counts.incrementAndGet(index(TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0))));
+        counts.incrementAndGet(BUCKETS);
+    }
+
+    public long count() {
+        rotateIfDue();
+        return current.get(BUCKETS) + previous.get(BUCKETS);
+    }
+
+    public Duration quantile(double quantile) {
+        rotateIfDue();
+        AtomicLongArray now = current;
+        AtomicLongArray before = previous;
+        long total = now.get(BUCKETS) + before.get(BUCKETS);
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long rank = (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += now.get(i) + before.get(i);
+            if (seen >= Math.max(rank, 1)) {
+                return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(upperBound(i)));
+            }
+        }
+        return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(upperBound(BUCKETS - 1)));
+    }
+
+    private AtomicLongArray rotateIfDue() {
+        long now = nanoTime.getAsLong();
+        if (now - rotatedAt >= rotateNanos) {
+            synchronized (this) {
+                long elapsed = now - rotatedAt;
+                if (elapsed >= rotateNanos) {
+                    previous = elapsed >= 2 * rotateNanos ? new AtomicLongArray(BUCKETS + 1) : current;
+                    current = new AtomicLongArray(BUCKETS + 1);
+                    rotatedAt = now;
+                }
+            }
+        }
+        return current;
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+}
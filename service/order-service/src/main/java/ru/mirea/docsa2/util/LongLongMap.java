@@ -0,0 +1,149 @@
+package ru.mirea.docsa2.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+public class LongLongMap {
+
+    private static final long FREE = 0L;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+    private int size;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongMap(int initialCapacity) {
+        this.table = new Table(Integer.highestOneBit(Math.max(initialCapacity, 2) * 2 - 1) * 2);
+    }
+
+    public long get(long key, long missing) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            long value = read(key, missing);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(key, missing);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(long key, long value) {
+        long stamp = lock.writeLock();
+        try {
+            if (key == FREE) {
+                if (!hasZeroKey) {
+                    hasZeroKey = true;
+                    size++;
+                }
+                zeroValue = value;
+                return;
+            }
+            Table current = table;
+            int slot = current.find(key);
+            if (slot >= 0) {
+                current.values[slot] = value;
+                return;
+            }
+            if ((size + 1) * 2 > current.keys.length) {
+                current = resize(current);
+            }
+            current.insert(key, value);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            if (key == FREE) {
+                if (!hasZeroKey) {
+                    return false;
+                }
+                hasZeroKey = false;
+                size--;
+                return true;
+            }
+            int slot = table.find(key);
+            if (slot < 0) {
+                return false;
+            }
+            table.shiftBack(slot);
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long read(long key, long missing) {
+        if (key == FREE) {
+            return hasZeroKey ? zeroValue : missing;
+        }
+        Table current = table;
+        int slot = current.find(key);
+        return slot < 0 ? missing : current.values[slot];
+    }
+
+    private Table resize(Table current) {
+        Table resized = new Table(current.keys.length * 2);
+        for (int i = 0; i < current.keys.length; i++) {
+            if (current.keys[i] != FREE) {
+                resized.insert(current.keys[i], current.values[i]);
+            }
+        }
+        table = resized;
+        return resized;
+    }
+
+    private static final class Table extends LongProbeTable {
+
+        private final long[] values;
+
+        private Table(int capacity) {
+            super(capacity);
+            this.values = new long[capacity];
+        }
+
+        private int find(long key) {
+            return find(key, mix(key));
+        }
+
+        private void insert(long key, long value) {
+            int slot = freeSlot(mix(key));
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        @Override
+        boolean occupied(int slot) {
+            return keys[slot] != FREE;
+        }
+
+        @Override
+        void move(int from, int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+        }
+
+        @Override
+        void clear(int slot) {
+            keys[slot] = FREE;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.mirea.docsa2.util;
+
+abstract class LongProbeTable {
+
+    long[] keys;
+
+    LongProbeTable(int capacity) {
+        this.keys = new long[capacity];
+    }
+
+    abstract boolean occupied(int slot);
+
+    abstract void move(int from, int to);
+
+    abstract void clear(int slot);
+
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    final int find(long key, long hash) {
+        int mask = keys.length - 1;
+        int slot = (int) hash & mask;
+        for (int probes = 0; probes < keys.length && occupied(slot); probes++) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    final int freeSlot(long hash) {
+        int mask = keys.length - 1;
+        int slot = (int) hash & mask;
+        while (occupied(slot)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    final void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        clear(hole);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (!occupied(slot)) {
+                return;
+            }
+            int home = (int) mix(keys[slot]) & mask;
+            boolean inPlace = hole <= slot ? hole < home && home <= slot : hole < home || home <= slot;
+            if (!inPlace) {
+                move(slot, hole);
+                clear(slot);
+                hole = slot;
+            }
+        }
+    }
+}
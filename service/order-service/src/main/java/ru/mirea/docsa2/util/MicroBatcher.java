@@ -0,0 +1,90 @@
+package ru.mirea.docsa2.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MicroBatcher<T> {
+
+    private final int maxSize;
+    private final long windowNanos;
+    private final Consumer<List<T>> sink;
+    private final ScheduledExecutorService scheduler;
+    private final DistributionSummary batchSize;
+    private final Timer coalescingDelay;
+
+    private final Object lock = new Object();
+    private List<Pending<T>> buffer = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public MicroBatcher(int maxSize, Duration window, Consumer<List<T>> sink, ScheduledExecutorService scheduler,
+                        DistributionSummary batchSize, Timer coalescingDelay) {
+        this.maxSize = maxSize;
+        this.windowNanos = window.toNanos();
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.coalescingDelay = coalescingDelay;
+    }
+
+    public void add(T item) {
+        List<Pending<T>> ready = null;
+        synchronized (lock) {
+            buffer.add(new Pending<>(item, System.nanoTime()));
+            if (buffer.size() >= maxSize) {
+                ready = drain();
+            } else if (buffer.size() == 1) {
+                scheduledFlush = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (ready != null) {
+            emit(ready);
+        }
+    }
+
+    public void flush() {
+        List<Pending<T>> ready;
+        synchronized (lock) {
+            ready = drain();
+        }
+        if (!ready.isEmpty()) {
+            emit(ready);
+        }
+    }
+
+    private List<Pending<T>> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<Pending<T>> ready = buffer;
+        buffer = new ArrayList<>(Math.min(maxSize, 64));
+        return ready;
+    }
+
+    private void emit(List<Pending<T>> ready) {
+        long now = System.nanoTime();
+        List<T> items = new ArrayList<>(ready.size());
+        for (Pending<T> pending : ready) {
+            coalescingDelay.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+            items.add(pending.item());
+        }
+        batchSize.record(items.size());
+        try {
+            sink.accept(items);
+        } catch (Exception e) {
+            log.error("Failed to send batch of {} items", items.size(), e);
+        }
+    }
+
+    private record Pending<T>(T item, long enqueuedAt) {}
+}
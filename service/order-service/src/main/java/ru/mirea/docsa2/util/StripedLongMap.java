@@ -0,0 +1,142 @@
+package ru.mirea.docsa2.util;
+
+public class StripedLongMap<V> {
+
+    private final Stripe<V>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public StripedLongMap(int stripeCount, int initialCapacity) {
+        int size = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe<>(initialCapacity);
+        }
+        this.mask = size - 1;
+    }
+
+    public V put(long key, V value) {
+        long hash = LongProbeTable.mix(key);
+        Stripe<V> stripe = stripe(hash);
+        synchronized (stripe) {
+            return stripe.put(key, hash, value);
+        }
+    }
+
+    public V get(long key) {
+        long hash = LongProbeTable.mix(key);
+        Stripe<V> stripe = stripe(hash);
+        synchronized (stripe) {
+            return stripe.get(key, hash);
+        }
+    }
+
+    public V remove(long key) {
+        long hash = LongProbeTable.mix(key);
+        Stripe<V> stripe = stripe(hash);
+        synchronized (stripe) {
+            return stripe.remove(key, hash, null);
+        }
+    }
+
+    public boolean remove(long key, V value) {
+        long hash = LongProbeTable.mix(key);
+        Stripe<V> stripe = stripe(hash);
+        synchronized (stripe) {
+            return stripe.remove(key, hash, value) != null;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    private Stripe<V> stripe(long hash) {
+        return stripes[(int) (hash >>> 32) & mask];
+    }
+
+    private static final class Stripe<V> extends LongProbeTable {
+
+        private Object[] values;
+        private int size;
+
+        private Stripe(int initialCapacity) {
+            super(Integer.highestOneBit(Math.max(initialCapacity, 2) * 2 - 1));
+            this.values = new Object[keys.length];
+        }
+
+        @SuppressWarnings("unchecked")
+        private V get(long key, long hash) {
+            int slot = find(key, hash);
+            return slot < 0 ? null : (V) values[slot];
+        }
+
+        @SuppressWarnings("unchecked")
+        private V put(long key, long hash, V value) {
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            insert(key, hash, value);
+            size++;
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V remove(long key, long hash, V expected) {
+            int slot = find(key, hash);
+            if (slot < 0 || (expected != null && values[slot] != expected)) {
+                return null;
+            }
+            V previous = (V) values[slot];
+            size--;
+            shiftBack(slot);
+            return previous;
+        }
+
+        private void insert(long key, long hash, Object value) {
+            int slot = freeSlot(hash);
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        @Override
+        boolean occupied(int slot) {
+            return values[slot] != null;
+        }
+
+        @Override
+        void move(int from, int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+        }
+
+        @Override
+        void clear(int slot) {
+            values[slot] = null;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], mix(oldKeys[i]), oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS order_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS orders (
+    id          BIGINT         NOT NULL PRIMARY KEY,
+    customer_id BIGINT         NOT NULL,
+    product_id  BIGINT         NOT NULL,
+    quantity    INTEGER        NOT NULL,
+    total_price NUMERIC(10, 2) NOT NULL,
+    status      VARCHAR(20)    NOT NULL CHECK (status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'COMPLETED')),
+    created_at  TIMESTAMP(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id         BIGINT       NOT NULL PRIMARY KEY,
+    order_id   BIGINT       NOT NULL,
+    payload    TEXT         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_idempotency_keys (
+    idempotency_key VARCHAR(320) NOT NULL PRIMARY KEY,
+    fingerprint     TEXT         NOT NULL,
+    status          INTEGER      NOT NULL,
+    content_type    VARCHAR(100),
+    body            TEXT,
+    expires_at      TIMESTAMP(6) NOT NULL
+);
+
+SELECT setval('orders_seq', (SELECT MAX(id) FROM orders))
+WHERE (SELECT MAX(id) FROM orders) >= (SELECT last_value FROM orders_seq);
+
+SELECT setval('order_outbox_seq', (SELECT MAX(id) FROM order_outbox))
+WHERE (SELECT MAX(id) FROM order_outbox) >= (SELECT last_value FROM order_outbox_seq);
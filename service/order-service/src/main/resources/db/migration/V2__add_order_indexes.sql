@@ -0,0 +1,9 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_customer_history
+    ON orders (customer_id, created_at DESC, id DESC)
+    INCLUDE (product_id, quantity, total_price, status);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_created_at
+    ON orders (created_at);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_order_idempotency_keys_expires_at
+    ON order_idempotency_keys (expires_at);
@@ -0,0 +1,31 @@
+CREATE TABLE IF NOT EXISTS sales_buckets (
+    dimension    VARCHAR(16)    NOT NULL CHECK (dimension IN ('PRODUCT', 'CUSTOMER')),
+    granularity  VARCHAR(8)     NOT NULL CHECK (granularity IN ('MINUTE', 'HOUR', 'DAY')),
+    entity_id    BIGINT         NOT NULL,
+    bucket_start TIMESTAMP(6)   NOT NULL,
+    revenue      NUMERIC(19, 2) NOT NULL,
+    quantity     BIGINT         NOT NULL,
+    orders       BIGINT         NOT NULL,
+    PRIMARY KEY (dimension, granularity, entity_id, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sales_buckets_range
+    ON sales_buckets (dimension, granularity, bucket_start);
+
+CREATE TABLE IF NOT EXISTS sales_offsets (
+    partition_id INTEGER NOT NULL PRIMARY KEY,
+    next_offset  BIGINT  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS sales_backfill (
+    id          SMALLINT     NOT NULL PRIMARY KEY CHECK (id = 1),
+    cutoff      TIMESTAMP(6) NOT NULL,
+    status      VARCHAR(16)  NOT NULL CHECK (status IN ('NONE', 'RUNNING', 'COMPLETED', 'FAILED')),
+    started_at  TIMESTAMP(6),
+    finished_at TIMESTAMP(6),
+    orders      BIGINT       NOT NULL DEFAULT 0
+);
+
+INSERT INTO sales_backfill (id, cutoff, status)
+VALUES (1, TIMESTAMP '1970-01-01 00:00:00', 'NONE')
+ON CONFLICT (id) DO NOTHING;
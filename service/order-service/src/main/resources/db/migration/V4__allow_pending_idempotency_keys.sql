@@ -0,0 +1 @@
+ALTER TABLE order_idempotency_keys ALTER COLUMN status DROP NOT NULL;
@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS order_outbox_dead_letters (
+    id               BIGINT       NOT NULL PRIMARY KEY,
+    order_id         BIGINT       NOT NULL,
+    payload          TEXT         NOT NULL,
+    created_at       TIMESTAMP(6) NOT NULL,
+    error            TEXT         NOT NULL,
+    dead_lettered_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,51 @@
+package ru.mirea.docsa2.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplyRoutingHealthIndicatorTest {
+
+    private final ReplyRouting replyRouting = new ReplyRouting(ReplyRouting.Mode.INSTANCE, "order-1");
+    private final ReplyRoutingHealthIndicator indicator = new ReplyRoutingHealthIndicator(replyRouting);
+
+    @Test
+    void shouldBeOutOfServiceUntilEveryReplyTopicHasAPartition() {
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        replyRouting.assigned(List.of(
+            new TopicPartition(KafkaConfig.PRODUCT_VALIDATION_RESPONSE_TOPIC, 2),
+            new TopicPartition(KafkaConfig.PRODUCT_VALIDATION_BATCH_RESPONSE_TOPIC, 2)));
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(indicator.health().getDetails().get("unroutedTopics"))
+            .isEqualTo(List.of(KafkaConfig.CUSTOMER_VALIDATION_RESPONSE_TOPIC));
+
+        replyRouting.assigned(List.of(new TopicPartition(KafkaConfig.CUSTOMER_VALIDATION_RESPONSE_TOPIC, 2)));
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void shouldGoOutOfServiceWhenLastReplyPartitionIsRevoked() {
+        List<TopicPartition> partitions = List.of(
+            new TopicPartition(KafkaConfig.PRODUCT_VALIDATION_RESPONSE_TOPIC, 0),
+            new TopicPartition(KafkaConfig.PRODUCT_VALIDATION_BATCH_RESPONSE_TOPIC, 0),
+            new TopicPartition(KafkaConfig.CUSTOMER_VALIDATION_RESPONSE_TOPIC, 0));
+        replyRouting.assigned(partitions);
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+
+        replyRouting.revoked(List.of(partitions.get(0)));
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void shouldAlwaysBeUpInSharedMode() {
+        ReplyRoutingHealthIndicator shared = new ReplyRoutingHealthIndicator(new ReplyRouting(ReplyRouting.Mode.SHARED, "order-1"));
+
+        assertThat(shared.health().getStatus()).isEqualTo(Status.UP);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.mirea.docsa2.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerChangedEvent;
+import ru.mirea.docsa2.service.CustomerValidationCache;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerChangeConsumerTest {
+
+    @Mock
+    private CustomerValidationCache customerValidationCache;
+
+    @InjectMocks
+    private CustomerChangeConsumer consumer;
+
+    @Test
+    void shouldInvalidateChangedAndDeletedCustomers() {
+        consumer.handleCustomerChanged(record("1", new CustomerChangedEvent(1L, "Ivan"), 1_000L));
+        consumer.handleCustomerChanged(record("2", null, 2_000L));
+
+        verify(customerValidationCache).invalidate(1L, 1_000L);
+        verify(customerValidationCache).invalidate(2L, 2_000L);
+    }
+
+    @Test
+    void shouldStartFromEndOfTopic() {
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+        Map<TopicPartition, Long> assignments = Map.of(new TopicPartition(KafkaConfig.CUSTOMER_CHANGED_TOPIC, 0), 0L);
+
+        consumer.onPartitionsAssigned(assignments, callback);
+
+        verify(callback).seekToEnd(assignments.keySet());
+    }
+
+    private static ConsumerRecord<String, CustomerChangedEvent> record(String key, CustomerChangedEvent value, long timestamp) {
+        return new ConsumerRecord<>(KafkaConfig.CUSTOMER_CHANGED_TOPIC, 0, 0L, timestamp, TimestampType.CREATE_TIME,
+            -1, -1, key, value, new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,53 @@
+package ru.mirea.docsa2.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.CustomerDirectoryEntry;
+import ru.mirea.docsa2.service.CustomerDirectory;
+
+import java.util.OptionalLong;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerDirectoryConsumerTest {
+
+    @Mock
+    private CustomerDirectory customerDirectory;
+
+    @Mock
+    private Consumer<String, CustomerDirectoryEntry> kafkaConsumer;
+
+    @InjectMocks
+    private CustomerDirectoryConsumer consumer;
+
+    @Test
+    void shouldApplyEntryAndTrackLag() {
+        CustomerDirectoryEntry entry = new CustomerDirectoryEntry(100L, 7L);
+        ConsumerRecord<String, CustomerDirectoryEntry> record = new ConsumerRecord<>(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC, 1, 4L, "100", entry);
+        when(kafkaConsumer.currentLag(new TopicPartition(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC, 1))).thenReturn(OptionalLong.of(2));
+
+        consumer.handleDirectoryEntry(record, kafkaConsumer);
+
+        verify(customerDirectory).apply(100L, entry);
+        verify(customerDirectory).updateLag(1, 2);
+    }
+
+    @Test
+    void shouldApplyTombstone() {
+        ConsumerRecord<String, CustomerDirectoryEntry> record = new ConsumerRecord<>(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC, 0, 9L, "100", null);
+        when(kafkaConsumer.currentLag(new TopicPartition(KafkaConfig.CUSTOMER_DIRECTORY_TOPIC, 0))).thenReturn(OptionalLong.empty());
+
+        consumer.handleDirectoryEntry(record, kafkaConsumer);
+
+        verify(customerDirectory).apply(100L, null);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.mirea.docsa2.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.ProductChangedEvent;
+import ru.mirea.docsa2.service.ProductCatalogReplica;
+
+import java.math.BigDecimal;
+import java.util.OptionalLong;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogConsumerTest {
+
+    @Mock
+    private ProductCatalogReplica productCatalogReplica;
+
+    @Mock
+    private Consumer<String, ProductChangedEvent> kafkaConsumer;
+
+    @InjectMocks
+    private ProductCatalogConsumer consumer;
+
+    @Test
+    void shouldApplyRecordAndTrackLag() {
+        ProductChangedEvent event = new ProductChangedEvent(1L, "Laptop", BigDecimal.TEN, 10);
+        ConsumerRecord<String, ProductChangedEvent> record = new ConsumerRecord<>(KafkaConfig.PRODUCT_CATALOG_TOPIC, 2, 15L, "1", event);
+        when(kafkaConsumer.currentLag(new TopicPartition(KafkaConfig.PRODUCT_CATALOG_TOPIC, 2))).thenReturn(OptionalLong.of(7));
+
+        consumer.handleProductChanged(record, kafkaConsumer);
+
+        verify(productCatalogReplica).apply(1L, event);
+        verify(productCatalogReplica).updateLag(2, 7);
+    }
+
+    @Test
+    void shouldApplyTombstone() {
+        ConsumerRecord<String, ProductChangedEvent> record = new ConsumerRecord<>(KafkaConfig.PRODUCT_CATALOG_TOPIC, 0, 3L, "5", null);
+        when(kafkaConsumer.currentLag(new TopicPartition(KafkaConfig.PRODUCT_CATALOG_TOPIC, 0))).thenReturn(OptionalLong.empty());
+
+        consumer.handleProductChanged(record, kafkaConsumer);
+
+        verify(productCatalogReplica).apply(5L, null);
+    }
+}
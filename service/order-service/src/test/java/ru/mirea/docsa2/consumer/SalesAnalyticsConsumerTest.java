@@ -0,0 +1,62 @@
+package ru.mirea.docsa2.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.service.SalesAggregator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SalesAnalyticsConsumerTest {
+
+    @Mock
+    private SalesAggregator salesAggregator;
+
+    @Mock
+    private ConsumerSeekCallback callback;
+
+    @InjectMocks
+    private SalesAnalyticsConsumer consumer;
+
+    @Test
+    void shouldHandOrderCreatedRecordToAggregator() {
+        OrderCreatedEvent event = new OrderCreatedEvent(1L, 2L, 3L, 1, BigDecimal.TEN, LocalDateTime.now(), null);
+
+        consumer.handleOrderCreated(new ConsumerRecord<>(KafkaConfig.ORDER_CREATED_TOPIC, 2, 41L, "1", event));
+
+        verify(salesAggregator).accept(2, 41L, event);
+    }
+
+    @Test
+    void shouldResumeFromCheckpointedOffsets() {
+        when(salesAggregator.committedOffsets()).thenReturn(Map.of(0, 100L));
+
+        consumer.onPartitionsAssigned(Map.of(
+            new TopicPartition(KafkaConfig.ORDER_CREATED_TOPIC, 0), 5L,
+            new TopicPartition(KafkaConfig.ORDER_CREATED_TOPIC, 1), 7L), callback);
+
+        verify(callback).seek(KafkaConfig.ORDER_CREATED_TOPIC, 0, 100L);
+        verify(callback).seekToBeginning(KafkaConfig.ORDER_CREATED_TOPIC, 1);
+    }
+
+    @Test
+    void shouldCheckpointRevokedPartitions() {
+        consumer.onPartitionsRevoked(List.of(new TopicPartition(KafkaConfig.ORDER_CREATED_TOPIC, 1)));
+
+        verify(salesAggregator).release(List.of(1));
+    }
+}
@@ -6,10 +6,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
+import ru.mirea.docsa2.event.ProductValidationBatchResponse;
 import ru.mirea.docsa2.event.ProductValidationResponse;
 import ru.mirea.docsa2.service.ValidationService;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.mockito.Mockito.verify;
 
@@ -25,7 +27,7 @@ class ValidationResponseConsumerTest {
     @Test
     void shouldHandleProductValidationResponse() {
         ProductValidationResponse response = new ProductValidationResponse(
-            "corr-123", 1L, true, "Product", BigDecimal.TEN, null
+            "corr-123", 1L, true, "Product", BigDecimal.TEN, null, null
         );
 
         consumer.handleProductValidationResponse(response);
@@ -43,5 +45,15 @@ class ValidationResponseConsumerTest {
 
         verify(validationService).handleCustomerValidationResponse(response);
     }
-}
 
+    @Test
+    void shouldHandleProductValidationBatchResponse() {
+        ProductValidationBatchResponse response = new ProductValidationBatchResponse("batch-1", List.of(
+            new ProductValidationResponse("corr-123", 1L, true, "Product", BigDecimal.TEN, null, null)
+        ));
+
+        consumer.handleProductValidationBatchResponse(response);
+
+        verify(validationService).handleProductValidationBatchResponse(response);
+    }
+}
@@ -1,43 +1,69 @@
 package ru.mirea.docsa2.controller;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.mirea.docsa2.dto.CreateOrderRequest;
 import ru.mirea.docsa2.dto.OrderResponse;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
 import ru.mirea.docsa2.event.ProductValidationResponse;
 import ru.mirea.docsa2.model.Order;
-import ru.mirea.docsa2.producer.OrderEventProducer;
 import ru.mirea.docsa2.repository.OrderRepository;
+import ru.mirea.docsa2.service.CustomerDirectory;
+import ru.mirea.docsa2.service.IdempotencyService;
+import ru.mirea.docsa2.service.OrderConcurrencyLimiter;
+import ru.mirea.docsa2.service.OrderService;
+import ru.mirea.docsa2.service.ValidationCapacityExceededException;
 import ru.mirea.docsa2.service.ValidationService;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -54,7 +80,19 @@ class OrderControllerIntegrationTest {
     private ValidationService validationService;
 
     @MockBean
-    private OrderEventProducer orderEventProducer;
+    private OrderService orderService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private CustomerDirectory customerDirectory;
+
+    @MockBean
+    private OrderConcurrencyLimiter concurrencyLimiter;
+
+    @MockBean
+    private NdjsonStreamer ndjsonStreamer;
 
     @MockBean
     private JwtDecoder jwtDecoder;
@@ -62,6 +100,20 @@ class OrderControllerIntegrationTest {
     @Captor
     private ArgumentCaptor<Order> orderCaptor;
 
+    @TestConfiguration
+    static class ExecutorConfig {
+
+        @Bean
+        Executor orderTaskExecutor() {
+            return Runnable::run;
+        }
+    }
+
+    @BeforeEach
+    void admitOrders() {
+        when(concurrencyLimiter.tryAcquire()).thenReturn(Optional.of(new OrderConcurrencyLimiter.Permit(0, 1, true)));
+    }
+
     @Test
     @WithMockUser
     void shouldGetAllOrders() throws Exception {
@@ -84,6 +136,27 @@ class OrderControllerIntegrationTest {
             .andExpect(jsonPath("$[0].quantity", is(5)));
     }
 
+    @Test
+    @WithMockUser
+    void shouldGetOrdersAfterCursor() throws Exception {
+        Order order = new Order();
+        order.setId(51L);
+        order.setCustomerId(1L);
+        order.setProductId(1L);
+        order.setQuantity(5);
+        order.setTotalPrice(BigDecimal.valueOf(100));
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+
+        when(orderRepository.findByIdGreaterThanOrderByIdAsc(50L, Limit.of(20))).thenReturn(List.of(order));
+
+        mockMvc.perform(get("/orders").param("afterId", "50").param("limit", "20"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id", is(51)));
+
+        verify(orderRepository, never()).findAll();
+    }
+
     @Test
     @WithMockUser
     void shouldGetOrderById() throws Exception {
@@ -114,11 +187,50 @@ class OrderControllerIntegrationTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldGetSelfOrdersThroughCustomerDirectory() throws Exception {
+        Order order = new Order();
+        order.setId(3L);
+        order.setCustomerId(7L);
+        order.setProductId(1L);
+        order.setQuantity(2);
+        order.setTotalPrice(BigDecimal.valueOf(40));
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+
+        when(customerDirectory.isCaughtUp()).thenReturn(true);
+        when(customerDirectory.customerIdFor(100L)).thenReturn(OptionalLong.of(7L));
+        when(orderRepository.findByCustomerIdOrderByCreatedAtDescIdDesc(7L)).thenReturn(List.of(order));
+
+        mockMvc.perform(get("/orders/self").with(jwt().jwt(jwt -> jwt.claim("userId", 100L))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id", is(3)))
+            .andExpect(jsonPath("$[0].customerId", is(7)));
+    }
+
+    @Test
+    void shouldReturn404ForSelfOrdersWithoutCustomerProfile() throws Exception {
+        when(customerDirectory.isCaughtUp()).thenReturn(true);
+        when(customerDirectory.customerIdFor(100L)).thenReturn(OptionalLong.empty());
+
+        mockMvc.perform(get("/orders/self").with(jwt().jwt(jwt -> jwt.claim("userId", 100L))))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturn503ForSelfOrdersWhileDirectoryLoads() throws Exception {
+        when(customerDirectory.isCaughtUp()).thenReturn(false);
+
+        mockMvc.perform(get("/orders/self").with(jwt().jwt(jwt -> jwt.claim("userId", 100L))))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     void shouldCreateOrderSuccessfully() throws Exception {
         ProductValidationResponse productResponse = new ProductValidationResponse(
-            "corr-123", 1L, true, "Test Product", BigDecimal.valueOf(20), null
+            "corr-123", 1L, true, "Test Product", BigDecimal.valueOf(20), null, null
         );
         CustomerValidationResponse customerResponse = new CustomerValidationResponse(
             "corr-456", 1L, true, "John Doe", null
@@ -137,7 +249,7 @@ class OrderControllerIntegrationTest {
         savedOrder.setTotalPrice(BigDecimal.valueOf(100));
         savedOrder.setStatus(Order.OrderStatus.CONFIRMED);
 
-        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+        when(orderService.createOrder(any(Order.class))).thenReturn(savedOrder);
 
         String requestBody = """
             {
@@ -147,25 +259,169 @@ class OrderControllerIntegrationTest {
             }
             """;
 
-        mockMvc.perform(post("/orders")
+        MvcResult result = mockMvc.perform(post("/orders")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
             .andExpect(status().isCreated())
             .andExpect(jsonPath("$.id", is(1)))
             .andExpect(jsonPath("$.customerId", is(1)))
             .andExpect(jsonPath("$.productId", is(1)))
             .andExpect(jsonPath("$.quantity", is(5)));
 
-        verify(orderRepository).save(any(Order.class));
-        verify(orderEventProducer).sendOrderCreatedEvent(any());
+        verify(orderService).createOrder(orderCaptor.capture());
+        assertThat(orderCaptor.getValue().getTotalPrice()).isEqualByComparingTo(BigDecimal.valueOf(100));
+        assertThat(orderCaptor.getValue().getStatus()).isEqualTo(Order.OrderStatus.CONFIRMED);
+        verify(concurrencyLimiter).release(any(), eq(false));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldRouteIdempotentRequestThroughIdempotencyService() throws Exception {
+        when(idempotencyService.execute(eq("testuser:key-1"), anyString(), any())).thenReturn(CompletableFuture.completedFuture(
+            ResponseEntity.status(HttpStatus.CREATED).header(IdempotencyService.REPLAYED_HEADER, "true").body("{\"id\":1}")));
+
+        String requestBody = """
+            {
+                "customerId": 1,
+                "productId": 1,
+                "quantity": 5
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"));
+
+        verify(validationService, never()).validateProduct(anyLong(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldRejectBlankIdempotencyKey() throws Exception {
+        String requestBody = """
+            {
+                "customerId": 1,
+                "productId": 1,
+                "quantity": 5
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, " ")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isBadRequest());
+
+        verify(idempotencyService, never()).execute(anyString(), anyString(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldCreateOrdersInBatchWithPerItemResults() throws Exception {
+        when(validationService.validateProduct(1L, 5)).thenReturn(CompletableFuture.completedFuture(
+            new ProductValidationResponse("corr-1", 1L, true, "Test Product", BigDecimal.valueOf(20), null, null)));
+        when(validationService.validateProduct(999L, 1)).thenReturn(CompletableFuture.completedFuture(
+            new ProductValidationResponse("corr-2", 999L, false, null, null, "Product not found", null)));
+        when(validationService.validateCustomer(1L)).thenReturn(CompletableFuture.completedFuture(
+            new CustomerValidationResponse("corr-3", 1L, true, "John Doe", null)));
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            for (int i = 0; i < orders.size(); i++) {
+                orders.get(i).setId(10L + i);
+            }
+            return orders;
+        });
+
+        String requestBody = """
+            {
+                "orders": [
+                    {"customerId": 1, "productId": 1, "quantity": 2},
+                    {"customerId": 1, "productId": 999, "quantity": 1},
+                    {"customerId": 1, "productId": 1, "quantity": 3}
+                ]
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.created", is(2)))
+            .andExpect(jsonPath("$.rejected", is(1)))
+            .andExpect(jsonPath("$.results", hasSize(3)))
+            .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+            .andExpect(jsonPath("$.results[0].order.id", is(10)))
+            .andExpect(jsonPath("$.results[1].status", is("REJECTED")))
+            .andExpect(jsonPath("$.results[1].error", is("Product not found")))
+            .andExpect(jsonPath("$.results[2].status", is("CREATED")))
+            .andExpect(jsonPath("$.results[2].order.id", is(11)));
+
+        verify(validationService).validateProduct(1L, 5);
+        verify(validationService).validateCustomer(1L);
+        verify(orderService, never()).createOrder(any());
+        verify(concurrencyLimiter).tryAcquire();
+        verify(concurrencyLimiter).release(any(), eq(false));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldShedOrderBatchOverConcurrencyLimit() throws Exception {
+        when(concurrencyLimiter.tryAcquire()).thenReturn(Optional.empty());
+        when(concurrencyLimiter.retryAfter()).thenReturn(Duration.ofSeconds(2));
+
+        MvcResult result = mockMvc.perform(post("/orders/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orders\": [{\"customerId\": 1, \"productId\": 1, \"quantity\": 2}]}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"));
+
+        verify(validationService, never()).validateProduct(anyLong(), anyInt());
+        verify(concurrencyLimiter, never()).release(any(), anyBoolean());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(post("/orders/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orders\": []}"))
+            .andExpect(status().isBadRequest());
     }
 
     @Test
     @WithMockUser(username = "testuser")
     void shouldRejectOrderWhenProductNotFound() throws Exception {
         ProductValidationResponse productResponse = new ProductValidationResponse(
-            "corr-123", 999L, false, null, null, "Product not found"
+            "corr-123", 999L, false, null, null, "Product not found", null
         );
         CustomerValidationResponse customerResponse = new CustomerValidationResponse(
             "corr-456", 1L, true, "John Doe", null
@@ -184,10 +440,14 @@ class OrderControllerIntegrationTest {
             }
             """;
 
-        mockMvc.perform(post("/orders")
+        MvcResult result = mockMvc.perform(post("/orders")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
             .andExpect(status().isBadRequest());
     }
 
@@ -195,7 +455,7 @@ class OrderControllerIntegrationTest {
     @WithMockUser(username = "testuser")
     void shouldRejectOrderWhenCustomerNotFound() throws Exception {
         ProductValidationResponse productResponse = new ProductValidationResponse(
-            "corr-123", 1L, true, "Test Product", BigDecimal.valueOf(20), null
+            "corr-123", 1L, true, "Test Product", BigDecimal.valueOf(20), null, "res-1"
         );
         CustomerValidationResponse customerResponse = new CustomerValidationResponse(
             "corr-456", 999L, false, null, "Customer not found"
@@ -214,11 +474,231 @@ class OrderControllerIntegrationTest {
             }
             """;
 
-        mockMvc.perform(post("/orders")
+        MvcResult result = mockMvc.perform(post("/orders")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
             .andExpect(status().isBadRequest());
+
+        verify(validationService).releaseReservation(productResponse, 5);
     }
-}
 
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldReleaseReservationWhenCustomerValidationTimesOut() throws Exception {
+        ProductValidationResponse productResponse = new ProductValidationResponse(
+            "corr-123", 1L, true, "Test Product", BigDecimal.valueOf(20), null, "res-1"
+        );
+
+        when(validationService.validateProduct(anyLong(), anyInt()))
+            .thenReturn(CompletableFuture.completedFuture(productResponse));
+        when(validationService.validateCustomer(anyLong()))
+            .thenReturn(CompletableFuture.failedFuture(new TimeoutException("Customer validation timeout after 5000ms")));
+
+        String requestBody = """
+            {
+                "customerId": 1,
+                "productId": 1,
+                "quantity": 5
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isGatewayTimeout())
+            .andExpect(content().string("Customer validation timeout after 5000ms"));
+
+        verify(validationService).releaseReservation(productResponse, 5);
+        verify(orderService, never()).createOrder(any());
+        verify(concurrencyLimiter).release(any(), eq(true));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldReturn503WhenValidationRequestCannotBeSent() throws Exception {
+        when(validationService.validateProduct(anyLong(), anyInt()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+        when(validationService.validateCustomer(anyLong()))
+            .thenReturn(CompletableFuture.completedFuture(new CustomerValidationResponse("corr-456", 1L, true, "John Doe", null)));
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\": 1, \"productId\": 1, \"quantity\": 5}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "1"));
+
+        verify(orderService, never()).createOrder(any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldFailWholeBatchWhenValidationTimesOut() throws Exception {
+        ProductValidationResponse productResponse = new ProductValidationResponse(
+            "corr-1", 1L, true, "Test Product", BigDecimal.valueOf(20), null, "res-1");
+        when(validationService.validateProduct(1L, 2)).thenReturn(CompletableFuture.completedFuture(productResponse));
+        when(validationService.validateProduct(2L, 1))
+            .thenReturn(CompletableFuture.failedFuture(new TimeoutException("Product validation timeout after 5000ms")));
+        when(validationService.validateCustomer(1L)).thenReturn(CompletableFuture.completedFuture(
+            new CustomerValidationResponse("corr-3", 1L, true, "John Doe", null)));
+
+        MvcResult result = mockMvc.perform(post("/orders/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"orders": [{"customerId": 1, "productId": 1, "quantity": 2}, {"customerId": 1, "productId": 2, "quantity": 1}]}
+                    """))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isGatewayTimeout());
+
+        verify(validationService).releaseReservation(productResponse, 2);
+        verify(orderService, never()).createOrders(anyList());
+        verify(concurrencyLimiter).release(any(), eq(true));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldReturn500WhenSavingOrderFails() throws Exception {
+        ProductValidationResponse productResponse = new ProductValidationResponse(
+            "corr-123", 1L, true, "Test Product", BigDecimal.valueOf(20), null, "res-1"
+        );
+        CustomerValidationResponse customerResponse = new CustomerValidationResponse(
+            "corr-456", 1L, true, "John Doe", null
+        );
+
+        when(validationService.validateProduct(anyLong(), anyInt()))
+            .thenReturn(CompletableFuture.completedFuture(productResponse));
+        when(validationService.validateCustomer(anyLong()))
+            .thenReturn(CompletableFuture.completedFuture(customerResponse));
+        when(orderService.createOrder(any(Order.class))).thenThrow(new IllegalStateException("database unavailable"));
+
+        String requestBody = """
+            {
+                "customerId": 1,
+                "productId": 1,
+                "quantity": 5
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isInternalServerError())
+            .andExpect(content().string("Error creating order: database unavailable"));
+
+        verify(validationService).releaseReservation(productResponse, 5);
+        verify(concurrencyLimiter).release(any(), eq(true));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldShedOrdersOverConcurrencyLimit() throws Exception {
+        when(concurrencyLimiter.tryAcquire()).thenReturn(Optional.empty());
+        when(concurrencyLimiter.retryAfter()).thenReturn(Duration.ofSeconds(2));
+
+        String requestBody = """
+            {
+                "customerId": 1,
+                "productId": 1,
+                "quantity": 5
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"));
+
+        verify(validationService, never()).validateProduct(anyLong(), anyInt());
+        verify(concurrencyLimiter, never()).release(any(), eq(false));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldReturn503WhenValidationCapacityIsExhausted() throws Exception {
+        CompletableFuture<ProductValidationResponse> productValidation = new CompletableFuture<>();
+        when(validationService.validateProduct(anyLong(), anyInt())).thenReturn(productValidation);
+        when(validationService.validateCustomer(anyLong())).thenThrow(new ValidationCapacityExceededException(100));
+
+        String requestBody = """
+            {
+                "customerId": 1,
+                "productId": 1,
+                "quantity": 5
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "1"));
+
+        assertThat(productValidation).isCancelled();
+        verify(orderService, never()).createOrder(any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void shouldReleaseCompletedProductValidationWhenCustomerCapacityIsExhausted() throws Exception {
+        ProductValidationResponse productResponse = new ProductValidationResponse(
+            "corr-123", 1L, true, "Test Product", BigDecimal.valueOf(20), null, "res-1"
+        );
+        when(validationService.validateProduct(anyLong(), anyInt()))
+            .thenReturn(CompletableFuture.completedFuture(productResponse));
+        when(validationService.validateCustomer(anyLong())).thenThrow(new ValidationCapacityExceededException(100));
+
+        String requestBody = """
+            {
+                "customerId": 1,
+                "productId": 1,
+                "quantity": 5
+            }
+            """;
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable());
+
+        verify(validationService).releaseReservation(productResponse, 5);
+    }
+}
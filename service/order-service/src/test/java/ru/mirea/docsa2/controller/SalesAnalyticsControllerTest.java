@@ -0,0 +1,123 @@
+package ru.mirea.docsa2.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.mirea.docsa2.dto.SalesBackfillResponse;
+import ru.mirea.docsa2.dto.SalesBucketResponse;
+import ru.mirea.docsa2.dto.SalesTotalResponse;
+import ru.mirea.docsa2.model.SalesDimension;
+import ru.mirea.docsa2.model.SalesGranularity;
+import ru.mirea.docsa2.service.SalesAnalyticsService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(SalesAnalyticsController.class)
+class SalesAnalyticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SalesAnalyticsService salesAnalyticsService;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @Test
+    @WithMockUser
+    void shouldGetProductSeries() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 10, 12, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 3, 10, 14, 0);
+        when(salesAnalyticsService.getSeries(SalesDimension.PRODUCT, 3L, SalesGranularity.HOUR, from, to))
+            .thenReturn(List.of(new SalesBucketResponse(from, new BigDecimal("15.00"), 3, 2)));
+
+        mockMvc.perform(get("/analytics/sales/products/3")
+                .param("granularity", "HOUR")
+                .param("from", "2024-03-10T12:30:00")
+                .param("to", "2024-03-10T14:00:00"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].revenue", is(15.00)))
+            .andExpect(jsonPath("$[0].orders", is(2)));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectEmptyRange() throws Exception {
+        mockMvc.perform(get("/analytics/sales/customers/2")
+                .param("from", "2024-03-10T14:00:00")
+                .param("to", "2024-03-10T12:00:00"))
+            .andExpect(status().isBadRequest());
+
+        verify(salesAnalyticsService, never()).getSeries(any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldGetTopCustomers() throws Exception {
+        when(salesAnalyticsService.getTotals(any(), any(), any(), any(), anyInt()))
+            .thenReturn(List.of(new SalesTotalResponse(2L, new BigDecimal("99.90"), 10, 4)));
+
+        mockMvc.perform(get("/analytics/sales/customers").param("limit", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].entityId", is(2)));
+
+        verify(salesAnalyticsService).getTotals(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectLimitAboveMaximum() throws Exception {
+        mockMvc.perform(get("/analytics/sales/products").param("limit", "1000"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldStartBackfill() throws Exception {
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(salesAnalyticsService.rebuild(false)).thenReturn(Optional.of(
+            new SalesBackfillResponse(SalesBackfillResponse.Status.RUNNING, cutoff, cutoff, null, 0)));
+
+        mockMvc.perform(post("/analytics/sales/backfill").with(csrf()))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status", is("RUNNING")));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnConflictWhileBackfillRuns() throws Exception {
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(salesAnalyticsService.rebuild(false)).thenReturn(Optional.empty());
+        when(salesAnalyticsService.getBackfill())
+            .thenReturn(new SalesBackfillResponse(SalesBackfillResponse.Status.RUNNING, cutoff, cutoff, null, 0));
+
+        mockMvc.perform(post("/analytics/sales/backfill").with(csrf()))
+            .andExpect(status().isConflict());
+    }
+}
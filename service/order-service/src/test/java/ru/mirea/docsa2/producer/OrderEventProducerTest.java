@@ -33,7 +33,7 @@ class OrderEventProducerTest {
     @Test
     void shouldSendOrderCreatedEvent() {
         OrderCreatedEvent event = new OrderCreatedEvent(
-            1L, 2L, 3L, 5, BigDecimal.valueOf(100), LocalDateTime.now()
+            1L, 2L, 3L, 5, BigDecimal.valueOf(100), LocalDateTime.now(), null
         );
 
         producer.sendOrderCreatedEvent(event);
@@ -0,0 +1,128 @@
+package ru.mirea.docsa2.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.mirea.docsa2.config.OutboxProperties;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.model.OrderOutboxEvent;
+import ru.mirea.docsa2.repository.OrderOutboxRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Mock
+    private OrderEventProducer orderEventProducer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<OrderCreatedEvent> eventCaptor;
+
+    private OrderOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        OutboxProperties properties = new OutboxProperties();
+        properties.getRelay().setBatchSize(2);
+        relay = new OrderOutboxRelay(orderOutboxRepository, orderEventProducer, objectMapper, transactionManager,
+            properties, meterRegistry);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void shouldPublishBatchInOrderAndDeleteRelayedEvents() throws Exception {
+        when(orderOutboxRepository.tryAdvisoryXactLock(OrderOutboxRelay.ADVISORY_LOCK_KEY)).thenReturn(true);
+        when(orderOutboxRepository.findAllByOrderByIdAsc(Limit.of(2)))
+            .thenReturn(List.of(outboxEvent(10L, 1L), outboxEvent(11L, 2L)))
+            .thenReturn(List.of(outboxEvent(12L, 3L)));
+        when(orderEventProducer.sendOrderCreatedEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+
+        verify(orderEventProducer, times(3)).sendOrderCreatedEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getAllValues()).extracting(OrderCreatedEvent::orderId).containsExactly(1L, 2L, 3L);
+        verify(orderOutboxRepository).deleteAllByIdInBatch(List.of(10L, 11L));
+        verify(orderOutboxRepository).deleteAllByIdInBatch(List.of(12L));
+        verify(transactionManager, times(2)).commit(any());
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("outbox.relay.batch.size").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepEventsWhenPublishFails() throws Exception {
+        when(orderOutboxRepository.tryAdvisoryXactLock(OrderOutboxRelay.ADVISORY_LOCK_KEY)).thenReturn(true);
+        when(orderOutboxRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(outboxEvent(10L, 1L)));
+        when(orderEventProducer.sendOrderCreatedEvent(any()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        relay.relay();
+
+        verify(orderOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(any());
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldDeadLetterMalformedEventAndRelayTheRest() throws Exception {
+        OrderOutboxEvent malformed = new OrderOutboxEvent(10L, 1L, "{not json", LocalDateTime.now().minusSeconds(1));
+        when(orderOutboxRepository.tryAdvisoryXactLock(OrderOutboxRelay.ADVISORY_LOCK_KEY)).thenReturn(true);
+        when(orderOutboxRepository.findAllByOrderByIdAsc(Limit.of(2)))
+            .thenReturn(List.of(malformed, outboxEvent(11L, 2L)))
+            .thenReturn(List.of());
+        when(orderEventProducer.sendOrderCreatedEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+
+        verify(orderEventProducer).sendOrderCreatedEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().orderId()).isEqualTo(2L);
+        verify(orderOutboxRepository).moveToDeadLetters(eq(10L), anyString());
+        verify(orderOutboxRepository).deleteAllByIdInBatch(List.of(10L, 11L));
+        assertThat(meterRegistry.get("outbox.relay.dead.letters").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipWhenAnotherInstanceHoldsTheLock() {
+        when(orderOutboxRepository.tryAdvisoryXactLock(OrderOutboxRelay.ADVISORY_LOCK_KEY)).thenReturn(false);
+
+        relay.relay();
+
+        verify(orderOutboxRepository, never()).findAllByOrderByIdAsc(any());
+    }
+
+    private OrderOutboxEvent outboxEvent(Long id, Long orderId) throws Exception {
+        OrderCreatedEvent event = new OrderCreatedEvent(orderId, 2L, 3L, 1, BigDecimal.TEN, LocalDateTime.now(), null);
+        return new OrderOutboxEvent(id, orderId, objectMapper.writeValueAsString(event), LocalDateTime.now().minusSeconds(1));
+    }
+}
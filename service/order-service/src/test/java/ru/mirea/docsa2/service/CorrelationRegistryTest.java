@@ -0,0 +1,53 @@
+package ru.mirea.docsa2.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationRegistryTest {
+
+    private final CorrelationRegistry registry = new CorrelationRegistry();
+
+    @Test
+    void shouldIssueMonotonicIds() {
+        long first = registry.nextId();
+        long second = registry.nextId();
+
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    void shouldNotResolveIdIssuedByAnotherInstance() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        long id = registry.register(future);
+        CorrelationRegistry other = new CorrelationRegistry();
+        String foreignId = other.format(other.nextId());
+
+        assertThat(foreignId).isNotEqualTo(registry.format(id));
+        assertThat(registry.issued(foreignId)).isFalse();
+        assertThat(registry.<String>remove(foreignId)).isNull();
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResolveFutureByFormattedId() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        long id = registry.register(future);
+
+        CompletableFuture<String> resolved = registry.remove(registry.format(id));
+
+        assertThat(resolved).isSameAs(future);
+        assertThat(registry.size()).isZero();
+        assertThat(registry.<String>remove(registry.format(id))).isNull();
+    }
+
+    @Test
+    void shouldIgnoreMalformedCorrelationId() {
+        registry.register(new CompletableFuture<>());
+
+        assertThat(registry.<String>remove("not-a-correlation-id")).isNull();
+        assertThat(registry.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.mirea.docsa2.event.CustomerDirectoryEntry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerDirectoryTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CustomerDirectory directory = new CustomerDirectory(meterRegistry);
+
+    @Test
+    void shouldResolveMappedUser() {
+        directory.apply(100L, new CustomerDirectoryEntry(100L, 7L));
+
+        assertThat(directory.customerIdFor(100L)).hasValue(7L);
+        assertThat(directory.customerIdFor(200L)).isEmpty();
+        assertThat(meterRegistry.get("customer.directory.lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.directory.lookups").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldForgetUserOnTombstone() {
+        directory.apply(100L, new CustomerDirectoryEntry(100L, 7L));
+        directory.apply(100L, null);
+
+        assertThat(directory.customerIdFor(100L)).isEmpty();
+        assertThat(meterRegistry.get("customer.directory.size").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldResetLagWhenCaughtUp() {
+        directory.updateLag(0, 5);
+        directory.updateLag(1, 3);
+        assertThat(directory.lag()).isEqualTo(8);
+        assertThat(directory.isCaughtUp()).isFalse();
+
+        directory.markCaughtUp();
+
+        assertThat(directory.lag()).isZero();
+        assertThat(directory.isCaughtUp()).isTrue();
+    }
+}
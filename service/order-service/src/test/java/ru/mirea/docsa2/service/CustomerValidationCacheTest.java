@@ -0,0 +1,116 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.mirea.docsa2.config.ValidationProperties;
+import ru.mirea.docsa2.event.CustomerValidationResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerValidationCacheTest {
+
+    private final CustomerValidationResponse valid = new CustomerValidationResponse("corr-1", 1L, true, "John Doe", null);
+    private final CustomerValidationResponse missing = new CustomerValidationResponse("corr-2", 2L, false, null, "Customer not found");
+
+    private ValidationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerValidationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ValidationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CustomerValidationCache(properties, meterRegistry);
+    }
+
+    @Test
+    void shouldCachePositiveAndNegativeResponses() {
+        cache.store(1L, valid, cache.generation());
+        cache.store(2L, missing, cache.generation());
+
+        assertThat(cache.lookup(1L)).contains(valid);
+        assertThat(cache.lookup(2L)).contains(missing);
+        assertThat(cache.lookup(3L)).isEmpty();
+        assertThat(lookups("hit")).isEqualTo(2);
+        assertThat(lookups("miss")).isEqualTo(1);
+        assertThat(meterRegistry.get("validation.customer.cache.age").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDropEntryOnInvalidation() {
+        cache.store(1L, valid, cache.generation());
+
+        cache.invalidate(1L, System.currentTimeMillis() - 20);
+
+        assertThat(cache.lookup(1L)).isEmpty();
+        assertThat(meterRegistry.get("validation.customer.cache.invalidations").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("validation.customer.cache.invalidation.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheResponseRequestedBeforeInvalidation() {
+        long requestedAt = cache.generation();
+
+        cache.invalidate(1L, 0);
+        cache.store(1L, valid, requestedAt);
+
+        assertThat(cache.lookup(1L)).isEmpty();
+    }
+
+    @Test
+    void shouldCacheResponseWhenAnotherCustomerWasInvalidated() {
+        long requestedAt = cache.generation();
+
+        cache.invalidate(2L, 0);
+        cache.store(1L, valid, requestedAt);
+
+        assertThat(cache.lookup(1L)).contains(valid);
+    }
+
+    @Test
+    void shouldNotCacheResponsesOlderThanForgottenInvalidations() {
+        properties.getCustomerCache().setTrackedInvalidations(1);
+        cache = new CustomerValidationCache(properties, meterRegistry);
+        long requestedAt = cache.generation();
+
+        cache.invalidate(1L, 0);
+        cache.invalidate(2L, 0);
+        cache.store(1L, valid, requestedAt);
+        cache.store(3L, valid, requestedAt);
+        cache.store(4L, valid, cache.generation());
+
+        assertThat(cache.lookup(1L)).isEmpty();
+        assertThat(cache.lookup(3L)).isEmpty();
+        assertThat(cache.lookup(4L)).contains(valid);
+    }
+
+    @Test
+    void shouldExpireNegativeResponsesSooner() throws InterruptedException {
+        properties.getCustomerCache().setNegativeTtl(Duration.ofMillis(1));
+        cache = new CustomerValidationCache(properties, meterRegistry);
+        cache.store(1L, valid, cache.generation());
+        cache.store(2L, missing, cache.generation());
+
+        Thread.sleep(5);
+
+        assertThat(cache.lookup(1L)).contains(valid);
+        assertThat(cache.lookup(2L)).isEmpty();
+    }
+
+    @Test
+    void shouldBypassWhenDisabled() {
+        properties.getCustomerCache().setEnabled(false);
+        cache = new CustomerValidationCache(properties, new SimpleMeterRegistry());
+
+        cache.store(1L, valid, cache.generation());
+
+        assertThat(cache.lookup(1L)).isEmpty();
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("validation.customer.cache.lookups").tag("result", result).counter().count();
+    }
+}
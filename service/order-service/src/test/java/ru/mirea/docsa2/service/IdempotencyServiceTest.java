@@ -0,0 +1,229 @@
+package ru.mirea.docsa2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.mirea.docsa2.config.IdempotencyProperties;
+import ru.mirea.docsa2.dto.OrderResponse;
+import ru.mirea.docsa2.model.IdempotencyRecord;
+import ru.mirea.docsa2.model.Order;
+import ru.mirea.docsa2.repository.IdempotencyRecordRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyService idempotencyService;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.getPending().setPollInterval(Duration.ofMillis(10));
+        properties.getPending().setMaxWait(Duration.ofMillis(200));
+        idempotencyService = new IdempotencyService(repository, new ObjectMapper().findAndRegisterModules(),
+            properties, new SimpleMeterRegistry());
+        lenient().when(repository.claim(anyString(), anyString(), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyService.shutdown();
+    }
+
+    @Test
+    void shouldReplayCompletedResponseFromMemory() {
+        CompletableFuture<ResponseEntity<?>> first = idempotencyService.execute("user:1", "req", () -> created(1L));
+        CompletableFuture<ResponseEntity<?>> second = idempotencyService.execute("user:1", "req", () -> created(2L));
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(first.join().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        ResponseEntity<?> replayed = second.join();
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat((String) replayed.getBody()).contains("\"id\":1");
+        verify(repository).claim(eq("user:1"), eq("req"), any(), any());
+        verify(repository).complete(eq("user:1"), any(), eq(201), eq("application/json"), anyString(), any());
+        verify(repository, times(1)).findById("user:1");
+    }
+
+    @Test
+    void shouldAttachConcurrentDuplicateToInFlightExecution() {
+        CompletableFuture<ResponseEntity<?>> pending = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> first = idempotencyService.execute("user:1", "req", () -> pending);
+        CompletableFuture<ResponseEntity<?>> second = idempotencyService.execute("user:1", "req", () -> created(2L));
+
+        assertThat(second).isNotDone();
+
+        pending.complete(ResponseEntity.badRequest().body("Product not found"));
+
+        assertThat(first.join().getBody()).isEqualTo("Product not found");
+        assertThat(second.join().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(second.join().getBody()).isEqualTo("Product not found");
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    void shouldReplayResponseFromDatabase() {
+        when(repository.findById("user:1")).thenReturn(Optional.of(new IdempotencyRecord(
+            "user:1", "req", 201, "application/json", "{\"id\":7}", LocalDateTime.now().plusHours(1))));
+
+        ResponseEntity<?> replayed = idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        assertThat(executions.get()).isZero();
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replayed.getBody()).isEqualTo("{\"id\":7}");
+    }
+
+    @Test
+    void shouldNotRememberServerErrors() {
+        idempotencyService.execute("user:1", "req",
+            () -> CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("busy"))).join();
+        ResponseEntity<?> retried = idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(retried.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        verify(repository, times(1)).release(eq("user:1"), any());
+        verify(repository, times(1)).complete(eq("user:1"), any(), eq(201), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        ResponseEntity<?> response = idempotencyService.execute("user:1", "other", () -> created(2L)).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunAgainAfterFailedExecution() {
+        CompletableFuture<ResponseEntity<?>> failed = idempotencyService.execute("user:1", "req",
+            () -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        ResponseEntity<?> retried = idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWaitForClaimHeldByAnotherInstance() {
+        IdempotencyRecord pending = new IdempotencyRecord("user:1", "req", null, null, null, LocalDateTime.now().plusSeconds(30));
+        IdempotencyRecord done = new IdempotencyRecord("user:1", "req", 201, "application/json", "{\"id\":7}",
+            LocalDateTime.now().plusHours(1));
+        when(repository.findById("user:1")).thenReturn(Optional.of(pending))
+            .thenReturn(Optional.of(pending))
+            .thenReturn(Optional.of(done));
+
+        ResponseEntity<?> replayed = idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        assertThat(executions.get()).isZero();
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replayed.getBody()).isEqualTo("{\"id\":7}");
+        verify(repository, never()).claim(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void shouldKeepPollingOtherKeysWhileOnePollIsBlocked() throws Exception {
+        IdempotencyRecord pending = new IdempotencyRecord("user:1", "req", null, null, null, LocalDateTime.now().plusSeconds(30));
+        IdempotencyRecord done = new IdempotencyRecord("user:2", "req", 201, "application/json", "{\"id\":7}",
+            LocalDateTime.now().plusHours(1));
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findById("user:1")).thenReturn(Optional.of(pending)).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await();
+            return Optional.of(pending);
+        });
+        when(repository.findById("user:2")).thenReturn(Optional.of(pending)).thenReturn(Optional.of(done));
+
+        CompletableFuture<ResponseEntity<?>> slow = idempotencyService.execute("user:1", "req", () -> created(1L));
+        assertThat(blocked.await(1, TimeUnit.SECONDS)).isTrue();
+        ResponseEntity<?> replayed = idempotencyService.execute("user:2", "req", () -> created(2L))
+            .get(1, TimeUnit.SECONDS);
+        release.countDown();
+
+        assertThat(replayed.getBody()).isEqualTo("{\"id\":7}");
+        assertThat(slow.join().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    void shouldWaitWhenClaimIsLostToAnotherInstance() {
+        when(repository.claim(anyString(), anyString(), any(), any())).thenReturn(0);
+        when(repository.findById("user:1")).thenReturn(Optional.empty())
+            .thenReturn(Optional.of(new IdempotencyRecord(
+                "user:1", "req", 201, "application/json", "{\"id\":7}", LocalDateTime.now().plusHours(1))));
+
+        ResponseEntity<?> replayed = idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        assertThat(executions.get()).isZero();
+        assertThat(replayed.getBody()).isEqualTo("{\"id\":7}");
+    }
+
+    @Test
+    void shouldAnswerConflictWhileAnotherInstanceKeepsKeyClaimed() {
+        when(repository.findById("user:1")).thenReturn(Optional.of(
+            new IdempotencyRecord("user:1", "req", null, null, null, LocalDateTime.now().plusSeconds(30))));
+
+        ResponseEntity<?> response = idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    void shouldTakeOverClaimAfterItIsReleased() {
+        when(repository.findById("user:1")).thenReturn(Optional.of(
+                new IdempotencyRecord("user:1", "req", null, null, null, LocalDateTime.now().plusSeconds(30))))
+            .thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = idempotencyService.execute("user:1", "req", () -> created(1L)).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    private CompletableFuture<ResponseEntity<?>> created(Long id) {
+        executions.incrementAndGet();
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId(1L);
+        order.setProductId(1L);
+        order.setQuantity(1);
+        order.setTotalPrice(BigDecimal.TEN);
+        return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.from(order)));
+    }
+}
@@ -0,0 +1,88 @@
+package ru.mirea.docsa2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.model.Order;
+import ru.mirea.docsa2.model.OrderOutboxEvent;
+import ru.mirea.docsa2.repository.OrderOutboxRepository;
+import ru.mirea.docsa2.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Captor
+    private ArgumentCaptor<OrderOutboxEvent> outboxCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<OrderOutboxEvent>> outboxBatchCaptor;
+
+    @Test
+    void shouldWriteOrderCreatedEventToOutbox() throws Exception {
+        Order order = new Order();
+        order.setCustomerId(2L);
+        order.setProductId(3L);
+        order.setQuantity(5);
+        order.setTotalPrice(BigDecimal.valueOf(100));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        OrderService orderService = new OrderService(orderRepository, orderOutboxRepository, objectMapper);
+
+        Order saved = orderService.createOrder(order);
+
+        verify(orderOutboxRepository).save(outboxCaptor.capture());
+        assertThat(saved.getId()).isEqualTo(1L);
+        assertThat(outboxCaptor.getValue().getOrderId()).isEqualTo(1L);
+
+        OrderCreatedEvent event = objectMapper.readValue(outboxCaptor.getValue().getPayload(), OrderCreatedEvent.class);
+        assertThat(event.orderId()).isEqualTo(1L);
+        assertThat(event.customerId()).isEqualTo(2L);
+        assertThat(event.productId()).isEqualTo(3L);
+        assertThat(event.quantity()).isEqualTo(5);
+        assertThat(event.totalPrice()).isEqualByComparingTo(BigDecimal.valueOf(100));
+    }
+
+    @Test
+    void shouldWriteOutboxRowForEveryOrderInBatch() {
+        Order first = new Order();
+        first.setId(1L);
+        first.setTotalPrice(BigDecimal.TEN);
+        Order second = new Order();
+        second.setId(2L);
+        second.setTotalPrice(BigDecimal.ONE);
+        when(orderRepository.saveAll(List.of(first, second))).thenReturn(List.of(first, second));
+        OrderService orderService = new OrderService(orderRepository, orderOutboxRepository, objectMapper);
+
+        List<Order> saved = orderService.createOrders(List.of(first, second));
+
+        verify(orderOutboxRepository).saveAll(outboxBatchCaptor.capture());
+        assertThat(saved).containsExactly(first, second);
+        assertThat(outboxBatchCaptor.getValue())
+            .extracting(OrderOutboxEvent::getOrderId)
+            .containsExactly(1L, 2L);
+    }
+}
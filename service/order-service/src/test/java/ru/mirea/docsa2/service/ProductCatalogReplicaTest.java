@@ -0,0 +1,76 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.mirea.docsa2.config.ValidationProperties;
+import ru.mirea.docsa2.event.ProductChangedEvent;
+import ru.mirea.docsa2.event.ProductValidationResponse;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCatalogReplicaTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProductCatalogReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getCatalog().setEnabled(true);
+        properties.getCatalog().setLowStockThreshold(5);
+        replica = new ProductCatalogReplica(properties, meterRegistry);
+    }
+
+    @Test
+    void shouldMissUntilCaughtUp() {
+        replica.apply(1L, new ProductChangedEvent(1L, "Laptop", BigDecimal.TEN, 100));
+
+        assertThat(replica.lookup(1L, 1)).isEmpty();
+
+        replica.markCaughtUp();
+
+        Optional<ProductValidationResponse> response = replica.lookup(1L, 1);
+        assertThat(response).isPresent();
+        assertThat(response.get().productName()).isEqualTo("Laptop");
+        assertThat(meterRegistry.get("catalog.replica.lookups").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("catalog.replica.lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBypassStockSensitiveLookups() {
+        replica.apply(1L, new ProductChangedEvent(1L, "Laptop", BigDecimal.TEN, 10));
+        replica.markCaughtUp();
+
+        assertThat(replica.lookup(1L, 5)).isPresent();
+        assertThat(replica.lookup(1L, 6)).isEmpty();
+        assertThat(meterRegistry.get("catalog.replica.lookups").tag("result", "bypass").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRemoveProductOnTombstone() {
+        replica.apply(1L, new ProductChangedEvent(1L, "Laptop", BigDecimal.TEN, 100));
+        replica.apply(1L, null);
+        replica.markCaughtUp();
+
+        assertThat(replica.lookup(1L, 1)).isEmpty();
+        assertThat(meterRegistry.get("catalog.replica.size").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldReportLagUntilCaughtUp() {
+        replica.updateLag(0, 40);
+        replica.updateLag(1, 2);
+
+        assertThat(replica.lag()).isEqualTo(42);
+
+        replica.markCaughtUp();
+
+        assertThat(replica.lag()).isZero();
+        assertThat(replica.isCaughtUp()).isTrue();
+    }
+}
@@ -0,0 +1,125 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.mirea.docsa2.config.SalesAnalyticsProperties;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.model.SalesBucketKey;
+import ru.mirea.docsa2.model.SalesDimension;
+import ru.mirea.docsa2.model.SalesGranularity;
+import ru.mirea.docsa2.model.SalesTotals;
+import ru.mirea.docsa2.repository.SalesAnalyticsRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SalesAggregatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private SalesAnalyticsRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<Map<SalesBucketKey, SalesTotals>> bucketsCaptor;
+
+    private SalesAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        SalesAnalyticsProperties properties = new SalesAnalyticsProperties();
+        properties.setCheckpointInterval(Duration.ofHours(1));
+        properties.setMaxPending(2);
+        aggregator = new SalesAggregator(repository, transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void shouldCheckpointBucketsAndOffsetsTogetherOnceFull() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.lockCutoff()).thenReturn(LocalDateTime.of(1970, 1, 1, 0, 0));
+        LocalDateTime now = LocalDateTime.now();
+
+        aggregator.accept(0, 10L, event(1L, now, "10.00"));
+        aggregator.accept(1, 4L, event(2L, now, "5.00"));
+        verify(repository, never()).addAll(any());
+
+        aggregator.accept(0, 11L, event(3L, now, "1.00"));
+
+        verify(repository).addAll(bucketsCaptor.capture());
+        SalesTotals product = bucketsCaptor.getValue().get(new SalesBucketKey(SalesDimension.PRODUCT, SalesGranularity.MINUTE, 7L,
+            now.truncatedTo(ChronoUnit.MINUTES)));
+        assertThat(product.getRevenue()).isEqualByComparingTo("15.00");
+        assertThat(product.getOrders()).isEqualTo(2);
+        verify(repository).saveOffsets(Map.of(0, 11L, 1, 5L));
+        assertThat(meterRegistry.get("sales.analytics.events").tag("result", "applied").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("sales.analytics.pending").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipEventsCoveredByBackfill() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(repository.lockCutoff()).thenReturn(cutoff);
+
+        aggregator.accept(0, 1L, event(1L, cutoff.minusSeconds(1), "10.00"));
+        aggregator.flush();
+
+        verify(repository, never()).addAll(any());
+        verify(repository).saveOffsets(Map.of(0, 2L));
+        assertThat(meterRegistry.get("sales.analytics.events").tag("result", "skipped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepPendingEventsWhenCheckpointFails() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.lockCutoff()).thenThrow(new IllegalStateException("database unavailable"));
+
+        aggregator.accept(0, 1L, event(1L, LocalDateTime.now(), "10.00"));
+        aggregator.accept(0, 2L, event(2L, LocalDateTime.now(), "10.00"));
+
+        assertThatThrownBy(() -> aggregator.accept(0, 3L, event(3L, LocalDateTime.now(), "10.00")))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(meterRegistry.get("sales.analytics.pending").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldForgetRevokedPartitionsAfterCheckpoint() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.lockCutoff()).thenReturn(LocalDateTime.of(1970, 1, 1, 0, 0));
+
+        aggregator.accept(0, 1L, event(1L, LocalDateTime.now(), "10.00"));
+        aggregator.accept(1, 1L, event(2L, LocalDateTime.now(), "10.00"));
+        aggregator.release(List.of(0));
+        aggregator.flush();
+
+        verify(repository).saveOffsets(Map.of(0, 2L, 1, 2L));
+        verify(repository).saveOffsets(Map.of(1, 2L));
+    }
+
+    private static OrderCreatedEvent event(Long orderId, LocalDateTime createdAt, String totalPrice) {
+        return new OrderCreatedEvent(orderId, 2L, 7L, 1, new BigDecimal(totalPrice), createdAt, null);
+    }
+}
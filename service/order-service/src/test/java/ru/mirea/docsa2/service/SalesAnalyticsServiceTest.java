@@ -0,0 +1,109 @@
+package ru.mirea.docsa2.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.mirea.docsa2.config.SalesAnalyticsProperties;
+import ru.mirea.docsa2.dto.SalesBackfillResponse;
+import ru.mirea.docsa2.model.SalesBucketKey;
+import ru.mirea.docsa2.model.SalesTotals;
+import ru.mirea.docsa2.repository.SalesAnalyticsRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SalesAnalyticsServiceTest {
+
+    @Mock
+    private SalesAnalyticsRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<Map<SalesBucketKey, SalesTotals>> bucketsCaptor;
+
+    private SalesAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        SalesAnalyticsProperties properties = new SalesAnalyticsProperties();
+        properties.getBackfill().setChunkSize(10);
+        service = new SalesAnalyticsService(repository, transactionManager, properties, Runnable::run);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void shouldBackfillOrderIdRangeInChunksBeforeCutoff() {
+        when(repository.lockBackfill()).thenReturn(backfill(SalesBackfillResponse.Status.NONE));
+        when(repository.findOrderIdRange()).thenReturn(new long[] {1, 25});
+        AtomicReference<LocalDateTime> startedCutoff = new AtomicReference<>();
+        doAnswer(invocation -> {
+            startedCutoff.set(invocation.getArgument(0));
+            return null;
+        }).when(repository).startBackfill(any());
+        when(repository.lockCutoff()).thenAnswer(invocation -> startedCutoff.get());
+        when(repository.aggregateOrders(anyLong(), anyLong(), any(), any())).thenAnswer(invocation -> {
+            SalesAnalyticsRepository.OrderSalesHandler handler = invocation.getArgument(3);
+            handler.accept(3L, 2L, LocalDateTime.now().withSecond(0).withNano(0), BigDecimal.TEN, 2, 4);
+            return 4L;
+        });
+        when(repository.finishBackfill(any(), any(), anyLong())).thenReturn(true);
+
+        Optional<SalesBackfillResponse> started = service.rebuild(false);
+
+        assertThat(started).isPresent();
+        LocalDateTime cutoff = started.get().cutoff();
+        assertThat(startedCutoff.get()).isEqualTo(cutoff);
+        verify(repository).aggregateOrders(eq(1L), eq(11L), eq(cutoff), any());
+        verify(repository).aggregateOrders(eq(11L), eq(21L), eq(cutoff), any());
+        verify(repository).aggregateOrders(eq(21L), eq(26L), eq(cutoff), any());
+        verify(repository, times(3)).addAll(bucketsCaptor.capture());
+        assertThat(bucketsCaptor.getValue()).hasSize(6);
+        verify(repository).finishBackfill(cutoff, SalesBackfillResponse.Status.COMPLETED, 12L);
+    }
+
+    @Test
+    void shouldRefuseToRestartRunningBackfillUnlessForced() {
+        when(repository.lockBackfill()).thenReturn(backfill(SalesBackfillResponse.Status.RUNNING));
+
+        assertThat(service.rebuild(false)).isEmpty();
+
+        verify(repository, never()).startBackfill(any());
+    }
+
+    @Test
+    void shouldRecordFailedBackfill() {
+        when(repository.lockBackfill()).thenReturn(backfill(SalesBackfillResponse.Status.RUNNING));
+        when(repository.findOrderIdRange()).thenThrow(new IllegalStateException("database unavailable"));
+        when(repository.finishBackfill(any(), any(), anyLong())).thenReturn(true);
+
+        assertThat(service.rebuild(true)).isPresent();
+
+        verify(repository).finishBackfill(any(), eq(SalesBackfillResponse.Status.FAILED), eq(0L));
+    }
+
+    private static SalesBackfillResponse backfill(SalesBackfillResponse.Status status) {
+        return new SalesBackfillResponse(status, LocalDateTime.of(1970, 1, 1, 0, 0), null, null, 0);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.mirea.docsa2.service;
+
+import org.junit.jupiter.api.Test;
+import ru.mirea.docsa2.config.SalesAnalyticsProperties;
+import ru.mirea.docsa2.model.SalesBucketKey;
+import ru.mirea.docsa2.model.SalesDimension;
+import ru.mirea.docsa2.model.SalesGranularity;
+import ru.mirea.docsa2.model.SalesTotals;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SalesRollupTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 10, 12, 30, 45);
+
+    @Test
+    void shouldAddSaleToEveryGranularityForBothDimensions() {
+        SalesRollup rollup = new SalesRollup(Map.of());
+
+        rollup.add(3L, 2L, NOW, new BigDecimal("10.50"), 2, 1);
+        rollup.add(3L, 5L, NOW.plusSeconds(5), new BigDecimal("4.50"), 1, 1);
+
+        assertThat(rollup.buckets()).hasSize(9);
+        SalesTotals product = rollup.buckets().get(new SalesBucketKey(SalesDimension.PRODUCT, SalesGranularity.MINUTE, 3L,
+            LocalDateTime.of(2024, 3, 10, 12, 30)));
+        assertThat(product.getRevenue()).isEqualByComparingTo("15.00");
+        assertThat(product.getQuantity()).isEqualTo(3);
+        assertThat(product.getOrders()).isEqualTo(2);
+        SalesTotals customer = rollup.buckets().get(new SalesBucketKey(SalesDimension.CUSTOMER, SalesGranularity.DAY, 5L,
+            LocalDateTime.of(2024, 3, 10, 0, 0)));
+        assertThat(customer.getRevenue()).isEqualByComparingTo("4.50");
+    }
+
+    @Test
+    void shouldSkipBucketsOlderThanRetention() {
+        SalesAnalyticsProperties.Retention retention = new SalesAnalyticsProperties.Retention();
+        retention.setMinute(Duration.ofHours(1));
+        retention.setHour(Duration.ofDays(1));
+        SalesRollup rollup = SalesRollup.retaining(retention, NOW);
+
+        rollup.add(3L, 2L, NOW.minusHours(3), BigDecimal.ONE, 1, 1);
+
+        assertThat(rollup.buckets().keySet())
+            .extracting(SalesBucketKey::granularity)
+            .containsOnly(SalesGranularity.HOUR, SalesGranularity.DAY);
+    }
+}
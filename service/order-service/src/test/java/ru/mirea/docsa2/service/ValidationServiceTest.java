@@ -1,28 +1,56 @@
 package ru.mirea.docsa2.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
 import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.config.ReplyRouting;
+import ru.mirea.docsa2.config.ValidationProperties;
 import ru.mirea.docsa2.event.CustomerValidationResponse;
+import ru.mirea.docsa2.event.ProductChangedEvent;
+import ru.mirea.docsa2.event.ProductValidationBatchResponse;
 import ru.mirea.docsa2.event.ProductValidationResponse;
+import ru.mirea.docsa2.event.StockReservationReleased;
 import ru.mirea.docsa2.event.ValidateCustomerRequest;
+import ru.mirea.docsa2.event.ValidateProductBatchRequest;
 import ru.mirea.docsa2.event.ValidateProductRequest;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ValidationServiceTest {
@@ -30,14 +58,27 @@ class ValidationServiceTest {
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
-    @InjectMocks
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, Object>> recordCaptor;
+
+    private final ReplyRouting replyRouting = new ReplyRouting(ReplyRouting.Mode.INSTANCE, "order-1");
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CustomerValidationCache customerValidationCache;
     private ValidationService validationService;
 
-    @Captor
-    private ArgumentCaptor<ValidateProductRequest> productRequestCaptor;
+    @BeforeEach
+    void setUp() {
+        customerValidationCache = new CustomerValidationCache(new ValidationProperties(), new SimpleMeterRegistry());
+        validationService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(new ValidationProperties(), new SimpleMeterRegistry()), customerValidationCache,
+            new ValidationProperties(), registry, Runnable::run);
+    }
 
-    @Captor
-    private ArgumentCaptor<ValidateCustomerRequest> customerRequestCaptor;
+    @AfterEach
+    void tearDown() {
+        validationService.shutdown();
+    }
 
     @Test
     void shouldSendProductValidationRequest() {
@@ -46,12 +87,11 @@ class ValidationServiceTest {
 
         CompletableFuture<ProductValidationResponse> future = validationService.validateProduct(productId, quantity);
 
-        verify(kafkaTemplate).send(eq(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC), any(String.class), productRequestCaptor.capture());
-        
-        ValidateProductRequest capturedRequest = productRequestCaptor.getValue();
+        ValidateProductRequest capturedRequest = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class);
         assertThat(capturedRequest.productId()).isEqualTo(productId);
         assertThat(capturedRequest.quantity()).isEqualTo(quantity);
         assertThat(capturedRequest.correlationId()).isNotNull();
+        assertThat(recordCaptor.getValue().key()).isEqualTo("1");
         assertThat(future).isNotNull();
         assertThat(future.isDone()).isFalse();
     }
@@ -62,11 +102,10 @@ class ValidationServiceTest {
 
         CompletableFuture<CustomerValidationResponse> future = validationService.validateCustomer(customerId);
 
-        verify(kafkaTemplate).send(eq(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC), any(String.class), customerRequestCaptor.capture());
-        
-        ValidateCustomerRequest capturedRequest = customerRequestCaptor.getValue();
+        ValidateCustomerRequest capturedRequest = sentRequest(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, ValidateCustomerRequest.class);
         assertThat(capturedRequest.customerId()).isEqualTo(customerId);
         assertThat(capturedRequest.correlationId()).isNotNull();
+        assertThat(recordCaptor.getValue().key()).isEqualTo("1");
         assertThat(future).isNotNull();
         assertThat(future.isDone()).isFalse();
     }
@@ -76,11 +115,10 @@ class ValidationServiceTest {
         Long productId = 1L;
         CompletableFuture<ProductValidationResponse> future = validationService.validateProduct(productId, 5);
 
-        verify(kafkaTemplate).send(eq(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC), any(String.class), productRequestCaptor.capture());
-        String correlationId = productRequestCaptor.getValue().correlationId();
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class).correlationId();
         
         ProductValidationResponse response = new ProductValidationResponse(
-            correlationId, productId, true, "Test Product", BigDecimal.TEN, null
+            correlationId, productId, true, "Test Product", BigDecimal.TEN, null, null
         );
 
         validationService.handleProductValidationResponse(response);
@@ -96,8 +134,7 @@ class ValidationServiceTest {
         Long customerId = 1L;
         CompletableFuture<CustomerValidationResponse> future = validationService.validateCustomer(customerId);
 
-        verify(kafkaTemplate).send(eq(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC), any(String.class), customerRequestCaptor.capture());
-        String correlationId = customerRequestCaptor.getValue().correlationId();
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, ValidateCustomerRequest.class).correlationId();
         
         CustomerValidationResponse response = new CustomerValidationResponse(
             correlationId, customerId, true, "John Doe", null
@@ -111,16 +148,34 @@ class ValidationServiceTest {
         assertThat(result.customerName()).isEqualTo("John Doe");
     }
 
+    @Test
+    void shouldAnswerRepeatedCustomerValidationFromCacheUntilInvalidated() throws Exception {
+        validationService.validateCustomer(1L);
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, ValidateCustomerRequest.class).correlationId();
+        CustomerValidationResponse response = new CustomerValidationResponse(correlationId, 1L, true, "John Doe", null);
+        validationService.handleCustomerValidationResponse(response);
+
+        CustomerValidationResponse cached = validationService.validateCustomer(1L).get(1, TimeUnit.SECONDS);
+
+        assertThat(cached).isEqualTo(response);
+        verifyNoMoreInteractions(kafkaTemplate);
+
+        customerValidationCache.invalidate(1L, System.currentTimeMillis());
+        CompletableFuture<CustomerValidationResponse> revalidated = validationService.validateCustomer(1L);
+
+        assertThat(revalidated.isDone()).isFalse();
+        verify(kafkaTemplate, times(2)).send(recordCaptor.capture());
+    }
+
     @Test
     void shouldHandleInvalidProduct() throws Exception {
         Long productId = 999L;
         CompletableFuture<ProductValidationResponse> future = validationService.validateProduct(productId, 5);
 
-        verify(kafkaTemplate).send(eq(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC), any(String.class), productRequestCaptor.capture());
-        String correlationId = productRequestCaptor.getValue().correlationId();
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class).correlationId();
         
         ProductValidationResponse response = new ProductValidationResponse(
-            correlationId, productId, false, null, null, "Product not found"
+            correlationId, productId, false, null, null, "Product not found", null
         );
 
         validationService.handleProductValidationResponse(response);
@@ -135,8 +190,7 @@ class ValidationServiceTest {
         Long customerId = 999L;
         CompletableFuture<CustomerValidationResponse> future = validationService.validateCustomer(customerId);
 
-        verify(kafkaTemplate).send(eq(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC), any(String.class), customerRequestCaptor.capture());
-        String correlationId = customerRequestCaptor.getValue().correlationId();
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, ValidateCustomerRequest.class).correlationId();
         
         CustomerValidationResponse response = new CustomerValidationResponse(
             correlationId, customerId, false, null, "Customer not found"
@@ -148,5 +202,556 @@ class ValidationServiceTest {
         assertThat(result.valid()).isFalse();
         assertThat(result.errorMessage()).isEqualTo("Customer not found");
     }
-}
 
+    @Test
+    void shouldStampRequestsWithDeadline() {
+        long before = System.currentTimeMillis();
+
+        validationService.validateCustomer(1L);
+
+        sentRequest(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, ValidateCustomerRequest.class);
+        byte[] header = recordCaptor.getValue().headers().lastHeader(KafkaConfig.DEADLINE_HEADER).value();
+        assertThat(Long.parseLong(new String(header, StandardCharsets.UTF_8)))
+            .isBetween(before + 5000, System.currentTimeMillis() + 5000);
+    }
+
+    @Test
+    void shouldRequestRepliesOnOwnedPartitionOfSharedTopics() {
+        replyRouting.assigned(List.of(new TopicPartition(KafkaConfig.PRODUCT_VALIDATION_RESPONSE_TOPIC, 4),
+            new TopicPartition(KafkaConfig.PRODUCT_VALIDATION_RESPONSE_TOPIC, 2)));
+
+        validationService.validateProduct(1L, 1);
+        validationService.validateCustomer(1L);
+
+        verify(kafkaTemplate, times(2)).send(recordCaptor.capture());
+
+        ProducerRecord<String, Object> product = recordCaptor.getAllValues().get(0);
+        ProducerRecord<String, Object> customer = recordCaptor.getAllValues().get(1);
+        assertThat(replyTopic(product)).isEqualTo("product-validation-response");
+        assertThat(ByteBuffer.wrap(product.headers().lastHeader(KafkaHeaders.REPLY_PARTITION).value()).getInt()).isEqualTo(2);
+        assertThat(replyTopic(customer)).isEqualTo("customer-validation-response");
+        assertThat(customer.headers().lastHeader(KafkaHeaders.REPLY_PARTITION)).isNull();
+        assertThat(registry.get("validation.reply.unrouted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCoalesceProductValidationsIntoBatch() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getProductBatch().setEnabled(true);
+        properties.getProductBatch().setMaxSize(2);
+        properties.getProductBatch().setWindow(Duration.ofSeconds(1));
+        ValidationService batchingService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, new SimpleMeterRegistry()),
+            new CustomerValidationCache(properties, new SimpleMeterRegistry()), properties, new SimpleMeterRegistry(), Runnable::run);
+
+        CompletableFuture<ProductValidationResponse> first = batchingService.validateProduct(1L, 1);
+        CompletableFuture<ProductValidationResponse> second = batchingService.validateProduct(2L, 3);
+
+        ValidateProductBatchRequest batch = sentRequest(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC, ValidateProductBatchRequest.class);
+        assertThat(batch.requests()).extracting(ValidateProductRequest::productId).containsExactly(1L, 2L);
+        assertThat(replyTopic(recordCaptor.getValue())).isEqualTo("product-validation-batch-response");
+
+        batchingService.handleProductValidationBatchResponse(new ProductValidationBatchResponse(batch.batchId(), List.of(
+            new ProductValidationResponse(batch.requests().get(1).correlationId(), 2L, false, null, null, "Product not found", null),
+            new ProductValidationResponse(batch.requests().get(0).correlationId(), 1L, true, "Test Product", BigDecimal.TEN, null, null)
+        )));
+
+        assertThat(first.get(1, TimeUnit.SECONDS).valid()).isTrue();
+        assertThat(second.get(1, TimeUnit.SECONDS).valid()).isFalse();
+        batchingService.shutdown();
+    }
+
+    @Test
+    void shouldSplitProductBatchByPartitionOfProductId() {
+        when(kafkaTemplate.partitionsFor(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC))
+            .thenReturn(partitions(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC));
+        ValidationService batchingService = batchingService(new SimpleMeterRegistry());
+
+        batchingService.validateProduct(1L, 1);
+        batchingService.validateProduct(2L, 3);
+
+        verify(kafkaTemplate, times(2)).send(recordCaptor.capture());
+        ProducerRecord<String, Object> first = recordCaptor.getAllValues().get(0);
+        ProducerRecord<String, Object> second = recordCaptor.getAllValues().get(1);
+        assertThat(first.partition()).isEqualTo(0);
+        assertThat(first.key()).isEqualTo("1");
+        assertThat(((ValidateProductBatchRequest) first.value()).requests()).extracting(ValidateProductRequest::productId)
+            .containsExactly(1L);
+        assertThat(second.partition()).isEqualTo(2);
+        assertThat(second.key()).isEqualTo("2");
+        assertThat(((ValidateProductBatchRequest) second.value()).requests()).extracting(ValidateProductRequest::productId)
+            .containsExactly(2L);
+        batchingService.shutdown();
+    }
+
+    @Test
+    void shouldShareInFlightCustomerValidation() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationProperties properties = new ValidationProperties();
+        ValidationService sharingService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry), new CustomerValidationCache(properties, meterRegistry),
+            properties, meterRegistry, Runnable::run);
+
+        CompletableFuture<CustomerValidationResponse> first = sharingService.validateCustomer(1L);
+        CompletableFuture<CustomerValidationResponse> second = sharingService.validateCustomer(1L);
+
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, ValidateCustomerRequest.class).correlationId();
+        CustomerValidationResponse response = new CustomerValidationResponse(correlationId, 1L, true, "John Doe", null);
+        sharingService.handleCustomerValidationResponse(response);
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(meterRegistry.get("validation.singleflight.saved").tag("type", "customer").counter().count()).isEqualTo(1);
+        sharingService.shutdown();
+    }
+
+    @Test
+    void shouldMergeQueuedValidationsOfSameProduct() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService batchingService = batchingService(meterRegistry);
+
+        CompletableFuture<ProductValidationResponse> first = batchingService.validateProduct(1L, 2);
+        CompletableFuture<ProductValidationResponse> second = batchingService.validateProduct(1L, 3);
+        batchingService.validateProduct(2L, 1);
+
+        ValidateProductBatchRequest batch = sentRequest(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC, ValidateProductBatchRequest.class);
+        assertThat(batch.requests()).extracting(ValidateProductRequest::productId).containsExactly(1L, 2L);
+        assertThat(batch.requests().get(0).quantity()).isEqualTo(5);
+
+        ProductValidationResponse response = new ProductValidationResponse(
+            batch.requests().get(0).correlationId(), 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-1");
+        batchingService.handleProductValidationBatchResponse(new ProductValidationBatchResponse(batch.batchId(), List.of(response)));
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(meterRegistry.get("validation.singleflight.saved").tag("type", "product").counter().count()).isEqualTo(1);
+        batchingService.shutdown();
+    }
+
+    @Test
+    void shouldShareRejectionOfUnknownProductWithCallersThatJoinedAfterSend() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService sharingService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(new ValidationProperties(), meterRegistry), new CustomerValidationCache(new ValidationProperties(), meterRegistry),
+            new ValidationProperties(), meterRegistry, Runnable::run);
+
+        CompletableFuture<ProductValidationResponse> first = sharingService.validateProduct(999L, 2);
+        CompletableFuture<ProductValidationResponse> second = sharingService.validateProduct(999L, 3);
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class).correlationId();
+
+        ProductValidationResponse response = new ProductValidationResponse(
+            correlationId, 999L, false, null, null, "Product not found", null);
+        sharingService.handleProductValidationResponse(response);
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        verify(kafkaTemplate, times(1)).send(recordCaptor.capture());
+        assertThat(meterRegistry.get("validation.singleflight.saved").tag("type", "product").counter().count()).isEqualTo(1);
+        sharingService.shutdown();
+    }
+
+    @Test
+    void shouldValidateCallersThatJoinedAfterSendInOneFollowUpRequest() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService sharingService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(new ValidationProperties(), meterRegistry), new CustomerValidationCache(new ValidationProperties(), meterRegistry),
+            new ValidationProperties(), meterRegistry, Runnable::run);
+
+        CompletableFuture<ProductValidationResponse> first = sharingService.validateProduct(1L, 2);
+        CompletableFuture<ProductValidationResponse> second = sharingService.validateProduct(1L, 3);
+        CompletableFuture<ProductValidationResponse> third = sharingService.validateProduct(1L, 4);
+        ValidateProductRequest request = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class);
+        assertThat(request.quantity()).isEqualTo(2);
+
+        ProductValidationResponse response = new ProductValidationResponse(
+            request.correlationId(), 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-1");
+        sharingService.handleProductValidationResponse(response);
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(second.isDone()).isFalse();
+        assertThat(third.isDone()).isFalse();
+        verify(kafkaTemplate, times(2)).send(recordCaptor.capture());
+        ValidateProductRequest followUp = (ValidateProductRequest) recordCaptor.getValue().value();
+        assertThat(followUp.quantity()).isEqualTo(7);
+
+        ProductValidationResponse followUpResponse = new ProductValidationResponse(
+            followUp.correlationId(), 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-2");
+        sharingService.handleProductValidationResponse(followUpResponse);
+
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(followUpResponse);
+        assertThat(third.get(1, TimeUnit.SECONDS)).isEqualTo(followUpResponse);
+        assertThat(meterRegistry.get("validation.singleflight.saved").tag("type", "product").counter().count()).isEqualTo(1);
+        sharingService.shutdown();
+    }
+
+    @Test
+    void shouldTimeOutCallerThatJoinedAfterSendByItsOwnDeadline() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getPending().setTimeout(Duration.ofMillis(300));
+        properties.getAdaptiveTimeout().setEnabled(false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService sharingService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry), new CustomerValidationCache(properties, meterRegistry),
+            properties, meterRegistry, Runnable::run);
+
+        sharingService.validateProduct(1L, 2);
+        CompletableFuture<ProductValidationResponse> late = sharingService.validateProduct(1L, 3);
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class).correlationId();
+        Thread.sleep(200);
+        sharingService.handleProductValidationResponse(new ProductValidationResponse(
+            correlationId, 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-1"));
+
+        assertThatThrownBy(() -> late.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        verify(kafkaTemplate, times(2)).send(recordCaptor.capture());
+        ValidateProductRequest followUp = (ValidateProductRequest) recordCaptor.getValue().value();
+        sharingService.handleProductValidationResponse(new ProductValidationResponse(
+            followUp.correlationId(), 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-2"));
+
+        verify(kafkaTemplate).send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, "reservation-2",
+            new StockReservationReleased("reservation-2", 1L, 3));
+        sharingService.shutdown();
+    }
+
+    @Test
+    void shouldKeepBatchedFlightJoinableUntilReplyArrives() throws Exception {
+        ValidationService batchingService = batchingService(new SimpleMeterRegistry());
+
+        CompletableFuture<ProductValidationResponse> first = batchingService.validateProduct(1L, 2);
+        batchingService.validateProduct(2L, 1);
+        ValidateProductBatchRequest batch = sentRequest(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC, ValidateProductBatchRequest.class);
+        CompletableFuture<ProductValidationResponse> late = batchingService.validateProduct(1L, 1);
+
+        ProductValidationResponse response = new ProductValidationResponse(
+            batch.requests().get(0).correlationId(), 1L, false, null, null, "Product not found", null);
+        batchingService.handleProductValidationBatchResponse(new ProductValidationBatchResponse(batch.batchId(), List.of(response)));
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(late.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        verify(kafkaTemplate, times(1)).send(recordCaptor.capture());
+        batchingService.shutdown();
+    }
+
+    @Test
+    void shouldReleaseReservationOfAbandonedValidationWhenReplyArrives() {
+        CompletableFuture<ProductValidationResponse> future = validationService.validateProduct(1L, 5);
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class).correlationId();
+
+        future.cancel(false);
+        validationService.handleProductValidationResponse(new ProductValidationResponse(
+            correlationId, 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-1"));
+
+        verify(kafkaTemplate).send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, "reservation-1",
+            new StockReservationReleased("reservation-1", 1L, 5));
+    }
+
+    @Test
+    void shouldIgnoreReplyToRequestOfAnotherPod() {
+        CompletableFuture<ProductValidationResponse> future = validationService.validateProduct(1L, 5);
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class).correlationId();
+        String foreignId = new CorrelationRegistry().format(1L);
+
+        validationService.handleProductValidationResponse(new ProductValidationResponse(
+            foreignId, 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-9"));
+
+        assertThat(foreignId).isNotEqualTo(correlationId);
+        assertThat(future).isNotDone();
+        verify(kafkaTemplate, never()).send(eq(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC), anyString(), any());
+    }
+
+    @Test
+    void shouldReleaseShareOfCallerThatAbandonedSharedValidation() throws Exception {
+        ValidationService batchingService = batchingService(new SimpleMeterRegistry());
+
+        CompletableFuture<ProductValidationResponse> first = batchingService.validateProduct(1L, 2);
+        CompletableFuture<ProductValidationResponse> second = batchingService.validateProduct(1L, 3);
+        batchingService.validateProduct(2L, 1);
+        ValidateProductBatchRequest batch = sentRequest(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC, ValidateProductBatchRequest.class);
+
+        second.cancel(false);
+        ProductValidationResponse response = new ProductValidationResponse(
+            batch.requests().get(0).correlationId(), 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-1");
+        batchingService.handleProductValidationBatchResponse(new ProductValidationBatchResponse(batch.batchId(), List.of(response)));
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        verify(kafkaTemplate).send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, "reservation-1",
+            new StockReservationReleased("reservation-1", 1L, 3));
+        batchingService.shutdown();
+    }
+
+    @Test
+    void shouldValidateCallersSeparatelyWhenMergedQuantityIsRejected() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService batchingService = batchingService(meterRegistry);
+
+        CompletableFuture<ProductValidationResponse> first = batchingService.validateProduct(1L, 2);
+        CompletableFuture<ProductValidationResponse> second = batchingService.validateProduct(1L, 3);
+        batchingService.validateProduct(2L, 1);
+
+        ValidateProductBatchRequest batch = sentRequest(KafkaConfig.VALIDATE_PRODUCT_BATCH_REQUEST_TOPIC, ValidateProductBatchRequest.class);
+        batchingService.handleProductValidationBatchResponse(new ProductValidationBatchResponse(batch.batchId(), List.of(
+            new ProductValidationResponse(batch.requests().get(0).correlationId(), 1L, false, "Test Product", BigDecimal.TEN,
+                "Insufficient stock", null))));
+
+        assertThat(first.isDone()).isFalse();
+        assertThat(second.isDone()).isFalse();
+        verify(kafkaTemplate, times(3)).send(recordCaptor.capture());
+        List<ProducerRecord<String, Object>> records = recordCaptor.getAllValues();
+        List<ValidateProductRequest> retries = records.subList(records.size() - 2, records.size()).stream()
+            .map(record -> (ValidateProductRequest) record.value())
+            .toList();
+        assertThat(retries).extracting(ValidateProductRequest::quantity).containsExactly(2, 3);
+
+        batchingService.handleProductValidationResponse(new ProductValidationResponse(
+            retries.get(0).correlationId(), 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-1"));
+        batchingService.handleProductValidationResponse(new ProductValidationResponse(
+            retries.get(1).correlationId(), 1L, false, "Test Product", BigDecimal.TEN, "Insufficient stock", null));
+
+        assertThat(first.get(1, TimeUnit.SECONDS).valid()).isTrue();
+        assertThat(second.get(1, TimeUnit.SECONDS).valid()).isFalse();
+        assertThat(meterRegistry.get("validation.singleflight.splits").counter().count()).isEqualTo(1);
+        batchingService.shutdown();
+    }
+
+    @Test
+    void shouldAnswerFromCatalogReplicaWithoutKafka() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getCatalog().setEnabled(true);
+        ProductCatalogReplica replica = new ProductCatalogReplica(properties, new SimpleMeterRegistry());
+        replica.apply(1L, new ProductChangedEvent(1L, "Test Product", BigDecimal.TEN, 100));
+        replica.markCaughtUp();
+        ValidationService localService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            replica, new CustomerValidationCache(properties, new SimpleMeterRegistry()), properties, new SimpleMeterRegistry(), Runnable::run);
+
+        ProductValidationResponse result = localService.validateProduct(1L, 5).get(1, TimeUnit.SECONDS);
+
+        assertThat(result.valid()).isTrue();
+        assertThat(result.price()).isEqualByComparingTo(BigDecimal.TEN);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void shouldReleaseUnusedReservation() {
+        ProductValidationResponse response = new ProductValidationResponse(
+            "corr-1", 1L, true, "Product", BigDecimal.TEN, null, "res-1"
+        );
+
+        validationService.releaseReservation(response, 3);
+        validationService.releaseReservation(new ProductValidationResponse(
+            "corr-2", 1L, true, "Product", BigDecimal.TEN, null, null
+        ), 3);
+
+        verify(kafkaTemplate).send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, "res-1",
+            new StockReservationReleased("res-1", 1L, 3));
+        verifyNoMoreInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void shouldRejectValidationsOverPendingLimit() {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getPending().setMaxInFlight(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService boundedService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry),
+            new CustomerValidationCache(properties, meterRegistry), properties, meterRegistry, Runnable::run);
+
+        boundedService.validateProduct(1L, 1);
+
+        assertThatThrownBy(() -> boundedService.validateCustomer(1L))
+            .isInstanceOf(ValidationCapacityExceededException.class);
+        assertThat(meterRegistry.get("validation.pending").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("validation.pending.rejections").counter().count()).isEqualTo(1);
+
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC, ValidateProductRequest.class).correlationId();
+        boundedService.handleProductValidationResponse(new ProductValidationResponse(
+            correlationId, 1L, true, "Test Product", BigDecimal.TEN, null, null
+        ));
+
+        assertThat(meterRegistry.get("validation.pending").gauge().value()).isZero();
+        assertThat(boundedService.validateCustomer(1L)).isNotDone();
+        boundedService.shutdown();
+    }
+
+    @Test
+    void shouldTimeOutUnansweredValidation() {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getPending().setTimeout(Duration.ofMillis(50));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService timingOutService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry),
+            new CustomerValidationCache(properties, meterRegistry), properties, meterRegistry, Runnable::run);
+
+        CompletableFuture<CustomerValidationResponse> future = timingOutService.validateCustomer(1L);
+
+        assertThatThrownBy(() -> future.get(2, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(meterRegistry.get("validation.timeouts").tag("type", "customer").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("validation.pending").gauge().value()).isZero();
+        timingOutService.shutdown();
+    }
+
+    @Test
+    void shouldDeriveTimeoutFromObservedRoundTrips() throws Exception {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getAdaptiveTimeout().setMinSamples(1);
+        properties.getAdaptiveTimeout().setMultiplier(1.0);
+        properties.getAdaptiveTimeout().setRefresh(Duration.ZERO);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService adaptiveService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry),
+            new CustomerValidationCache(properties, meterRegistry), properties, meterRegistry, Runnable::run);
+        assertThat(meterRegistry.get("validation.timeout").tag("type", "customer").timeGauge().value(TimeUnit.SECONDS)).isEqualTo(5);
+
+        CompletableFuture<CustomerValidationResponse> future = adaptiveService.validateCustomer(1L);
+        String correlationId = sentRequest(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC, ValidateCustomerRequest.class).correlationId();
+        adaptiveService.handleCustomerValidationResponse(new CustomerValidationResponse(correlationId, 1L, true, "John Doe", null));
+        future.get(1, TimeUnit.SECONDS);
+
+        assertThat(meterRegistry.get("validation.timeout").tag("type", "customer").timeGauge().value(TimeUnit.MILLISECONDS))
+            .isEqualTo(250);
+        assertThat(meterRegistry.get("validation.timeout").tag("type", "product").timeGauge().value(TimeUnit.SECONDS)).isEqualTo(5);
+        adaptiveService.shutdown();
+    }
+
+    @Test
+    void shouldHedgeSlowCustomerValidationToAnotherPartition() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService hedgingService = hedgingService(meterRegistry, KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC);
+
+        CompletableFuture<CustomerValidationResponse> future = hedgingService.validateCustomer(1L);
+
+        verify(kafkaTemplate, timeout(2000).times(2)).send(recordCaptor.capture());
+        ProducerRecord<String, Object> original = recordCaptor.getAllValues().get(0);
+        ProducerRecord<String, Object> hedge = recordCaptor.getAllValues().get(1);
+        assertThat(original.partition()).isNull();
+        assertThat(hedge.partition()).isNotNull();
+        assertThat(hedge.key()).isEqualTo(original.key()).isEqualTo("1");
+        String originalId = ((ValidateCustomerRequest) original.value()).correlationId();
+        String hedgeId = ((ValidateCustomerRequest) hedge.value()).correlationId();
+        assertThat(hedgeId).isNotEqualTo(originalId);
+
+        CustomerValidationResponse response = new CustomerValidationResponse(hedgeId, 1L, true, "John Doe", null);
+        hedgingService.handleCustomerValidationResponse(response);
+        hedgingService.handleCustomerValidationResponse(
+            new CustomerValidationResponse(originalId, 1L, true, "John Doe", null));
+
+        assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        assertThat(meterRegistry.get("validation.hedges").tag("type", "customer").tag("outcome", "sent").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("validation.hedge.wins").tag("type", "customer").counter().count()).isEqualTo(1);
+        hedgingService.shutdown();
+    }
+
+    @Test
+    void shouldReleaseReservationOfLosingProductReply() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationService hedgingService = hedgingService(meterRegistry, KafkaConfig.VALIDATE_PRODUCT_REQUEST_TOPIC);
+
+        CompletableFuture<ProductValidationResponse> future = hedgingService.validateProduct(1L, 5);
+
+        verify(kafkaTemplate, timeout(2000).times(2)).send(recordCaptor.capture());
+        String originalId = ((ValidateProductRequest) recordCaptor.getAllValues().get(0).value()).correlationId();
+        String hedgeId = ((ValidateProductRequest) recordCaptor.getAllValues().get(1).value()).correlationId();
+
+        ProductValidationResponse response = new ProductValidationResponse(
+            originalId, 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-1");
+        hedgingService.handleProductValidationResponse(response);
+        hedgingService.handleProductValidationResponse(new ProductValidationResponse(
+            hedgeId, 1L, true, "Test Product", BigDecimal.TEN, null, "reservation-2"));
+
+        assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo(response);
+        verify(kafkaTemplate).send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, "reservation-2",
+            new StockReservationReleased("reservation-2", 1L, Integer.MAX_VALUE));
+        assertThat(meterRegistry.get("validation.hedge.wins").tag("type", "product").counter().count()).isZero();
+        hedgingService.shutdown();
+    }
+
+    @Test
+    void shouldSendHedgeFromExecutorRatherThanTimerThread() throws Exception {
+        BlockingQueue<Runnable> hedges = new LinkedBlockingQueue<>();
+        ValidationService hedgingService = hedgingService(new SimpleMeterRegistry(), KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC,
+            hedges::add);
+
+        hedgingService.validateCustomer(1L);
+
+        Runnable hedge = hedges.poll(2, TimeUnit.SECONDS);
+        assertThat(hedge).isNotNull();
+        verify(kafkaTemplate, times(1)).send(recordCaptor.capture());
+        verify(kafkaTemplate, never()).partitionsFor(KafkaConfig.VALIDATE_CUSTOMER_REQUEST_TOPIC);
+
+        hedge.run();
+
+        verify(kafkaTemplate, times(2)).send(recordCaptor.capture());
+        assertThat(recordCaptor.getAllValues().get(recordCaptor.getAllValues().size() - 1).partition()).isNotNull();
+        hedgingService.shutdown();
+    }
+
+    @Test
+    void shouldNotHedgeOverBudget() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ValidationProperties properties = hedgingProperties();
+        properties.getHedging().setBudgetPercent(0);
+        ValidationService hedgingService = new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry), new CustomerValidationCache(properties, meterRegistry),
+            properties, meterRegistry, Runnable::run);
+
+        hedgingService.validateCustomer(1L);
+
+        Counter throttled = meterRegistry.get("validation.hedges").tag("type", "customer").tag("outcome", "throttled").counter();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (throttled.count() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(throttled.count()).isEqualTo(1);
+        verify(kafkaTemplate).send(recordCaptor.capture());
+        verify(kafkaTemplate, never()).partitionsFor(anyString());
+        hedgingService.shutdown();
+    }
+
+    private ValidationService hedgingService(SimpleMeterRegistry meterRegistry, String topic) {
+        return hedgingService(meterRegistry, topic, Runnable::run);
+    }
+
+    private ValidationService hedgingService(SimpleMeterRegistry meterRegistry, String topic, Executor executor) {
+        ValidationProperties properties = hedgingProperties();
+        when(kafkaTemplate.partitionsFor(topic)).thenReturn(partitions(topic));
+        return new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry), new CustomerValidationCache(properties, meterRegistry),
+            properties, meterRegistry, executor);
+    }
+
+    private static ValidationProperties hedgingProperties() {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getHedging().setProducts(true);
+        properties.getHedging().setMinSamples(0);
+        properties.getHedging().setMinDelay(Duration.ofMillis(20));
+        properties.getHedging().setBurst(1);
+        properties.getHedging().setBudgetPercent(100);
+        return properties;
+    }
+
+    private static List<PartitionInfo> partitions(String topic) {
+        return List.of(new PartitionInfo(topic, 0, null, null, null), new PartitionInfo(topic, 1, null, null, null),
+            new PartitionInfo(topic, 2, null, null, null));
+    }
+
+    private ValidationService batchingService(SimpleMeterRegistry meterRegistry) {
+        ValidationProperties properties = new ValidationProperties();
+        properties.getProductBatch().setEnabled(true);
+        properties.getProductBatch().setMaxSize(2);
+        properties.getProductBatch().setWindow(Duration.ofSeconds(1));
+        return new ValidationService(kafkaTemplate, replyRouting, new CorrelationRegistry(),
+            new ProductCatalogReplica(properties, meterRegistry), new CustomerValidationCache(properties, meterRegistry),
+            properties, meterRegistry, Runnable::run);
+    }
+
+    private <T> T sentRequest(String topic, Class<T> type) {
+        verify(kafkaTemplate).send(recordCaptor.capture());
+        ProducerRecord<String, Object> record = recordCaptor.getValue();
+        assertThat(record.topic()).isEqualTo(topic);
+        return type.cast(record.value());
+    }
+
+    private static String replyTopic(ProducerRecord<String, Object> record) {
+        return new String(record.headers().lastHeader(KafkaHeaders.REPLY_TOPIC).value(), StandardCharsets.UTF_8);
+    }
+}
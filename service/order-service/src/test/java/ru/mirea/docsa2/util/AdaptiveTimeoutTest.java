@@ -0,0 +1,91 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveTimeoutTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void shouldKeepInitialTimeoutUntilEnoughSamples() {
+        AdaptiveTimeout timeout = timeout(10);
+        for (int i = 0; i < 9; i++) {
+            timeout.record(Duration.ofMillis(20).toNanos());
+        }
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldScaleObservedPercentileWithinBounds() {
+        AdaptiveTimeout timeout = timeout(10);
+        for (int i = 0; i < 100; i++) {
+            timeout.record(Duration.ofMillis(200).toNanos());
+        }
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(timeout.current().toMillis()).isBetween(600L, 640L);
+
+        AdaptiveTimeout fast = timeout(10);
+        for (int i = 0; i < 100; i++) {
+            fast.record(Duration.ofMillis(1).toNanos());
+        }
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(fast.current()).isEqualTo(Duration.ofMillis(250));
+
+        AdaptiveTimeout slow = timeout(10);
+        for (int i = 0; i < 100; i++) {
+            slow.record(Duration.ofSeconds(8).toNanos());
+        }
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(slow.current()).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void shouldHoldLastTimeoutWhenRepliesStop() {
+        AdaptiveTimeout timeout = timeout(10);
+        for (int i = 0; i < 100; i++) {
+            timeout.record(Duration.ofMillis(100).toNanos());
+        }
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        Duration learned = timeout.current();
+
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        assertThat(timeout.current()).isEqualTo(learned).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldGrowTowardCeilingWhenRequestsTimeOut() {
+        AdaptiveTimeout timeout = timeout(10);
+        for (int i = 0; i < 100; i++) {
+            timeout.record(Duration.ofMillis(100).toNanos());
+        }
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        Duration learned = timeout.current();
+
+        for (int round = 0; round < 5; round++) {
+            now.addAndGet(Duration.ofSeconds(20).toNanos());
+            Duration waited = timeout.current();
+            for (int i = 0; i < 100; i++) {
+                timeout.recordTimeout(waited);
+            }
+        }
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertThat(learned).isLessThan(Duration.ofMillis(400));
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    private AdaptiveTimeout timeout(long minSamples) {
+        return new AdaptiveTimeout(Duration.ofSeconds(5), 0.999, 3.0, Duration.ofMillis(250), Duration.ofSeconds(10),
+            minSamples, Duration.ofMinutes(1), Duration.ofSeconds(1), now::get);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void shouldExpireEntriesAfterTtl() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10, Duration.ofSeconds(1), now::get);
+        cache.put("a", "1");
+
+        now.addAndGet(Duration.ofMillis(999).toNanos());
+        assertThat(cache.get("a")).isEqualTo("1");
+
+        now.addAndGet(Duration.ofMillis(1).toNanos());
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryOverCapacity() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(2, Duration.ofMinutes(1), now::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+
+        cache.put("c", "3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("3");
+    }
+
+    @Test
+    void shouldRemoveEntry() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10, Duration.ofMinutes(1), now::get);
+        cache.put("a", "1");
+
+        assertThat(cache.remove("a")).isEqualTo("1");
+        assertThat(cache.remove("a")).isNull();
+        assertThat(cache.get("a")).isNull();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    void shouldRejectAcquisitionsOverLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(2, 1, 100, 0.2, 600, 1.5, 0.9);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(FAST, 2, false);
+
+        assertThat(limit.inFlight()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldGrowWhileLatencyIsSteadyAndLoadIsHigh() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100, 0.2, 600, 1.5, 0.9);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, limit.limit(), false);
+        }
+
+        assertThat(limit.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void shouldNotGrowWhenMostlyIdle() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100, 0.2, 600, 1.5, 0.9);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, 1, false);
+        }
+
+        assertThat(limit.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldShrinkWhenLatencyRises() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 1, 100, 0.2, 600, 1.5, 0.9);
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, limit.limit(), false);
+        }
+        int steady = limit.limit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.release(SLOW, limit.limit(), false);
+        }
+
+        assertThat(limit.limit()).isLessThan(steady);
+    }
+
+    @Test
+    void shouldBackOffOnDropsButNotBelowMinimum() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 5, 100, 0.2, 600, 1.5, 0.9);
+
+        limit.tryAcquire();
+        limit.release(FAST, 1, true);
+        assertThat(limit.limit()).isEqualTo(18);
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, 1, true);
+        }
+        assertThat(limit.limit()).isEqualTo(5);
+    }
+}
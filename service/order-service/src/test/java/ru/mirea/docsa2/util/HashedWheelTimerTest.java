@@ -0,0 +1,60 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-wheel", Duration.ofMillis(5), 8);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void shouldRunTaskAfterDelay() throws Exception {
+        CountDownLatch expired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timer.newTimeout(expired::countDown, Duration.ofMillis(50));
+
+        assertThat(expired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(timer.pending()).isZero();
+    }
+
+    @Test
+    void shouldRunTaskSpanningSeveralRounds() throws Exception {
+        CountDownLatch expired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timer.newTimeout(expired::countDown, Duration.ofMillis(120));
+
+        assertThat(expired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(120));
+    }
+
+    @Test
+    void shouldNotRunCancelledTask() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(() -> ran.set(true), Duration.ofMillis(20));
+        assertThat(timer.pending()).isEqualTo(1);
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timer.pending()).isZero();
+        timer.newTimeout(later::countDown, Duration.ofMillis(60));
+
+        assertThat(later.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(ran).isFalse();
+        assertThat(timeout.cancel()).isFalse();
+    }
+}
@@ -0,0 +1,35 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgeBudgetTest {
+
+    @Test
+    void shouldAllowOneHedgePerTwentyRequestsAtFivePercent() {
+        HedgeBudget budget = new HedgeBudget(5, 10);
+        for (int i = 0; i < 19; i++) {
+            budget.deposit();
+        }
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        budget.deposit();
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    void shouldCapSavedHedgesAtBurst() {
+        HedgeBudget budget = new HedgeBudget(50, 2);
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.available()).isEqualTo(2);
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+}
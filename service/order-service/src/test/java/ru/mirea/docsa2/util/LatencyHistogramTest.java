@@ -0,0 +1,54 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void shouldEstimateQuantilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofMinutes(1), now::get);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(Duration.ofMillis(i).toNanos());
+        }
+
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.quantile(0.5).toMillis()).isBetween(500L, 532L);
+        assertThat(histogram.quantile(0.99).toMillis()).isBetween(990L, 1052L);
+        assertThat(histogram.quantile(1.0).toMillis()).isBetween(1000L, 1063L);
+    }
+
+    @Test
+    void shouldForgetSamplesOlderThanWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofSeconds(10), now::get);
+        histogram.record(Duration.ofSeconds(2).toNanos());
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        histogram.record(Duration.ofMillis(10).toNanos());
+        assertThat(histogram.count()).isEqualTo(2);
+        assertThat(histogram.quantile(1.0)).isGreaterThanOrEqualTo(Duration.ofSeconds(2));
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(histogram.count()).isEqualTo(1);
+        assertThat(histogram.quantile(1.0)).isLessThan(Duration.ofMillis(11));
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(histogram.count()).isZero();
+        assertThat(histogram.quantile(0.99)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void shouldMapValuesToBucketsThatContainThem() {
+        for (long micros : new long[]{0, 1, 15, 16, 17, 100, 1023, 1024, 123_456, 5_000_000}) {
+            int index = LatencyHistogram.index(micros);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThan(micros);
+            assertThat(index == 0 || LatencyHistogram.upperBound(index - 1) <= micros).isTrue();
+        }
+    }
+}
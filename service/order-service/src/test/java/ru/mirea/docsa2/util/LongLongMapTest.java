@@ -0,0 +1,59 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongLongMapTest {
+
+    @Test
+    void shouldPutGetAndRemove() {
+        LongLongMap map = new LongLongMap(2);
+
+        map.put(1L, 10L);
+        map.put(1L, 11L);
+        assertThat(map.get(1L, -1L)).isEqualTo(11L);
+        assertThat(map.size()).isEqualTo(1);
+
+        assertThat(map.remove(1L)).isTrue();
+        assertThat(map.remove(1L)).isFalse();
+        assertThat(map.get(1L, -1L)).isEqualTo(-1L);
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void shouldSupportZeroKey() {
+        LongLongMap map = new LongLongMap(2);
+
+        assertThat(map.get(0L, -1L)).isEqualTo(-1L);
+        map.put(0L, 5L);
+        assertThat(map.get(0L, -1L)).isEqualTo(5L);
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.remove(0L)).isTrue();
+        assertThat(map.get(0L, -1L)).isEqualTo(-1L);
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomOperations() {
+        LongLongMap map = new LongLongMap(2);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            } else {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key) != null);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key, -1L)).isEqualTo(value));
+    }
+}
@@ -0,0 +1,85 @@
+package ru.mirea.docsa2.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MicroBatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch flushed = new CountDownLatch(1);
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void shouldFlushWhenBatchIsFull() {
+        MicroBatcher<String> batcher = batcher(3, Duration.ofMinutes(1));
+
+        batcher.add("a");
+        batcher.add("b");
+        assertThat(batches).isEmpty();
+
+        batcher.add("c");
+
+        assertThat(batches).containsExactly(List.of("a", "b", "c"));
+        assertThat(meterRegistry.get("test.batch.size").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldFlushPartialBatchAfterWindow() throws Exception {
+        MicroBatcher<String> batcher = batcher(100, Duration.ofMillis(20));
+
+        batcher.add("a");
+        batcher.add("b");
+
+        assertThat(flushed.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(batches.get(0)).containsExactly("a", "b");
+        assertThat(meterRegistry.get("test.batch.delay").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFlushOnDemand() {
+        MicroBatcher<String> batcher = batcher(100, Duration.ofMinutes(1));
+
+        batcher.add("a");
+        batcher.flush();
+        batcher.flush();
+
+        assertThat(batches).containsExactly(List.of("a"));
+    }
+
+    private MicroBatcher<String> batcher(int maxSize, Duration window) {
+        return new MicroBatcher<>(maxSize, window, this::onBatch, scheduler,
+            DistributionSummary.builder("test.batch.size").register(meterRegistry),
+            Timer.builder("test.batch.delay").register(meterRegistry));
+    }
+
+    private void onBatch(List<String> batch) {
+        batches.add(batch);
+        flushed.countDown();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedLongMapTest {
+
+    @Test
+    void shouldPutGetAndRemove() {
+        StripedLongMap<String> map = new StripedLongMap<>(4, 2);
+
+        assertThat(map.put(1L, "a")).isNull();
+        assertThat(map.put(1L, "b")).isEqualTo("a");
+        assertThat(map.get(1L)).isEqualTo("b");
+        assertThat(map.size()).isEqualTo(1);
+
+        assertThat(map.remove(1L)).isEqualTo("b");
+        assertThat(map.get(1L)).isNull();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    void shouldRemoveOnlyMatchingValue() {
+        StripedLongMap<String> map = new StripedLongMap<>(4, 2);
+        String value = "a";
+        map.put(7L, value);
+
+        assertThat(map.remove(7L, "other")).isFalse();
+        assertThat(map.remove(7L, value)).isTrue();
+        assertThat(map.remove(7L, value)).isFalse();
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomOperations() {
+        StripedLongMap<Long> map = new StripedLongMap<>(2, 2);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            } else {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.mirea.docsa2.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StripedStockCounterBenchmark {
+
+    private static final long STOCK = Long.MAX_VALUE / 4;
+
+    @Param({"8", "32"})
+    private int stripes;
+
+    private StripedStockCounter striped;
+    private AtomicLong single;
+    private long locked;
+
+    @Setup
+    public void setUp() {
+        striped = new StripedStockCounter(stripes, STOCK);
+        single = new AtomicLong(STOCK);
+        locked = STOCK;
+    }
+
+    @Benchmark
+    public boolean striped() {
+        return striped.tryAcquire(1);
+    }
+
+    @Benchmark
+    public boolean singleAtomic() {
+        long current = single.get();
+        while (current >= 1) {
+            long witness = single.compareAndExchange(current, current - 1);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public synchronized boolean synchronizedCounter() {
+        if (locked < 1) {
+            return false;
+        }
+        locked--;
+        return true;
+    }
+}
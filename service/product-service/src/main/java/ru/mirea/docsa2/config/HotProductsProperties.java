@@ -0,0 +1,18 @@
+package ru.mirea.docsa2.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "hot-products")
+public class HotProductsProperties {
+
+    private int topK = 10;
+    private int capacity = 128;
+    private Duration decayInterval = Duration.ofMinutes(1);
+    private double decayFactor = 0.5;
+}
@@ -0,0 +1,56 @@
+package ru.mirea.docsa2.config;
+
+import java.util.Collection;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ReservationRouting {
+
+    private static final char SEPARATOR = ':';
+
+    private final NavigableSet<Integer> ownedPartitions = new ConcurrentSkipListSet<>();
+
+    public String newReservationId() {
+        String id = UUID.randomUUID().toString();
+        Integer partition = ownedPartitions.ceiling(0);
+        return partition != null ? partition + String.valueOf(SEPARATOR) + id : id;
+    }
+
+    public Integer remoteOwner(String reservationId) {
+        Integer owner = ownerOf(reservationId);
+        return owner == null || ownedPartitions.contains(owner) ? null : owner;
+    }
+
+    public void assigned(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            if (KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC.equals(partition.topic())) {
+                ownedPartitions.add(partition.partition());
+            }
+        }
+    }
+
+    public void revoked(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            if (KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC.equals(partition.topic())) {
+                ownedPartitions.remove(partition.partition());
+            }
+        }
+    }
+
+    static Integer ownerOf(String reservationId) {
+        int separator = reservationId.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(reservationId.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.mirea.docsa2.config;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stock")
+public class StockProperties {
+
+    private int stripes = 8;
+    private Duration flushInterval = Duration.ofMillis(200);
+    private final Reservation reservation = new Reservation();
+
+    @Getter
+    @Setter
+    public static class Reservation {
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration expiryInterval = Duration.ofSeconds(1);
+    }
+}
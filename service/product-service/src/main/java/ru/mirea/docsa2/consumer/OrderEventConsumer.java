@@ -1,20 +1,36 @@
 package ru.mirea.docsa2.consumer;
 
+import java.util.List;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
 import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.service.HotProductTracker;
+import ru.mirea.docsa2.service.StockReservationService;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class OrderEventConsumer {
 
-    @KafkaListener(topics = "order-created", groupId = "product-service")
-    public void handleOrderCreated(OrderCreatedEvent event) {
-        log.info("Received order created event: {}", event);
-        log.info("Product {} was ordered, quantity: {}", event.productId(), event.quantity());
+    private final StockReservationService stockReservationService;
+    private final HotProductTracker hotProductTracker;
+
+    @KafkaListener(
+        topics = KafkaConfig.ORDER_CREATED_TOPIC,
+        groupId = "product-service",
+        containerFactory = "batchListenerContainerFactory"
+    )
+    public void handleOrderCreated(List<OrderCreatedEvent> events) {
+        log.info("Received batch of {} order created events", events.size());
+        for (OrderCreatedEvent event : events) {
+            if (event != null) {
+                hotProductTracker.recordOrder(event.productId());
+                stockReservationService.confirm(event.reservationId(), event.productId(), event.quantity());
+            }
+        }
     }
 }
-
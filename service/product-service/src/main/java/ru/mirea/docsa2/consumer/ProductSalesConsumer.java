@@ -0,0 +1,30 @@
+package ru.mirea.docsa2.consumer;
+
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.service.ProductSalesService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSalesConsumer {
+
+    private final ProductSalesService productSalesService;
+
+    @KafkaListener(
+        topics = KafkaConfig.ORDER_CREATED_TOPIC,
+        groupId = "product-sales",
+        containerFactory = "batchListenerContainerFactory",
+        properties = "max.poll.records=${product.sales.max-poll-records:500}"
+    )
+    public void handleOrderCreated(List<OrderCreatedEvent> events) {
+        log.info("Projecting sales from batch of {} order created events", events.size());
+        productSalesService.record(events);
+    }
+}
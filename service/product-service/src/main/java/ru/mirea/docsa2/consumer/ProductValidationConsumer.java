@@ -1,51 +1,180 @@
 package ru.mirea.docsa2.consumer;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.ProductValidationBatchResponse;
 import ru.mirea.docsa2.event.ProductValidationResponse;
+import ru.mirea.docsa2.event.ValidateProductBatchRequest;
 import ru.mirea.docsa2.event.ValidateProductRequest;
-import ru.mirea.docsa2.repository.ProductRepository;
+import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.service.HotProductTracker;
+import ru.mirea.docsa2.service.ProductLookupCache;
+import ru.mirea.docsa2.service.StockReservationService;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class ProductValidationConsumer {
+public class ProductValidationConsumer implements ConsumerSeekAware {
 
-    private final ProductRepository productRepository;
+    private final ProductLookupCache productLookupCache;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final StockReservationService stockReservationService;
+    private final HotProductTracker hotProductTracker;
+    private final Counter served;
+    private final Counter expired;
+
+    public ProductValidationConsumer(ProductLookupCache productLookupCache, KafkaTemplate<String, Object> kafkaTemplate,
+                                     StockReservationService stockReservationService, HotProductTracker hotProductTracker,
+                                     MeterRegistry meterRegistry) {
+        this.productLookupCache = productLookupCache;
+        this.kafkaTemplate = kafkaTemplate;
+        this.stockReservationService = stockReservationService;
+        this.hotProductTracker = hotProductTracker;
+        this.served = requestCounter(meterRegistry, "served");
+        this.expired = requestCounter(meterRegistry, "expired");
+    }
 
     @KafkaListener(topics = "validate-product-request", groupId = "product-service")
-    public void handleValidateProductRequest(ValidateProductRequest request) {
+    public void handleValidateProductRequest(ValidateProductRequest request,
+                                             @Header(name = KafkaHeaders.REPLY_TOPIC, required = false) byte[] replyTopic,
+                                             @Header(name = KafkaHeaders.REPLY_PARTITION, required = false) byte[] replyPartition,
+                                             @Header(name = KafkaConfig.DEADLINE_HEADER, required = false) byte[] deadline,
+                                             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+        if (isExpired(deadline)) {
+            expired.increment();
+            log.debug("Skipping expired product validation request: {}", request);
+            return;
+        }
+        served.increment();
         log.info("Received product validation request: {}", request);
 
-        var product = productRepository.findById(request.productId());
+        var product = productLookupCache.find(new TopicPartition(topic, partition), request.productId());
+        ProductValidationResponse response = toResponse(request, product.orElse(null));
+
+        log.info("Sending product validation response: {}", response);
+        reply(replyTopicOrDefault(replyTopic, "product-validation-response"), replyPartition, request.correlationId(), response);
+    }
+
+    @KafkaListener(topics = "validate-product-batch-request", groupId = "product-service")
+    public void handleValidateProductBatchRequest(ValidateProductBatchRequest batch,
+                                                  @Header(name = KafkaHeaders.REPLY_TOPIC, required = false) byte[] replyTopic,
+                                                  @Header(name = KafkaHeaders.REPLY_PARTITION, required = false) byte[] replyPartition,
+                                                  @Header(name = KafkaConfig.DEADLINE_HEADER, required = false) byte[] deadline,
+                                                  @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                                  @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+        if (isExpired(deadline)) {
+            expired.increment(batch.requests().size());
+            log.debug("Skipping expired product validation batch {} with {} requests", batch.batchId(), batch.requests().size());
+            return;
+        }
+        served.increment(batch.requests().size());
+        log.info("Received product validation batch {} with {} requests", batch.batchId(), batch.requests().size());
+
+        Set<Long> productIds = batch.requests().stream()
+                .map(ValidateProductRequest::productId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productLookupCache.findAll(new TopicPartition(topic, partition), productIds);
 
-        ProductValidationResponse response;
-        if (product.isEmpty()) {
-            response = new ProductValidationResponse(
+        List<ProductValidationResponse> responses = batch.requests().stream()
+                .map(request -> toResponse(request, products.get(request.productId())))
+                .toList();
+
+        log.info("Sending product validation batch response {} with {} responses", batch.batchId(), responses.size());
+        reply(replyTopicOrDefault(replyTopic, "product-validation-batch-response"), replyPartition, batch.batchId(),
+            new ProductValidationBatchResponse(batch.batchId(), responses));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        productLookupCache.onAssigned(assignments.keySet());
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        productLookupCache.onRevoked(partitions);
+    }
+
+    private ProductValidationResponse toResponse(ValidateProductRequest request, Product product) {
+        hotProductTracker.recordValidation(request.productId());
+        if (product == null) {
+            return new ProductValidationResponse(
                 request.correlationId(),
                 request.productId(),
                 false,
                 null,
                 null,
-                "Product not found"
+                "Product not found",
+                null
             );
-        } else {
-            response = new ProductValidationResponse(
+        }
+        return stockReservationService.reserve(product, request.quantity())
+            .map(reservationId -> new ProductValidationResponse(
                 request.correlationId(),
                 request.productId(),
                 true,
-                product.get().getName(),
-                product.get().getPrice(),
+                product.getName(),
+                product.getPrice(),
+                null,
+                reservationId
+            ))
+            .orElseGet(() -> new ProductValidationResponse(
+                request.correlationId(),
+                request.productId(),
+                false,
+                product.getName(),
+                product.getPrice(),
+                "Insufficient stock",
                 null
-            );
+            ));
+    }
+
+    private static boolean isExpired(byte[] deadline) {
+        if (deadline == null || deadline.length == 0) {
+            return false;
         }
+        try {
+            return System.currentTimeMillis() > Long.parseLong(new String(deadline, StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
 
-        log.info("Sending product validation response: {}", response);
-        kafkaTemplate.send("product-validation-response", request.correlationId(), response);
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("product.validation.requests")
+            .description("Product validation requests consumed, by whether they were answered or skipped past their deadline")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
     }
-}
 
+    private void reply(String topic, byte[] partition, String key, Object response) {
+        if (partition == null || partition.length != Integer.BYTES) {
+            kafkaTemplate.send(topic, key, response);
+        } else {
+            kafkaTemplate.send(topic, ByteBuffer.wrap(partition).getInt(), key, response);
+        }
+    }
+
+    private static String replyTopicOrDefault(byte[] replyTopic, String defaultTopic) {
+        if (replyTopic == null || replyTopic.length == 0) {
+            return defaultTopic;
+        }
+        return new String(replyTopic, StandardCharsets.UTF_8);
+    }
+}
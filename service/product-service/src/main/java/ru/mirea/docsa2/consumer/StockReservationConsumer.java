@@ -0,0 +1,51 @@
+package ru.mirea.docsa2.consumer;
+
+import java.util.Collection;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.config.ReservationRouting;
+import ru.mirea.docsa2.event.StockReservationConfirmed;
+import ru.mirea.docsa2.event.StockReservationReleased;
+import ru.mirea.docsa2.service.StockReservationService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@KafkaListener(topics = KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, groupId = "product-service")
+public class StockReservationConsumer implements ConsumerSeekAware {
+
+    private final StockReservationService stockReservationService;
+    private final ReservationRouting reservationRouting;
+
+    @KafkaHandler
+    public void handleReservationReleased(StockReservationReleased event) {
+        log.debug("Releasing stock reservation: {}", event);
+        stockReservationService.release(event.reservationId(), event.productId(), event.quantity());
+    }
+
+    @KafkaHandler
+    public void handleReservationConfirmed(StockReservationConfirmed event) {
+        log.debug("Confirming forwarded stock reservation: {}", event);
+        stockReservationService.confirm(event.reservationId(), event.productId(), event.quantity());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        log.info("Stock reservation partitions assigned: {}", assignments.keySet());
+        reservationRouting.assigned(assignments.keySet());
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        log.info("Stock reservation partitions revoked: {}", partitions);
+        reservationRouting.revoked(partitions);
+    }
+}
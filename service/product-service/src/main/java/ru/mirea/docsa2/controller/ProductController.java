@@ -13,12 +13,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.mirea.docsa2.dto.CreateProductRequest;
 import ru.mirea.docsa2.dto.UpdateProductRequest;
 import ru.mirea.docsa2.dto.ProductResponse;
 import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.producer.ProductEventProducer;
 import ru.mirea.docsa2.repository.ProductRepository;
+import ru.mirea.docsa2.service.ProductLookupCache;
+import ru.mirea.docsa2.util.KeysetPage;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 @RestController
 @RequestMapping("/products")
@@ -26,14 +32,25 @@ import ru.mirea.docsa2.repository.ProductRepository;
 public class ProductController {
 
     private final ProductRepository productRepository;
+    private final ProductEventProducer productEventProducer;
+    private final ProductLookupCache productLookupCache;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @GetMapping
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll().stream()
+    public List<ProductResponse> getAllProducts(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+        List<Product> products = KeysetPage.requested(afterId, limit)
+                ? productRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.after(afterId), KeysetPage.limit(limit))
+                : productRepository.findAll();
+        return products.stream()
                 .map(ProductResponse::from)
                 .toList();
     }
 
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return ndjsonStreamer.stream(productRepository::streamAllByOrderByIdAsc, ProductResponse::from);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
         return productRepository.findById(id)
@@ -50,6 +67,7 @@ public class ProductController {
         product.setQuantity(request.quantity());
         
         Product saved = productRepository.save(product);
+        productEventProducer.sendProductChanged(saved);
         return ResponseEntity.status(HttpStatus.CREATED).body(ProductResponse.from(saved));
     }
 
@@ -62,6 +80,8 @@ public class ProductController {
                     if (request.quantity() != null) product.setQuantity(request.quantity());
                     
                     Product updated = productRepository.save(product);
+                    productLookupCache.invalidate(id);
+                    productEventProducer.sendProductChanged(updated);
                     return ResponseEntity.ok(ProductResponse.from(updated));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -73,6 +93,8 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
         productRepository.deleteById(id);
+        productLookupCache.invalidate(id);
+        productEventProducer.sendProductDeleted(id);
         return ResponseEntity.noContent().build();
     }
 }
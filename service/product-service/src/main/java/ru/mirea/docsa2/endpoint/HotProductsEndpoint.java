@@ -0,0 +1,46 @@
+package ru.mirea.docsa2.endpoint;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.service.HotProductTracker;
+import ru.mirea.docsa2.util.SpaceSavingSketch;
+
+@Component
+@Endpoint(id = "hotproducts")
+@RequiredArgsConstructor
+public class HotProductsEndpoint {
+
+    private final HotProductTracker hotProductTracker;
+
+    @ReadOperation
+    public Map<HotProductTracker.Source, List<HotProduct>> hotProducts() {
+        Map<HotProductTracker.Source, List<HotProduct>> hotProducts = new EnumMap<>(HotProductTracker.Source.class);
+        for (HotProductTracker.Source source : HotProductTracker.Source.values()) {
+            hotProducts.put(source, top(source));
+        }
+        return hotProducts;
+    }
+
+    @ReadOperation
+    public List<HotProduct> hotProducts(@Selector HotProductTracker.Source source) {
+        return top(source);
+    }
+
+    private List<HotProduct> top(HotProductTracker.Source source) {
+        return hotProductTracker.top(source).stream().map(HotProduct::from).toList();
+    }
+
+    public record HotProduct(long productId, long count, long maxOvercount) {
+
+        static HotProduct from(SpaceSavingSketch.Entry entry) {
+            return new HotProduct(entry.key(), Math.round(entry.count()), Math.round(entry.error()));
+        }
+    }
+}
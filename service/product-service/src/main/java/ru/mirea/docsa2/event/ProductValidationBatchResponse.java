@@ -0,0 +1,8 @@
+package ru.mirea.docsa2.event;
+
+import java.util.List;
+
+public record ProductValidationBatchResponse(
+    String batchId,
+    List<ProductValidationResponse> responses
+) {}
@@ -8,6 +8,7 @@ public record ProductValidationResponse(
     boolean valid,
     String productName,
     BigDecimal price,
-    String errorMessage
+    String errorMessage,
+    String reservationId
 ) {}
 
@@ -0,0 +1,7 @@
+package ru.mirea.docsa2.event;
+
+public record StockReservationConfirmed(
+    String reservationId,
+    Long productId,
+    Integer quantity
+) {}
@@ -0,0 +1,63 @@
+package ru.mirea.docsa2.producer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.ProductChangedEvent;
+import ru.mirea.docsa2.event.StockReservationConfirmed;
+import ru.mirea.docsa2.event.StockReservationReleased;
+import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.repository.ProductRepository;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductEventProducer {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ProductRepository productRepository;
+
+    @Value("${product.catalog.publish-snapshot-on-startup:true}")
+    private boolean publishSnapshotOnStartup;
+
+    public void sendProductChanged(Product product) {
+        ProductChangedEvent event = new ProductChangedEvent(
+            product.getId(),
+            product.getName(),
+            product.getPrice(),
+            product.getQuantity()
+        );
+        log.info("Sending product changed event: {}", event);
+        kafkaTemplate.send(KafkaConfig.PRODUCT_CATALOG_TOPIC, product.getId().toString(), event);
+    }
+
+    public void sendProductDeleted(Long productId) {
+        log.info("Sending product deleted tombstone for product {}", productId);
+        kafkaTemplate.send(KafkaConfig.PRODUCT_CATALOG_TOPIC, productId.toString(), null);
+    }
+
+    public void sendReservationConfirmed(int partition, StockReservationConfirmed event) {
+        log.debug("Forwarding stock reservation confirm to partition {}: {}", partition, event);
+        kafkaTemplate.send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, partition, event.reservationId(), event);
+    }
+
+    public void sendReservationReleased(int partition, StockReservationReleased event) {
+        log.debug("Forwarding stock reservation release to partition {}: {}", partition, event);
+        kafkaTemplate.send(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, partition, event.reservationId(), event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishCatalogSnapshot() {
+        if (!publishSnapshotOnStartup) {
+            return;
+        }
+        var products = productRepository.findAll();
+        products.forEach(this::sendProductChanged);
+        log.info("Published catalog snapshot with {} products", products.size());
+    }
+}
@@ -0,0 +1,31 @@
+package ru.mirea.docsa2.repository;
+
+import java.sql.Timestamp;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductSalesRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int addAll(Long[] productIds, Long[] quantities, Long[] orders, Timestamp[] lastSoldAt) {
+        return jdbcTemplate.update("""
+                insert into product_sales (product_id, sold_quantity, order_count, last_sold_at)
+                select * from unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::timestamp[])
+                on conflict (product_id) do update set
+                    sold_quantity = product_sales.sold_quantity + excluded.sold_quantity,
+                    order_count = product_sales.order_count + excluded.order_count,
+                    last_sold_at = greatest(product_sales.last_sold_at, excluded.last_sold_at)
+                """,
+            ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds));
+                ps.setArray(2, ps.getConnection().createArrayOf("bigint", quantities));
+                ps.setArray(3, ps.getConnection().createArrayOf("bigint", orders));
+                ps.setArray(4, ps.getConnection().createArrayOf("timestamp", lastSoldAt));
+            });
+    }
+}
@@ -0,0 +1,41 @@
+package ru.mirea.docsa2.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.mirea.docsa2.model.Product;
+
+@Repository
+@RequiredArgsConstructor
+public class StockRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Product> applyDeltas(Long[] productIds, Long[] deltas) {
+        return jdbcTemplate.query("""
+                update products p set quantity = p.quantity + d.delta
+                from unnest(?::bigint[], ?::bigint[]) as d(id, delta)
+                where p.id = d.id
+                returning p.id, p.name, p.price, p.quantity
+                """,
+            ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds));
+                ps.setArray(2, ps.getConnection().createArrayOf("bigint", deltas));
+            },
+            (rs, rowNum) -> toProduct(rs));
+    }
+
+    public List<Product> findAllByIds(Long[] productIds) {
+        return jdbcTemplate.query("select id, name, price, quantity from products where id = any(?::bigint[])",
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds)),
+            (rs, rowNum) -> toProduct(rs));
+    }
+
+    private static Product toProduct(ResultSet rs) throws SQLException {
+        return new Product(rs.getLong("id"), rs.getString("name"), rs.getBigDecimal("price"), rs.getInt("quantity"));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.mirea.docsa2.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.mirea.docsa2.config.HotProductsProperties;
+import ru.mirea.docsa2.util.SpaceSavingSketch;
+
+@Slf4j
+@Service
+public class HotProductTracker {
+
+    public enum Source {
+        VALIDATION, ORDER
+    }
+
+    private final int topK;
+    private final double decayFactor;
+    private final Map<Source, SpaceSavingSketch> sketches;
+    private final Map<Source, List<SpaceSavingSketch.Entry>> snapshots;
+
+    public HotProductTracker(HotProductsProperties properties, MeterRegistry meterRegistry) {
+        this.topK = properties.getTopK();
+        this.decayFactor = properties.getDecayFactor();
+        this.sketches = Map.of(
+            Source.VALIDATION, new SpaceSavingSketch(properties.getCapacity()),
+            Source.ORDER, new SpaceSavingSketch(properties.getCapacity())
+        );
+        this.snapshots = new ConcurrentHashMap<>();
+        for (Source source : Source.values()) {
+            snapshots.put(source, List.of());
+            for (int rank = 1; rank <= topK; rank++) {
+                registerRank(meterRegistry, source, rank);
+            }
+        }
+    }
+
+    public void recordValidation(Long productId) {
+        if (productId != null) {
+            sketches.get(Source.VALIDATION).offer(productId, 1);
+        }
+    }
+
+    public void recordOrder(Long productId) {
+        if (productId != null) {
+            sketches.get(Source.ORDER).offer(productId, 1);
+        }
+    }
+
+    public List<SpaceSavingSketch.Entry> top(Source source) {
+        return sketches.get(source).top(topK);
+    }
+
+    @Scheduled(fixedDelayString = "${hot-products.decay-interval:1m}")
+    public void decay() {
+        for (Source source : Source.values()) {
+            SpaceSavingSketch sketch = sketches.get(source);
+            snapshots.put(source, sketch.top(topK));
+            sketch.decay(decayFactor);
+        }
+        log.debug("Hot products by validations: {}", snapshots.get(Source.VALIDATION));
+    }
+
+    private void registerRank(MeterRegistry meterRegistry, Source source, int rank) {
+        String sourceTag = source.name().toLowerCase();
+        String rankTag = String.valueOf(rank);
+        Gauge.builder("products.hot.id", this, tracker -> tracker.ranked(source, rank, true))
+            .description("Id of the product at this rank of the decayed heavy-hitter sketch, or -1 when the rank is empty")
+            .tags("source", sourceTag, "rank", rankTag)
+            .register(meterRegistry);
+        Gauge.builder("products.hot.count", this, tracker -> tracker.ranked(source, rank, false))
+            .description("Estimated decayed event count of the product at this rank of the heavy-hitter sketch")
+            .tags("source", sourceTag, "rank", rankTag)
+            .register(meterRegistry);
+    }
+
+    private double ranked(Source source, int rank, boolean id) {
+        List<SpaceSavingSketch.Entry> snapshot = snapshots.get(source);
+        if (rank > snapshot.size()) {
+            return id ? -1 : 0;
+        }
+        SpaceSavingSketch.Entry entry = snapshot.get(rank - 1);
+        return id ? entry.key() : entry.count();
+    }
+}
@@ -0,0 +1,111 @@
+package ru.mirea.docsa2.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Service;
+import ru.mirea.docsa2.config.ProductValidationProperties;
+import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.repository.ProductRepository;
+import ru.mirea.docsa2.util.PartitionLocalCache;
+
+@Slf4j
+@Service
+public class ProductLookupCache {
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final PartitionLocalCache<Long, Product> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ProductLookupCache(ProductRepository productRepository, ProductValidationProperties properties,
+                              MeterRegistry meterRegistry) {
+        ProductValidationProperties.Cache settings = properties.getCache();
+        this.productRepository = productRepository;
+        this.enabled = settings.isEnabled();
+        this.cache = new PartitionLocalCache<>(settings.getMaxSizePerPartition(), settings.getTtl());
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("product.validation.cache.size", cache, PartitionLocalCache::size)
+            .description("Products cached across the validation partitions assigned to this instance")
+            .register(meterRegistry);
+        Gauge.builder("product.validation.cache.partitions", cache, PartitionLocalCache::partitions)
+            .description("Validation partitions with a local product cache on this instance")
+            .register(meterRegistry);
+    }
+
+    public Optional<Product> find(TopicPartition partition, Long productId) {
+        if (enabled && partition != null) {
+            Product cached = cache.get(partition, productId);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            misses.increment();
+        }
+        Optional<Product> product = productRepository.findById(productId);
+        if (enabled && partition != null) {
+            product.ifPresent(found -> cache.put(partition, productId, found));
+        }
+        return product;
+    }
+
+    public Map<Long, Product> findAll(TopicPartition partition, Collection<Long> productIds) {
+        Map<Long, Product> products = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long productId : productIds) {
+            Product cached = enabled && partition != null ? cache.get(partition, productId) : null;
+            if (cached != null) {
+                products.put(productId, cached);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (enabled && partition != null) {
+            hits.increment(products.size());
+            misses.increment(missing.size());
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : productRepository.findAllById(missing)) {
+                products.put(product.getId(), product);
+                if (enabled && partition != null) {
+                    cache.put(partition, product.getId(), product);
+                }
+            }
+        }
+        return products;
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    public void onAssigned(Collection<TopicPartition> partitions) {
+        if (enabled) {
+            cache.assign(partitions);
+            log.debug("Started product caches for partitions {}", partitions);
+        }
+    }
+
+    public void onRevoked(Collection<TopicPartition> partitions) {
+        cache.revoke(partitions);
+        log.debug("Dropped product caches for partitions {}", partitions);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("product.validation.cache.lookups")
+            .description("Product lookups for validation answered from the partition-local cache or the database")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
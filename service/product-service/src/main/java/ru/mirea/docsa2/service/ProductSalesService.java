@@ -0,0 +1,80 @@
+package ru.mirea.docsa2.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.repository.ProductSalesRepository;
+
+@Slf4j
+@Service
+public class ProductSalesService {
+
+    private final ProductSalesRepository productSalesRepository;
+    private final DistributionSummary batchSize;
+    private final Timer upserts;
+
+    public ProductSalesService(ProductSalesRepository productSalesRepository, MeterRegistry meterRegistry) {
+        this.productSalesRepository = productSalesRepository;
+        this.batchSize = DistributionSummary.builder("product.sales.batch.size")
+            .description("Order created events applied per product sales upsert")
+            .register(meterRegistry);
+        this.upserts = Timer.builder("product.sales.upsert")
+            .description("Time to upsert aggregated product sales for one batch of order created events")
+            .register(meterRegistry);
+    }
+
+    public void record(List<OrderCreatedEvent> events) {
+        Map<Long, Sales> sales = new TreeMap<>();
+        for (OrderCreatedEvent event : events) {
+            if (event == null || event.productId() == null || event.quantity() == null) {
+                continue;
+            }
+            sales.computeIfAbsent(event.productId(), id -> new Sales()).add(event);
+        }
+        batchSize.record(events.size());
+        if (sales.isEmpty()) {
+            return;
+        }
+
+        int size = sales.size();
+        Long[] productIds = new Long[size];
+        Long[] quantities = new Long[size];
+        Long[] orders = new Long[size];
+        Timestamp[] lastSoldAt = new Timestamp[size];
+        int i = 0;
+        for (Map.Entry<Long, Sales> entry : sales.entrySet()) {
+            productIds[i] = entry.getKey();
+            quantities[i] = entry.getValue().quantity;
+            orders[i] = entry.getValue().orders;
+            lastSoldAt[i] = Timestamp.valueOf(entry.getValue().lastSoldAt);
+            i++;
+        }
+        upserts.record(() -> productSalesRepository.addAll(productIds, quantities, orders, lastSoldAt));
+        log.debug("Recorded sales of {} products from {} order created events", size, events.size());
+    }
+
+    private static final class Sales {
+
+        private long quantity;
+        private long orders;
+        private LocalDateTime lastSoldAt;
+
+        private void add(OrderCreatedEvent event) {
+            quantity += event.quantity();
+            orders++;
+            LocalDateTime createdAt = event.createdAt() != null ? event.createdAt() : LocalDateTime.now();
+            if (lastSoldAt == null || createdAt.isAfter(lastSoldAt)) {
+                lastSoldAt = createdAt;
+            }
+        }
+    }
+}
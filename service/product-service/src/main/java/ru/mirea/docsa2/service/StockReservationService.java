@@ -0,0 +1,298 @@
+package ru.mirea.docsa2.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.mirea.docsa2.config.ReservationRouting;
+import ru.mirea.docsa2.config.StockProperties;
+import ru.mirea.docsa2.event.StockReservationConfirmed;
+import ru.mirea.docsa2.event.StockReservationReleased;
+import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.producer.ProductEventProducer;
+import ru.mirea.docsa2.repository.StockRepository;
+import ru.mirea.docsa2.util.StripedStockCounter;
+
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private final StockRepository stockRepository;
+    private final ProductEventProducer productEventProducer;
+    private final ReservationRouting reservationRouting;
+    private final int stripes;
+    private final long ttlNanos;
+    private final Map<Long, ProductStock> stocks = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> untrackedSales = new ConcurrentHashMap<>();
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Counter cancelled;
+    private final Counter expired;
+    private final Counter forwardedConfirms;
+    private final Counter forwardedReleases;
+    private final Timer flushes;
+
+    public StockReservationService(StockRepository stockRepository, ProductEventProducer productEventProducer,
+                                   ReservationRouting reservationRouting, StockProperties properties, MeterRegistry meterRegistry) {
+        this.stockRepository = stockRepository;
+        this.productEventProducer = productEventProducer;
+        this.reservationRouting = reservationRouting;
+        this.stripes = properties.getStripes();
+        this.ttlNanos = properties.getReservation().getTtl().toNanos();
+        this.reserved = reservationCounter(meterRegistry, "reserved");
+        this.rejected = reservationCounter(meterRegistry, "rejected");
+        this.cancelled = releaseCounter(meterRegistry, "cancelled");
+        this.expired = releaseCounter(meterRegistry, "expired");
+        this.forwardedConfirms = forwardCounter(meterRegistry, "confirm");
+        this.forwardedReleases = forwardCounter(meterRegistry, "release");
+        this.flushes = Timer.builder("stock.flush")
+            .description("Time to write net stock deltas back to the database")
+            .register(meterRegistry);
+        Gauge.builder("stock.reservations.active", reservations, Map::size)
+            .description("Stock reservations held in memory and not yet confirmed, cancelled or expired")
+            .register(meterRegistry);
+        Gauge.builder("stock.products.tracked", stocks, Map::size)
+            .description("Products with an in-memory stock counter")
+            .register(meterRegistry);
+    }
+
+    public Optional<String> reserve(Product product, int quantity) {
+        ProductStock stock = stocks.computeIfAbsent(product.getId(),
+            id -> new ProductStock(new StripedStockCounter(stripes, product.getQuantity()), product.getQuantity()));
+        if (!stock.counter.tryAcquire(quantity)) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        String reservationId = reservationRouting.newReservationId();
+        reservations.put(reservationId, new Reservation(product.getId(), quantity, System.nanoTime() + ttlNanos));
+        reserved.increment();
+        return Optional.of(reservationId);
+    }
+
+    public void confirm(String reservationId, Long productId, int quantity) {
+        Integer owner = reservationId != null ? reservationRouting.remoteOwner(reservationId) : null;
+        if (owner != null) {
+            productEventProducer.sendReservationConfirmed(owner, new StockReservationConfirmed(reservationId, productId, quantity));
+            forwardedConfirms.increment();
+            return;
+        }
+        int unreserved = quantity;
+        if (reservationId != null) {
+            Reservation reservation = reservations.get(reservationId);
+            if (reservation != null) {
+                unreserved -= take(reservationId, reservation, quantity);
+            }
+        }
+        ProductStock stock = stocks.get(productId);
+        if (stock == null) {
+            untrackedSales.computeIfAbsent(productId, id -> new LongAdder()).add(-quantity);
+            return;
+        }
+        if (unreserved > 0) {
+            stock.counter.force(unreserved);
+        }
+        stock.unflushed.add(-quantity);
+    }
+
+    public void release(String reservationId, Long productId, int quantity) {
+        Integer owner = reservationRouting.remoteOwner(reservationId);
+        if (owner != null) {
+            productEventProducer.sendReservationReleased(owner, new StockReservationReleased(reservationId, productId, quantity));
+            forwardedReleases.increment();
+            return;
+        }
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            return;
+        }
+        int released = take(reservationId, reservation, quantity);
+        returnToStock(reservation.productId, released);
+        cancelled.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.expiry-interval:1s}")
+    public void expireReservations() {
+        long now = System.nanoTime();
+        reservations.forEach((reservationId, reservation) -> {
+            if (reservation.expiresAt - now <= 0 && reservations.remove(reservationId, reservation)) {
+                returnToStock(reservation.productId, reservation.take(Integer.MAX_VALUE));
+                expired.increment();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${stock.flush-interval:200ms}")
+    public synchronized void flush() {
+        Map<Long, Long> trackedDeltas = new HashMap<>();
+        Map<Long, Long> deltas = new TreeMap<>();
+        stocks.forEach((productId, stock) -> {
+            long delta = stock.unflushed.sum();
+            if (delta != 0) {
+                stock.unflushed.add(-delta);
+                trackedDeltas.put(productId, delta);
+                deltas.put(productId, delta);
+            }
+        });
+        Map<Long, Long> untrackedDeltas = new HashMap<>();
+        untrackedSales.forEach((productId, sales) -> {
+            long delta = sales.sum();
+            if (delta != 0) {
+                sales.add(-delta);
+                untrackedDeltas.put(productId, delta);
+                deltas.merge(productId, delta, Long::sum);
+            }
+        });
+        Long[] idle = stocks.keySet().stream().filter(id -> !deltas.containsKey(id)).sorted().toArray(Long[]::new);
+
+        List<Product> updated;
+        try {
+            long start = System.nanoTime();
+            updated = deltas.isEmpty() ? List.of()
+                : stockRepository.applyDeltas(deltas.keySet().toArray(Long[]::new), deltas.values().toArray(Long[]::new));
+            flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            trackedDeltas.forEach((productId, delta) -> {
+                ProductStock stock = stocks.get(productId);
+                if (stock != null) {
+                    stock.unflushed.add(delta);
+                }
+            });
+            untrackedDeltas.forEach((productId, delta) -> untrackedSales.computeIfAbsent(productId, id -> new LongAdder()).add(delta));
+            log.warn("Failed to flush stock deltas for {} products, will retry", deltas.size(), e);
+            return;
+        }
+
+        List<Product> refreshed;
+        try {
+            refreshed = idle.length == 0 ? List.of() : stockRepository.findAllByIds(idle);
+        } catch (Exception e) {
+            log.warn("Failed to refresh stock for {} idle products", idle.length, e);
+            refreshed = null;
+        }
+
+        Set<Long> present = new HashSet<>();
+        List<Product> current = new ArrayList<>(updated);
+        if (refreshed != null) {
+            current.addAll(refreshed);
+        }
+        for (Product product : current) {
+            present.add(product.getId());
+            ProductStock stock = stocks.get(product.getId());
+            if (stock != null) {
+                long expected = stock.lastKnownQuantity + trackedDeltas.getOrDefault(product.getId(), 0L);
+                long external = product.getQuantity() - expected;
+                if (external != 0) {
+                    stock.counter.adjust(external);
+                }
+                stock.lastKnownQuantity = product.getQuantity();
+            }
+        }
+        trackedDeltas.keySet().stream().filter(id -> !present.contains(id)).forEach(stocks::remove);
+        if (refreshed != null) {
+            Arrays.stream(idle).filter(id -> !present.contains(id)).forEach(stocks::remove);
+        }
+        untrackedDeltas.keySet().forEach(productId -> untrackedSales.computeIfPresent(productId,
+            (id, sales) -> sales.sum() == 0 ? null : sales));
+        updated.forEach(productEventProducer::sendProductChanged);
+        if (!updated.isEmpty()) {
+            log.debug("Flushed stock deltas for {} products", updated.size());
+        }
+    }
+
+    public long available(Long productId) {
+        ProductStock stock = stocks.get(productId);
+        return stock != null ? stock.counter.available() : -1;
+    }
+
+    private int take(String reservationId, Reservation reservation, int quantity) {
+        int taken = reservation.take(quantity);
+        if (reservation.remaining.get() == 0) {
+            reservations.remove(reservationId, reservation);
+        }
+        return taken;
+    }
+
+    private void returnToStock(Long productId, int quantity) {
+        ProductStock stock = stocks.get(productId);
+        if (stock != null && quantity > 0) {
+            stock.counter.release(quantity);
+        }
+    }
+
+    private static Counter reservationCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("stock.reservations")
+            .description("Stock reservation attempts by outcome")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private static Counter releaseCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("stock.reservations.released")
+            .description("Stock reservations returned to stock before being confirmed")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private static Counter forwardCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("stock.reservations.forwarded")
+            .description("Reservation confirms and releases forwarded to the pod that holds the reservation")
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    private static final class ProductStock {
+
+        private final StripedStockCounter counter;
+        private final LongAdder unflushed = new LongAdder();
+        private long lastKnownQuantity;
+
+        private ProductStock(StripedStockCounter counter, long lastKnownQuantity) {
+            this.counter = counter;
+            this.lastKnownQuantity = lastKnownQuantity;
+        }
+    }
+
+    private static final class Reservation {
+
+        private final Long productId;
+        private final AtomicInteger remaining;
+        private final long expiresAt;
+
+        private Reservation(Long productId, int quantity, long expiresAt) {
+            this.productId = productId;
+            this.remaining = new AtomicInteger(quantity);
+            this.expiresAt = expiresAt;
+        }
+
+        private int take(int quantity) {
+            int current = remaining.get();
+            while (current > 0) {
+                int taken = Math.min(current, quantity);
+                int witness = remaining.compareAndExchange(current, current - taken);
+                if (witness == current) {
+                    return taken;
+                }
+                current = witness;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.mirea.docsa2.util;
+
+import org.springframework.data.domain.Limit;
+
+public class KeysetPage {
+
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+
+    public static boolean requested(Long afterId, Integer limit) {
+        return afterId != null || limit != null;
+    }
+
+    public static long after(Long afterId) {
+        return afterId != null ? afterId : 0L;
+    }
+
+    public static Limit limit(Integer limit) {
+        return Limit.of(Math.min(limit != null && limit > 0 ? limit : DEFAULT_SIZE, MAX_SIZE));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.mirea.docsa2.util;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.common.TopicPartition;
+
+public class PartitionLocalCache<K, V> {
+
+    private final int maxSizePerPartition;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<TopicPartition, Partition<K, V>> partitions = new ConcurrentHashMap<>();
+
+    public PartitionLocalCache(int maxSizePerPartition, Duration ttl) {
+        this(maxSizePerPartition, ttl, System::nanoTime);
+    }
+
+    PartitionLocalCache(int maxSizePerPartition, Duration ttl, LongSupplier nanoTime) {
+        this.maxSizePerPartition = maxSizePerPartition;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    public void assign(Collection<TopicPartition> assigned) {
+        assigned.forEach(partition -> partitions.put(partition, new Partition<>(maxSizePerPartition)));
+    }
+
+    public void revoke(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    public V get(TopicPartition partition, K key) {
+        Partition<K, V> cache = partitions.get(partition);
+        if (cache == null) {
+            return null;
+        }
+        synchronized (cache) {
+            Entry<V> entry = cache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoTime.getAsLong() - entry.expiresAt >= 0) {
+                cache.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    public void put(TopicPartition partition, K key, V value) {
+        Partition<K, V> cache = partitions.get(partition);
+        if (cache == null) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(key, new Entry<>(value, nanoTime.getAsLong() + ttlNanos));
+        }
+    }
+
+    public void invalidate(K key) {
+        partitions.values().forEach(cache -> {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+        });
+    }
+
+    public int partitions() {
+        return partitions.size();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Partition<K, V> cache : partitions.values()) {
+            synchronized (cache) {
+                size += cache.size();
+            }
+        }
+        return size;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private static final class Partition<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+        private final int maxSize;
+
+        private Partition(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.mirea.docsa2.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SpaceSavingSketch {
+
+    private final long[] keys;
+    private final double[] counts;
+    private final double[] errors;
+    private final Map<Long, Integer> slots;
+    private int size;
+
+    public SpaceSavingSketch(int capacity) {
+        int slotCount = Math.max(capacity, 1);
+        this.keys = new long[slotCount];
+        this.counts = new double[slotCount];
+        this.errors = new double[slotCount];
+        this.slots = new HashMap<>(slotCount * 2);
+    }
+
+    public synchronized void offer(long key, double weight) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot] += weight;
+            return;
+        }
+        if (size < keys.length) {
+            put(size++, key, weight, 0);
+            return;
+        }
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        slots.remove(keys[min]);
+        put(min, key, counts[min] + weight, counts[min]);
+    }
+
+    public synchronized void decay(double factor) {
+        for (int i = 0; i < size; i++) {
+            counts[i] *= factor;
+            errors[i] *= factor;
+        }
+    }
+
+    public synchronized List<Entry> top(int k) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i], errors[i]));
+        }
+        entries.sort(Comparator.comparingDouble(Entry::count).reversed());
+        return entries.size() > k ? List.copyOf(entries.subList(0, k)) : entries;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    private void put(int slot, long key, double count, double error) {
+        keys[slot] = key;
+        counts[slot] = count;
+        errors[slot] = error;
+        slots.put(key, slot);
+    }
+
+    public record Entry(long key, double count, double error) {
+    }
+}
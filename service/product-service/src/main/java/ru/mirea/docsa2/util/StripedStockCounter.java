@@ -0,0 +1,91 @@
+package ru.mirea.docsa2.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class StripedStockCounter {
+
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+    private final int mask;
+    private volatile long debt;
+
+    public StripedStockCounter(int stripeCount, long initial) {
+        this.stripes = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+        this.mask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        settle(-initial, true);
+    }
+
+    public boolean tryAcquire(long amount) {
+        if (debt == 0) {
+            int home = home();
+            for (int i = 0; i < stripes; i++) {
+                int cell = ((home + i) & mask) * PADDING;
+                long current = cells.get(cell);
+                while (current >= amount) {
+                    long witness = cells.compareAndExchange(cell, current, current - amount);
+                    if (witness == current) {
+                        return true;
+                    }
+                    current = witness;
+                }
+            }
+        }
+        return settle(amount, false);
+    }
+
+    public void release(long amount) {
+        cells.getAndAdd(home() * PADDING, amount);
+    }
+
+    public void force(long amount) {
+        if (!tryAcquire(amount)) {
+            settle(amount, true);
+        }
+    }
+
+    public void adjust(long delta) {
+        if (delta >= 0) {
+            release(delta);
+        } else {
+            force(-delta);
+        }
+    }
+
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum - debt;
+    }
+
+    private synchronized boolean settle(long amount, boolean overdraw) {
+        long total = -debt;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+        boolean acquired = overdraw || total >= amount;
+        if (acquired) {
+            total -= amount;
+        }
+        if (total < 0) {
+            debt = -total;
+            return acquired;
+        }
+        debt = 0;
+        long share = total / stripes;
+        long remainder = total % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.getAndAdd(i * PADDING, share + (i < remainder ? 1 : 0));
+        }
+        return acquired;
+    }
+
+    private int home() {
+        long id = Thread.currentThread().threadId();
+        return ((int) (id ^ (id >>> 32)) * 0x9e3779b9 >>> 16) & mask;
+    }
+}
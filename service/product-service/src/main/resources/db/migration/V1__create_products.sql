@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS products (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name     VARCHAR(255)   NOT NULL,
+    price    NUMERIC(10, 2) NOT NULL,
+    quantity INTEGER        NOT NULL
+);
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS product_sales (
+    product_id    BIGINT    PRIMARY KEY,
+    sold_quantity BIGINT    NOT NULL,
+    order_count   BIGINT    NOT NULL,
+    last_sold_at  TIMESTAMP NOT NULL
+);
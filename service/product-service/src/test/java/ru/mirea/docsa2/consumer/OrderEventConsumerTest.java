@@ -3,27 +3,42 @@ package ru.mirea.docsa2.consumer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.service.HotProductTracker;
+import ru.mirea.docsa2.service.StockReservationService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class OrderEventConsumerTest {
 
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private HotProductTracker hotProductTracker;
+
     @InjectMocks
     private OrderEventConsumer consumer;
 
     @Test
-    void shouldHandleOrderCreatedEvent() {
-        OrderCreatedEvent event = new OrderCreatedEvent(
-            1L, 2L, 3L, 5, BigDecimal.valueOf(100), LocalDateTime.now()
+    void shouldConfirmReservedStockForEveryEvent() {
+        List<OrderCreatedEvent> events = List.of(
+            new OrderCreatedEvent(1L, 2L, 3L, 5, BigDecimal.valueOf(100), LocalDateTime.now(), "res-1"),
+            new OrderCreatedEvent(2L, 2L, 4L, 1, BigDecimal.valueOf(20), LocalDateTime.now(), null)
         );
 
-        assertDoesNotThrow(() -> consumer.handleOrderCreated(event));
+        consumer.handleOrderCreated(events);
+
+        verify(stockReservationService).confirm("res-1", 3L, 5);
+        verify(stockReservationService).confirm(null, 4L, 1);
+        verify(hotProductTracker).recordOrder(3L);
+        verify(hotProductTracker).recordOrder(4L);
     }
 }
-
@@ -0,0 +1,37 @@
+package ru.mirea.docsa2.consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.service.ProductSalesService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSalesConsumerTest {
+
+    @Mock
+    private ProductSalesService productSalesService;
+
+    @InjectMocks
+    private ProductSalesConsumer consumer;
+
+    @Test
+    void shouldRecordSalesOfWholeBatch() {
+        List<OrderCreatedEvent> events = List.of(
+            new OrderCreatedEvent(1L, 2L, 3L, 5, BigDecimal.valueOf(100), LocalDateTime.now(), "res-1"),
+            new OrderCreatedEvent(2L, 2L, 4L, 1, BigDecimal.valueOf(20), LocalDateTime.now(), null)
+        );
+
+        consumer.handleOrderCreated(events);
+
+        verify(productSalesService).record(events);
+    }
+}
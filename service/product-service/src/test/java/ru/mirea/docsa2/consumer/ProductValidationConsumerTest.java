@@ -1,42 +1,80 @@
 package ru.mirea.docsa2.consumer;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.core.KafkaTemplate;
+import ru.mirea.docsa2.config.ProductValidationProperties;
+import ru.mirea.docsa2.event.ProductValidationBatchResponse;
 import ru.mirea.docsa2.event.ProductValidationResponse;
+import ru.mirea.docsa2.event.ValidateProductBatchRequest;
 import ru.mirea.docsa2.event.ValidateProductRequest;
 import ru.mirea.docsa2.model.Product;
 import ru.mirea.docsa2.repository.ProductRepository;
+import ru.mirea.docsa2.service.HotProductTracker;
+import ru.mirea.docsa2.service.ProductLookupCache;
+import ru.mirea.docsa2.service.StockReservationService;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ProductValidationConsumerTest {
 
+    private static final String REQUEST_TOPIC = "validate-product-request";
+    private static final String BATCH_TOPIC = "validate-product-batch-request";
+
     @Mock
     private ProductRepository productRepository;
 
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
-    @InjectMocks
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private HotProductTracker hotProductTracker;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private ProductValidationConsumer consumer;
 
     @Captor
     private ArgumentCaptor<ProductValidationResponse> responseCaptor;
 
+    @Captor
+    private ArgumentCaptor<ProductValidationBatchResponse> batchResponseCaptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new ProductValidationConsumer(new ProductLookupCache(productRepository, new ProductValidationProperties(), meterRegistry),
+            kafkaTemplate, stockReservationService, hotProductTracker, meterRegistry);
+    }
+
     @Test
     void shouldValidateExistingProduct() {
         ValidateProductRequest request = new ValidateProductRequest("corr-123", 1L, 5);
@@ -48,8 +86,9 @@ class ProductValidationConsumerTest {
         product.setQuantity(10);
 
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(stockReservationService.reserve(product, 5)).thenReturn(Optional.of("res-1"));
 
-        consumer.handleValidateProductRequest(request);
+        consumer.handleValidateProductRequest(request, null, null, null, REQUEST_TOPIC, 0);
 
         verify(kafkaTemplate).send(eq("product-validation-response"), eq("corr-123"), responseCaptor.capture());
         
@@ -60,6 +99,30 @@ class ProductValidationConsumerTest {
         assertThat(response.productName()).isEqualTo("Test Product");
         assertThat(response.price()).isEqualByComparingTo(BigDecimal.valueOf(50));
         assertThat(response.errorMessage()).isNull();
+        assertThat(response.reservationId()).isEqualTo("res-1");
+    }
+
+    @Test
+    void shouldRejectProductWithInsufficientStock() {
+        ValidateProductRequest request = new ValidateProductRequest("corr-321", 1L, 50);
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        product.setPrice(BigDecimal.valueOf(50));
+        product.setQuantity(10);
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(stockReservationService.reserve(product, 50)).thenReturn(Optional.empty());
+
+        consumer.handleValidateProductRequest(request, null, null, null, REQUEST_TOPIC, 0);
+
+        verify(kafkaTemplate).send(eq("product-validation-response"), eq("corr-321"), responseCaptor.capture());
+
+        ProductValidationResponse response = responseCaptor.getValue();
+        assertThat(response.valid()).isFalse();
+        assertThat(response.errorMessage()).isEqualTo("Insufficient stock");
+        assertThat(response.reservationId()).isNull();
     }
 
     @Test
@@ -68,7 +131,7 @@ class ProductValidationConsumerTest {
 
         when(productRepository.findById(999L)).thenReturn(Optional.empty());
 
-        consumer.handleValidateProductRequest(request);
+        consumer.handleValidateProductRequest(request, null, null, null, REQUEST_TOPIC, 0);
 
         verify(kafkaTemplate).send(eq("product-validation-response"), eq("corr-456"), responseCaptor.capture());
         
@@ -79,6 +142,99 @@ class ProductValidationConsumerTest {
         assertThat(response.productName()).isNull();
         assertThat(response.price()).isNull();
         assertThat(response.errorMessage()).isEqualTo("Product not found");
+        verify(stockReservationService, never()).reserve(any(), anyInt());
     }
-}
 
+    @Test
+    void shouldReplyToTopicAndPartitionFromReplyHeaders() {
+        ValidateProductRequest request = new ValidateProductRequest("corr-789", 999L, 1);
+        byte[] replyTopic = "product-validation-response".getBytes(StandardCharsets.UTF_8);
+        byte[] replyPartition = ByteBuffer.allocate(Integer.BYTES).putInt(4).array();
+
+        when(productRepository.findById(999L)).thenReturn(Optional.empty());
+
+        consumer.handleValidateProductRequest(request, replyTopic, replyPartition, null, REQUEST_TOPIC, 0);
+
+        verify(kafkaTemplate).send(eq("product-validation-response"), eq(4), eq("corr-789"), responseCaptor.capture());
+        assertThat(responseCaptor.getValue().correlationId()).isEqualTo("corr-789");
+    }
+
+    @Test
+    void shouldValidateBatchWithSingleLookup() {
+        ValidateProductBatchRequest batch = new ValidateProductBatchRequest("batch-1", List.of(
+            new ValidateProductRequest("corr-1", 1L, 2),
+            new ValidateProductRequest("corr-2", 999L, 1),
+            new ValidateProductRequest("corr-3", 1L, 3)
+        ));
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        product.setPrice(BigDecimal.valueOf(50));
+        product.setQuantity(10);
+
+        when(productRepository.findAllById(Set.of(1L, 999L))).thenReturn(List.of(product));
+        when(stockReservationService.reserve(product, 2)).thenReturn(Optional.of("res-1"));
+        when(stockReservationService.reserve(product, 3)).thenReturn(Optional.of("res-3"));
+
+        consumer.handleValidateProductBatchRequest(batch, null, null, null, BATCH_TOPIC, 0);
+
+        verify(productRepository).findAllById(Set.of(1L, 999L));
+        verify(hotProductTracker, times(2)).recordValidation(1L);
+        verify(hotProductTracker).recordValidation(999L);
+        verify(kafkaTemplate).send(eq("product-validation-batch-response"), eq("batch-1"), batchResponseCaptor.capture());
+
+        List<ProductValidationResponse> responses = batchResponseCaptor.getValue().responses();
+        assertThat(responses).extracting(ProductValidationResponse::correlationId).containsExactly("corr-1", "corr-2", "corr-3");
+        assertThat(responses).extracting(ProductValidationResponse::valid).containsExactly(true, false, true);
+        assertThat(responses.get(1).errorMessage()).isEqualTo("Product not found");
+        assertThat(responses).extracting(ProductValidationResponse::reservationId).containsExactly("res-1", null, "res-3");
+    }
+
+    @Test
+    void shouldSkipRequestsPastDeadlineWithoutTouchingStock() {
+        byte[] expired = Long.toString(System.currentTimeMillis() - 1000).getBytes(StandardCharsets.UTF_8);
+        ValidateProductBatchRequest batch = new ValidateProductBatchRequest("batch-1", List.of(
+            new ValidateProductRequest("corr-1", 1L, 2),
+            new ValidateProductRequest("corr-2", 2L, 1)
+        ));
+
+        consumer.handleValidateProductRequest(new ValidateProductRequest("corr-3", 1L, 1), null, null, expired, REQUEST_TOPIC, 0);
+        consumer.handleValidateProductBatchRequest(batch, null, null, expired, BATCH_TOPIC, 0);
+
+        verifyNoInteractions(productRepository, stockReservationService, kafkaTemplate, hotProductTracker);
+        assertThat(meterRegistry.get("product.validation.requests").tag("outcome", "expired").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldServeRequestsBeforeDeadline() {
+        byte[] deadline = Long.toString(System.currentTimeMillis() + 60_000).getBytes(StandardCharsets.UTF_8);
+        when(productRepository.findById(999L)).thenReturn(Optional.empty());
+
+        consumer.handleValidateProductRequest(new ValidateProductRequest("corr-1", 999L, 1), null, null, deadline, REQUEST_TOPIC, 0);
+
+        verify(kafkaTemplate).send(eq("product-validation-response"), eq("corr-1"), responseCaptor.capture());
+        assertThat(meterRegistry.get("product.validation.requests").tag("outcome", "served").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldServeRepeatedProductsFromPartitionCacheUntilRevoked() {
+        Product product = new Product(1L, "Test Product", BigDecimal.TEN, 100);
+        TopicPartition partition = new TopicPartition(REQUEST_TOPIC, 0);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(stockReservationService.reserve(product, 1)).thenReturn(Optional.of("reservation-1"));
+        consumer.onPartitionsAssigned(Map.of(partition, 0L), null);
+
+        consumer.handleValidateProductRequest(new ValidateProductRequest("corr-1", 1L, 1), null, null, null, REQUEST_TOPIC, 0);
+        consumer.handleValidateProductRequest(new ValidateProductRequest("corr-2", 1L, 1), null, null, null, REQUEST_TOPIC, 0);
+
+        verify(productRepository, times(1)).findById(1L);
+        assertThat(meterRegistry.get("product.validation.cache.lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+
+        consumer.onPartitionsRevoked(List.of(partition));
+        consumer.onPartitionsAssigned(Map.of(partition, 0L), null);
+        consumer.handleValidateProductRequest(new ValidateProductRequest("corr-3", 1L, 1), null, null, null, REQUEST_TOPIC, 0);
+
+        verify(productRepository, times(2)).findById(1L);
+    }
+}
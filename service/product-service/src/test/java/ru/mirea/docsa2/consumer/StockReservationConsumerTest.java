@@ -0,0 +1,40 @@
+package ru.mirea.docsa2.consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.config.ReservationRouting;
+import ru.mirea.docsa2.event.StockReservationConfirmed;
+import ru.mirea.docsa2.event.StockReservationReleased;
+import ru.mirea.docsa2.service.StockReservationService;
+
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationConsumerTest {
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private ReservationRouting reservationRouting;
+
+    @InjectMocks
+    private StockReservationConsumer consumer;
+
+    @Test
+    void shouldReleaseReservation() {
+        consumer.handleReservationReleased(new StockReservationReleased("res-1", 3L, 2));
+
+        verify(stockReservationService).release("res-1", 3L, 2);
+    }
+
+    @Test
+    void shouldConfirmForwardedReservation() {
+        consumer.handleReservationConfirmed(new StockReservationConfirmed("res-1", 3L, 2));
+
+        verify(stockReservationService).confirm("res-1", 3L, 2);
+    }
+}
@@ -5,13 +5,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import ru.mirea.docsa2.dto.CreateProductRequest;
 import ru.mirea.docsa2.dto.ProductResponse;
 import ru.mirea.docsa2.dto.UpdateProductRequest;
 import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.producer.ProductEventProducer;
 import ru.mirea.docsa2.repository.ProductRepository;
+import ru.mirea.docsa2.service.ProductLookupCache;
+import ru.mirea.docsa2.util.KeysetPage;
+import ru.mirea.docsa2.util.NdjsonStreamer;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -27,6 +32,15 @@ class ProductControllerTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductEventProducer productEventProducer;
+
+    @Mock
+    private ProductLookupCache productLookupCache;
+
+    @Mock
+    private NdjsonStreamer ndjsonStreamer;
+
     @InjectMocks
     private ProductController productController;
 
@@ -35,13 +49,34 @@ class ProductControllerTest {
         Product product = new Product(1L, "Laptop", new BigDecimal("1500.00"), 10);
         when(productRepository.findAll()).thenReturn(List.of(product));
 
-        List<ProductResponse> result = productController.getAllProducts();
+        List<ProductResponse> result = productController.getAllProducts(null, null);
 
         assertEquals(1, result.size());
         assertEquals("Laptop", result.get(0).name());
         verify(productRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAllProducts_WithCursor_ShouldReturnNextPage() {
+        Product product = new Product(11L, "Laptop", new BigDecimal("1500.00"), 10);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(2))).thenReturn(List.of(product));
+
+        List<ProductResponse> result = productController.getAllProducts(10L, 2);
+
+        assertEquals(1, result.size());
+        assertEquals(11L, result.get(0).id());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllProducts_WithOversizedLimit_ShouldCapPageSize() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(KeysetPage.MAX_SIZE))).thenReturn(List.of());
+
+        List<ProductResponse> result = productController.getAllProducts(null, 1_000_000);
+
+        assertTrue(result.isEmpty());
+    }
+
     @Test
     void getProductById_WhenExists_ShouldReturnProduct() {
         Product product = new Product(1L, "Laptop", new BigDecimal("1500.00"), 10);
@@ -76,6 +111,7 @@ class ProductControllerTest {
         assertNotNull(response.getBody());
         assertEquals("Laptop", response.getBody().name());
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(productEventProducer).sendProductChanged(savedProduct);
     }
 
     @Test
@@ -91,6 +127,8 @@ class ProductControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(productLookupCache).invalidate(1L);
+        verify(productEventProducer).sendProductChanged(existingProduct);
     }
 
     @Test
@@ -111,6 +149,8 @@ class ProductControllerTest {
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(productRepository, times(1)).deleteById(1L);
+        verify(productLookupCache).invalidate(1L);
+        verify(productEventProducer).sendProductDeleted(1L);
     }
 
     @Test
@@ -121,6 +161,7 @@ class ProductControllerTest {
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         verify(productRepository, never()).deleteById(any());
+        verifyNoInteractions(productEventProducer);
     }
 }
 
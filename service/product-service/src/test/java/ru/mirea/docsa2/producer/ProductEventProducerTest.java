@@ -0,0 +1,59 @@
+package ru.mirea.docsa2.producer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.event.ProductChangedEvent;
+import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.repository.ProductRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ProductEventProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductEventProducer producer;
+
+    @Captor
+    private ArgumentCaptor<ProductChangedEvent> eventCaptor;
+
+    @Test
+    void shouldSendProductChangedEventKeyedByProductId() {
+        Product product = new Product(7L, "Laptop", new BigDecimal("1500.00"), 10);
+
+        producer.sendProductChanged(product);
+
+        verify(kafkaTemplate).send(eq(KafkaConfig.PRODUCT_CATALOG_TOPIC), eq("7"), eventCaptor.capture());
+
+        ProductChangedEvent event = eventCaptor.getValue();
+        assertThat(event.productId()).isEqualTo(7L);
+        assertThat(event.name()).isEqualTo("Laptop");
+        assertThat(event.price()).isEqualByComparingTo("1500.00");
+        assertThat(event.quantity()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldSendTombstoneForDeletedProduct() {
+        producer.sendProductDeleted(7L);
+
+        verify(kafkaTemplate).send(eq(KafkaConfig.PRODUCT_CATALOG_TOPIC), eq("7"), isNull());
+    }
+}
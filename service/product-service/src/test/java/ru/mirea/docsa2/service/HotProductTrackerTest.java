@@ -0,0 +1,55 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.mirea.docsa2.config.HotProductsProperties;
+import ru.mirea.docsa2.util.SpaceSavingSketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotProductTrackerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private HotProductTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        HotProductsProperties properties = new HotProductsProperties();
+        properties.setTopK(2);
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new HotProductTracker(properties, meterRegistry);
+    }
+
+    @Test
+    void top_ShouldTrackValidationsAndOrdersSeparately() {
+        tracker.recordValidation(1L);
+        tracker.recordValidation(1L);
+        tracker.recordValidation(2L);
+        tracker.recordOrder(3L);
+
+        assertThat(tracker.top(HotProductTracker.Source.VALIDATION))
+            .extracting(SpaceSavingSketch.Entry::key).containsExactly(1L, 2L);
+        assertThat(tracker.top(HotProductTracker.Source.ORDER))
+            .extracting(SpaceSavingSketch.Entry::key).containsExactly(3L);
+    }
+
+    @Test
+    void decay_ShouldPublishRankedGauges() {
+        tracker.recordOrder(7L);
+        tracker.recordOrder(7L);
+
+        assertThat(gauge("products.hot.id", "order", "1")).isEqualTo(-1);
+
+        tracker.decay();
+
+        assertThat(gauge("products.hot.id", "order", "1")).isEqualTo(7);
+        assertThat(gauge("products.hot.count", "order", "1")).isEqualTo(2);
+        assertThat(gauge("products.hot.id", "order", "2")).isEqualTo(-1);
+        assertThat(tracker.top(HotProductTracker.Source.ORDER).get(0).count()).isEqualTo(1);
+    }
+
+    private double gauge(String name, String source, String rank) {
+        return meterRegistry.get(name).tag("source", source).tag("rank", rank).gauge().value();
+    }
+}
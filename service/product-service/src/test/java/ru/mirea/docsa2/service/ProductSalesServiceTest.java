@@ -0,0 +1,64 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.mirea.docsa2.event.OrderCreatedEvent;
+import ru.mirea.docsa2.repository.ProductSalesRepository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSalesServiceTest {
+
+    @Mock
+    private ProductSalesRepository productSalesRepository;
+
+    private ProductSalesService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProductSalesService(productSalesRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void record_ShouldUpsertOneRowPerProductInIdOrder() {
+        LocalDateTime first = LocalDateTime.of(2024, 3, 10, 12, 0);
+        LocalDateTime latest = first.plusMinutes(5);
+
+        service.record(Arrays.asList(
+            event(7L, 2, latest),
+            event(3L, 1, first),
+            null,
+            event(7L, 4, first)
+        ));
+
+        verify(productSalesRepository).addAll(
+            new Long[]{3L, 7L},
+            new Long[]{1L, 6L},
+            new Long[]{1L, 2L},
+            new Timestamp[]{Timestamp.valueOf(first), Timestamp.valueOf(latest)}
+        );
+    }
+
+    @Test
+    void record_ShouldSkipEmptyBatch() {
+        service.record(List.of());
+
+        verifyNoInteractions(productSalesRepository);
+    }
+
+    private static OrderCreatedEvent event(Long productId, int quantity, LocalDateTime createdAt) {
+        return new OrderCreatedEvent(1L, 2L, productId, quantity, BigDecimal.TEN, createdAt, null);
+    }
+}
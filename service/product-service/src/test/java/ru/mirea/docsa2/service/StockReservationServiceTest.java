@@ -0,0 +1,176 @@
+package ru.mirea.docsa2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.apache.kafka.common.TopicPartition;
+import ru.mirea.docsa2.config.KafkaConfig;
+import ru.mirea.docsa2.config.ReservationRouting;
+import ru.mirea.docsa2.config.StockProperties;
+import ru.mirea.docsa2.event.StockReservationConfirmed;
+import ru.mirea.docsa2.event.StockReservationReleased;
+import ru.mirea.docsa2.model.Product;
+import ru.mirea.docsa2.producer.ProductEventProducer;
+import ru.mirea.docsa2.repository.StockRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ProductEventProducer productEventProducer;
+
+    private StockProperties properties;
+    private ReservationRouting reservationRouting;
+    private StockReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StockProperties();
+        reservationRouting = new ReservationRouting();
+        service = new StockReservationService(stockRepository, productEventProducer, reservationRouting, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reserve_ShouldHoldStockUntilItRunsOut() {
+        Product product = product(10);
+
+        Optional<String> first = service.reserve(product, 6);
+        Optional<String> second = service.reserve(product, 5);
+
+        assertThat(first).isPresent();
+        assertThat(second).isEmpty();
+        assertThat(service.available(1L)).isEqualTo(4);
+    }
+
+    @Test
+    void release_ShouldReturnHeldStock() {
+        Product product = product(10);
+        String reservationId = service.reserve(product, 6).orElseThrow();
+
+        service.release(reservationId, 1L, 6);
+        service.release(reservationId, 1L, 6);
+
+        assertThat(service.available(1L)).isEqualTo(10);
+    }
+
+    @Test
+    void flush_ShouldWriteNetDeltaOfConfirmedReservations() {
+        Product product = product(10);
+        String first = service.reserve(product, 2).orElseThrow();
+        String second = service.reserve(product, 3).orElseThrow();
+        service.confirm(first, 1L, 2);
+        service.confirm(second, 1L, 3);
+        Product written = product(5);
+        when(stockRepository.applyDeltas(new Long[]{1L}, new Long[]{-5L})).thenReturn(List.of(written));
+
+        service.flush();
+
+        verify(stockRepository).applyDeltas(new Long[]{1L}, new Long[]{-5L});
+        verify(productEventProducer).sendProductChanged(written);
+        assertThat(service.available(1L)).isEqualTo(5);
+    }
+
+    @Test
+    void confirm_ShouldDebitStockWhenOrderHasNoReservation() {
+        service.reserve(product(10), 1);
+        when(stockRepository.applyDeltas(new Long[]{1L, 2L}, new Long[]{-4L, -3L}))
+            .thenReturn(List.of(product(6), new Product(2L, "Mouse", BigDecimal.TEN, 7)));
+
+        service.confirm(null, 1L, 4);
+        service.confirm(null, 2L, 3);
+
+        assertThat(service.available(1L)).isEqualTo(5);
+        service.flush();
+        verify(stockRepository).applyDeltas(new Long[]{1L, 2L}, new Long[]{-4L, -3L});
+        assertThat(service.available(1L)).isEqualTo(5);
+        assertThat(service.available(2L)).isEqualTo(-1);
+    }
+
+    @Test
+    void flush_ShouldPickUpStockChangedOutsideTheService() {
+        service.reserve(product(10), 4);
+        when(stockRepository.findAllByIds(new Long[]{1L})).thenReturn(List.of(product(25)));
+
+        service.flush();
+
+        verify(stockRepository, never()).applyDeltas(any(), any());
+        assertThat(service.available(1L)).isEqualTo(21);
+    }
+
+    @Test
+    void flush_ShouldRetryDeltasAfterFailedWrite() {
+        Product product = product(10);
+        service.confirm(service.reserve(product, 2).orElseThrow(), 1L, 2);
+        when(stockRepository.applyDeltas(new Long[]{1L}, new Long[]{-2L}))
+            .thenThrow(new IllegalStateException("database unavailable"))
+            .thenReturn(List.of(product(8)));
+
+        service.flush();
+        service.flush();
+
+        verify(stockRepository, times(2)).applyDeltas(new Long[]{1L}, new Long[]{-2L});
+        verify(productEventProducer).sendProductChanged(any());
+        assertThat(service.available(1L)).isEqualTo(8);
+    }
+
+    @Test
+    void expireReservations_ShouldReturnStockOfExpiredHolds() {
+        properties.getReservation().setTtl(Duration.ZERO);
+        service = new StockReservationService(stockRepository, productEventProducer, reservationRouting, properties, new SimpleMeterRegistry());
+        service.reserve(product(10), 7);
+
+        service.expireReservations();
+
+        assertThat(service.available(1L)).isEqualTo(10);
+        verifyNoInteractions(stockRepository);
+    }
+
+    @Test
+    void reserve_ShouldTagReservationWithOwnedPartition() {
+        reservationRouting.assigned(List.of(new TopicPartition(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, 2)));
+
+        String reservationId = service.reserve(product(10), 6).orElseThrow();
+        service.release(reservationId, 1L, 6);
+
+        assertThat(reservationId).startsWith("2:");
+        assertThat(service.available(1L)).isEqualTo(10);
+        verifyNoInteractions(productEventProducer);
+    }
+
+    @Test
+    void confirmAndRelease_ShouldForwardReservationsHeldByAnotherPod() {
+        reservationRouting.assigned(List.of(new TopicPartition(KafkaConfig.STOCK_RESERVATION_RELEASED_TOPIC, 0)));
+        String foreign = "1:3f1c2b7e-0000-4000-8000-000000000000";
+
+        service.confirm(foreign, 1L, 2);
+        service.release(foreign, 1L, 3);
+
+        verify(productEventProducer).sendReservationConfirmed(1, new StockReservationConfirmed(foreign, 1L, 2));
+        verify(productEventProducer).sendReservationReleased(1, new StockReservationReleased(foreign, 1L, 3));
+        service.flush();
+        verify(stockRepository, never()).applyDeltas(any(), any());
+    }
+
+    private static Product product(int quantity) {
+        return new Product(1L, "Laptop", new BigDecimal("1500.00"), quantity);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.mirea.docsa2.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.mirea.docsa2.dto.ProductResponse;
+import ru.mirea.docsa2.model.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NdjsonStreamerTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Test
+    void stream_ShouldWriteOneJsonLinePerEntityInsideReadOnlyTransaction() throws Exception {
+        NdjsonStreamer streamer = new NdjsonStreamer(new ObjectMapper(), transactionManager, entityManager);
+        Product laptop = new Product(1L, "Laptop", new BigDecimal("1500.00"), 10);
+        Product mouse = new Product(2L, "Mouse", new BigDecimal("25.00"), 100);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transactionManager.getTransaction(argThat(definition -> definition.isReadOnly())))
+            .thenReturn(new SimpleTransactionStatus());
+
+        ResponseEntity<StreamingResponseBody> response = streamer.stream(
+            () -> Stream.of(laptop, mouse).onClose(() -> closed.set(true)), ProductResponse::from);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Laptop\""));
+        assertTrue(lines[1].contains("\"name\":\"Mouse\""));
+        assertTrue(closed.get());
+        verify(entityManager).detach(laptop);
+        verify(entityManager).detach(mouse);
+        verify(transactionManager).commit(any());
+    }
+}
@@ -0,0 +1,64 @@
+package ru.mirea.docsa2.util;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionLocalCacheTest {
+
+    private static final TopicPartition FIRST = new TopicPartition("validate-product-request", 0);
+    private static final TopicPartition SECOND = new TopicPartition("validate-product-request", 1);
+
+    private final AtomicLong now = new AtomicLong();
+    private final PartitionLocalCache<Long, String> cache = new PartitionLocalCache<>(2, Duration.ofSeconds(5), now::get);
+
+    @Test
+    void shouldOnlyCacheForAssignedPartitions() {
+        cache.put(FIRST, 1L, "a");
+        assertThat(cache.get(FIRST, 1L)).isNull();
+
+        cache.assign(List.of(FIRST));
+        cache.put(FIRST, 1L, "a");
+
+        assertThat(cache.get(FIRST, 1L)).isEqualTo("a");
+        assertThat(cache.get(SECOND, 1L)).isNull();
+    }
+
+    @Test
+    void shouldDropEntriesOnRevocationAndExpiry() {
+        cache.assign(List.of(FIRST, SECOND));
+        cache.put(FIRST, 1L, "a");
+        cache.put(SECOND, 2L, "b");
+
+        cache.revoke(List.of(FIRST));
+        assertThat(cache.get(FIRST, 1L)).isNull();
+        assertThat(cache.partitions()).isEqualTo(1);
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(cache.get(SECOND, 2L)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldBoundEachPartitionAndInvalidateAcrossPartitions() {
+        cache.assign(List.of(FIRST, SECOND));
+        cache.put(FIRST, 1L, "a");
+        cache.put(FIRST, 2L, "b");
+        cache.put(FIRST, 3L, "c");
+        cache.put(SECOND, 3L, "c");
+
+        assertThat(cache.get(FIRST, 1L)).isNull();
+        assertThat(cache.size()).isEqualTo(3);
+
+        cache.invalidate(3L);
+
+        assertThat(cache.get(FIRST, 3L)).isNull();
+        assertThat(cache.get(SECOND, 3L)).isNull();
+        assertThat(cache.get(FIRST, 2L)).isEqualTo("b");
+    }
+}
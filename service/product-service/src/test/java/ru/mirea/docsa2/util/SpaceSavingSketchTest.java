@@ -0,0 +1,55 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void top_ShouldRankHeavyHittersWithinFixedCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.offer(1, 1);
+            if (i % 2 == 0) {
+                sketch.offer(2, 1);
+            }
+            sketch.offer(1_000 + i, 1);
+        }
+
+        List<SpaceSavingSketch.Entry> top = sketch.top(2);
+
+        assertThat(top).extracting(SpaceSavingSketch.Entry::key).containsExactly(1L, 2L);
+        assertThat(top.get(0).count()).isGreaterThanOrEqualTo(1_000);
+        assertThat(top.get(1).count() - top.get(1).error()).isLessThanOrEqualTo(500);
+        assertThat(sketch.top(10)).hasSize(4);
+    }
+
+    @Test
+    void offer_ShouldInheritEvictedCountAsError() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer(1, 5);
+        sketch.offer(2, 3);
+
+        sketch.offer(3, 1);
+
+        assertThat(sketch.top(2)).containsExactly(
+            new SpaceSavingSketch.Entry(1, 5, 0),
+            new SpaceSavingSketch.Entry(3, 4, 3)
+        );
+    }
+
+    @Test
+    void decay_ShouldLetNewHeavyHittersOvertakeOldOnes() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(8);
+        sketch.offer(1, 100);
+        sketch.decay(0.5);
+        sketch.decay(0.5);
+        sketch.offer(2, 30);
+
+        assertThat(sketch.top(1)).extracting(SpaceSavingSketch.Entry::key).containsExactly(2L);
+        assertThat(sketch.top(2).get(1).count()).isEqualTo(25);
+    }
+}
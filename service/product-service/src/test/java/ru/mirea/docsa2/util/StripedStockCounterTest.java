@@ -0,0 +1,82 @@
+package ru.mirea.docsa2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockCounterTest {
+
+    @Test
+    void tryAcquire_ShouldTakeStockSpreadAcrossStripes() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertThat(counter.tryAcquire(7)).isTrue();
+        assertThat(counter.available()).isEqualTo(3);
+        assertThat(counter.tryAcquire(4)).isFalse();
+        assertThat(counter.tryAcquire(3)).isTrue();
+        assertThat(counter.available()).isZero();
+        assertThat(counter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    void release_ShouldMakeStockAvailableAgain() {
+        StripedStockCounter counter = new StripedStockCounter(8, 5);
+
+        assertThat(counter.tryAcquire(5)).isTrue();
+        counter.release(2);
+
+        assertThat(counter.available()).isEqualTo(2);
+        assertThat(counter.tryAcquire(2)).isTrue();
+    }
+
+    @Test
+    void force_ShouldOverdrawAndBlockAcquiresUntilDebtIsRepaid() {
+        StripedStockCounter counter = new StripedStockCounter(4, 2);
+
+        counter.force(5);
+
+        assertThat(counter.available()).isEqualTo(-3);
+        assertThat(counter.tryAcquire(1)).isFalse();
+
+        counter.adjust(4);
+
+        assertThat(counter.available()).isEqualTo(1);
+        assertThat(counter.tryAcquire(1)).isTrue();
+        assertThat(counter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    void tryAcquire_ShouldNeverOversellUnderContention() throws InterruptedException {
+        StripedStockCounter counter = new StripedStockCounter(8, 10_000);
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < 2_000; j++) {
+                    if (counter.tryAcquire(1)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(acquired.get()).isEqualTo(10_000);
+        assertThat(counter.available()).isZero();
+    }
+}